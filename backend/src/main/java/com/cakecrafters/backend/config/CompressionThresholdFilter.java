@@ -0,0 +1,107 @@
+package com.cakecrafters.backend.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.List;
+
+// Tomcat only applies server.compression.min-response-size when it knows the Content-Length, and the message
+// converters flush a document before the response ends, so every JSON, CBOR or Smile body would be compressed
+// however small. Holding back those flushes lets Tomcat finish a small response with a length; one larger than its
+// buffer is still sent chunked and compressed. Streams (NDJSON, Server-Sent Events) keep their flushes.
+@Component
+public class CompressionThresholdFilter extends OncePerRequestFilter {
+
+    private static final List<MediaType> DOCUMENT_TYPES = List.of(
+            MediaType.APPLICATION_JSON,
+            MediaType.APPLICATION_CBOR,
+            MediaType.valueOf("application/x-jackson-smile"));
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        chain.doFilter(request, new DocumentResponse(response));
+    }
+
+    private static final class DocumentResponse extends HttpServletResponseWrapper {
+        private ServletOutputStream body;
+
+        DocumentResponse(HttpServletResponse response) {
+            super(response);
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (body == null) {
+                body = new DocumentOutputStream(this, super.getOutputStream());
+            }
+            return body;
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            if (!holdsFlush()) {
+                super.flushBuffer();
+            }
+        }
+
+        boolean holdsFlush() {
+            if (isCommitted() || getContentType() == null) {
+                return false;
+            }
+            MediaType type = MediaType.parseMediaType(getContentType());
+            return DOCUMENT_TYPES.stream().anyMatch(document -> document.equalsTypeAndSubtype(type));
+        }
+    }
+
+    private static final class DocumentOutputStream extends ServletOutputStream {
+        private final DocumentResponse response;
+        private final ServletOutputStream out;
+
+        DocumentOutputStream(DocumentResponse response, ServletOutputStream out) {
+            this.response = response;
+            this.out = out;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (!response.holdsFlush()) {
+                out.flush();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+
+        @Override
+        public boolean isReady() {
+            return out.isReady();
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            out.setWriteListener(writeListener);
+        }
+    }
+}
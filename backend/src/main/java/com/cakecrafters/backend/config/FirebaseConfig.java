@@ -3,6 +3,7 @@ package com.cakecrafters.backend.config;
 import com.google.auth.oauth2.GoogleCredentials;
 import com.google.firebase.FirebaseApp;
 import com.google.firebase.FirebaseOptions;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Configuration;
 
 import javax.annotation.PostConstruct;
@@ -10,6 +11,7 @@ import java.io.FileInputStream;
 import java.io.IOException;
 
 @Configuration
+@ConditionalOnProperty(name = "cakecrafters.storage.engine", havingValue = "firebase", matchIfMissing = true)
 public class FirebaseConfig {
 
     @PostConstruct
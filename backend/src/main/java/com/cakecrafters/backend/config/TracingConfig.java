@@ -0,0 +1,23 @@
+package com.cakecrafters.backend.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+// Spring Boot hands every SpanExporter bean to the OpenTelemetry tracer it configures
+@Configuration
+public class TracingConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "cakecrafters.tracing.exporter", havingValue = "file")
+    public SpanExporter fileSpanExporter(@Value("${cakecrafters.tracing.file:traces/spans.ndjson}") String file,
+                                         ObjectMapper objectMapper) throws IOException {
+        return new FileSpanExporter(Path.of(file), objectMapper);
+    }
+}
@@ -0,0 +1,33 @@
+package com.cakecrafters.backend.config;
+
+import com.cakecrafters.backend.service.MediaService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+// JSON, CBOR and Smile responses share a URL and an ETag, so a cache has to key them on Accept as well, or it could
+// hand one encoding to a client that asked for another (or answer its If-None-Match with a 304 for the wrong one).
+// Set before the handler runs, so it is on every response, the 304s, pages and streams included; the header values
+// Spring, CORS and Tomcat's compression add are merged with it. Media is stored bytes and is not negotiated.
+@Component
+public class VaryAcceptFilter extends OncePerRequestFilter {
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return !path.startsWith("/api/") || path.startsWith(MediaService.MEDIA_PATH);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        chain.doFilter(request, response);
+    }
+}
@@ -0,0 +1,127 @@
+package com.cakecrafters.backend.controller;
+
+import com.cakecrafters.backend.model.BatchOperation;
+import com.cakecrafters.backend.model.BatchResult;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+// Shared handling of the /batch endpoints. A JSON array is applied as one batch of at most max-operations items.
+// An NDJSON body is read a line at a time on a virtual thread and applied in chunks of that size, and each chunk's
+// results are streamed back as NDJSON lines before the next chunk is read, so neither side holds the whole import.
+@Component
+class BatchRequests {
+
+    static final String NDJSON = "application/x-ndjson";
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchRequests.class);
+    private static final MediaType NDJSON_TYPE = MediaType.parseMediaType(NDJSON);
+
+    private final ObjectMapper objectMapper;
+    private final int maxOperations;
+    private final long streamTimeoutMs;
+    private final ExecutorService readers = Executors.newVirtualThreadPerTaskExecutor();
+
+    BatchRequests(ObjectMapper objectMapper,
+                  @Value("${cakecrafters.batch.max-operations:500}") int maxOperations,
+                  @Value("${cakecrafters.batch.stream-timeout-ms:600000}") long streamTimeoutMs) {
+        this.objectMapper = objectMapper;
+        this.maxOperations = maxOperations;
+        this.streamTimeoutMs = streamTimeoutMs;
+    }
+
+    <T> CompletableFuture<ResponseEntity<List<BatchResult>>> apply(List<BatchOperation<T>> operations,
+                                                                   Function<List<BatchOperation<T>>, CompletableFuture<List<BatchResult>>> service) {
+        if (operations.size() > maxOperations) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build());
+        }
+        return service.apply(operations)
+                .thenApply(results -> ResponseEntity.ok(results))
+                .exceptionally(throwable -> ErrorResponses.of(throwable, HttpStatus.INTERNAL_SERVER_ERROR));
+    }
+
+    // Result indexes count the non-blank lines of the body. A chunk that times out ends the stream early, so the
+    // last index reported is where a retry should resume.
+    <T> ResponseEntity<ResponseBodyEmitter> stream(InputStream body, Class<T> documentType,
+                                                   Function<List<BatchOperation<T>>, CompletableFuture<List<BatchResult>>> service) {
+        ObjectReader reader = objectMapper.readerFor(objectMapper.getTypeFactory().constructParametricType(BatchOperation.class, documentType));
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter(streamTimeoutMs);
+        readers.execute(() -> {
+            try (BufferedReader lines = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+                Chunk<T> chunk = new Chunk<>();
+                int index = 0;
+                String line;
+                while ((line = lines.readLine()) != null) {
+                    if (line.isBlank()) {
+                        continue;
+                    }
+                    try {
+                        chunk.operations.add(reader.readValue(line));
+                        chunk.positions.add(index);
+                    } catch (JsonProcessingException e) {
+                        chunk.unreadable.add(new BatchResult(index, null, null, BatchResult.INVALID, "Unreadable line: " + e.getOriginalMessage()));
+                    }
+                    index++;
+                    if (chunk.operations.size() == maxOperations) {
+                        flush(chunk, service, emitter);
+                        chunk = new Chunk<>();
+                    }
+                }
+                flush(chunk, service, emitter);
+                emitter.complete();
+            } catch (IOException | RuntimeException e) {
+                logger.warn("Batch stream stopped: {}", ErrorResponses.unwrap(e).toString());
+                emitter.completeWithError(e);
+            }
+        });
+        return ResponseEntity.ok().contentType(NDJSON_TYPE).body(emitter);
+    }
+
+    @PreDestroy
+    public void close() {
+        readers.shutdown();
+    }
+
+    private <T> void flush(Chunk<T> chunk, Function<List<BatchOperation<T>>, CompletableFuture<List<BatchResult>>> service,
+                           ResponseBodyEmitter emitter) throws IOException {
+        List<BatchResult> results = new ArrayList<>(chunk.unreadable);
+        if (!chunk.operations.isEmpty()) {
+            for (BatchResult result : service.apply(chunk.operations).join()) {
+                result.setIndex(chunk.positions.get(result.getIndex()));
+                results.add(result);
+            }
+        }
+        results.sort(Comparator.comparingInt(BatchResult::getIndex));
+        for (BatchResult result : results) {
+            emitter.send(objectMapper.writeValueAsString(result) + "\n", NDJSON_TYPE);
+        }
+    }
+
+    private static class Chunk<T> {
+        private final List<BatchOperation<T>> operations = new ArrayList<>();
+        private final List<Integer> positions = new ArrayList<>(); // Line index of each operation
+        private final List<BatchResult> unreadable = new ArrayList<>();
+    }
+}
@@ -0,0 +1,27 @@
+package com.cakecrafters.backend.controller;
+
+import com.cakecrafters.backend.repository.DocumentCaches;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/cache")
+public class CacheController {
+
+    private final DocumentCaches documentCaches;
+
+    @Autowired
+    public CacheController(DocumentCaches documentCaches) {
+        this.documentCaches = documentCaches;
+    }
+
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Map<String, Long>>> getStats() {
+        return ResponseEntity.ok(documentCaches.stats());
+    }
+}
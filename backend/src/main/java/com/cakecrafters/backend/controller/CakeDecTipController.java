@@ -1,11 +1,23 @@
 package com.cakecrafters.backend.controller;
 
+import com.cakecrafters.backend.model.BatchOperation;
+import com.cakecrafters.backend.model.BatchResult;
 import com.cakecrafters.backend.model.CakeDecTip;
+import com.cakecrafters.backend.model.CakeDecTipSummary;
+import com.cakecrafters.backend.model.FacetedPage;
 import com.cakecrafters.backend.service.CakeDecTipService;
+import com.cakecrafters.backend.service.LeaderboardService;
+import com.cakecrafters.backend.service.FacetService;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 
@@ -14,72 +26,141 @@ import java.util.concurrent.CompletableFuture;
 public class CakeDecTipController {
 
     private final CakeDecTipService tipService;
+    private final FacetService facetService;
+    private final LeaderboardService leaderboardService;
+    private final BatchRequests batchRequests;
+    private final ExportResponses exportResponses;
 
     @Autowired
-    public CakeDecTipController(CakeDecTipService tipService) {
+    public CakeDecTipController(CakeDecTipService tipService, FacetService facetService, LeaderboardService leaderboardService, BatchRequests batchRequests, ExportResponses exportResponses) {
         this.tipService = tipService;
+        this.facetService = facetService;
+        this.leaderboardService = leaderboardService;
+        this.batchRequests = batchRequests;
+        this.exportResponses = exportResponses;
     }
 
     @PostMapping
     public CompletableFuture<ResponseEntity<CakeDecTip>> createTip(@RequestBody CakeDecTip tip) {
         return tipService.createTip(tip)
                 .thenApply(t -> ResponseEntity.ok(t))
-                .exceptionally(throwable -> ResponseEntity.badRequest().build());
+                .exceptionally(throwable -> ErrorResponses.badRequest(throwable));
+    }
+
+    // Streams every document as NDJSON, one page at a time
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportTips(HttpServletRequest request) {
+        return exportResponses.ndjson(request, "decoration-tips", tipService::getTipsPage);
     }
 
     @GetMapping("/{id}")
-    public CompletableFuture<ResponseEntity<CakeDecTip>> getTip(@PathVariable String id) {
-        return tipService.getTip(id)
-                .thenApply(t -> ResponseEntity.ok(t))
-                .exceptionally(throwable -> ResponseEntity.notFound().build());
+    public CompletableFuture<ResponseEntity<CakeDecTip>> getTip(@PathVariable String id, @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return ConditionalResponses.document(tipService.versions(), id, ifNoneMatch,
+                () -> tipService.getTip(id),
+                throwable -> ErrorResponses.notFound(throwable));
     }
 
     @GetMapping
-    public CompletableFuture<ResponseEntity<List<CakeDecTip>>> getAllTips() {
-        return tipService.getAllTips()
-                .thenApply(tips -> ResponseEntity.ok(tips))
-                .exceptionally(throwable -> ResponseEntity.badRequest().build());
+    public CompletableFuture<ResponseEntity<List<CakeDecTip>>> getAllTips(@RequestParam(required = false) Integer limit, @RequestParam(required = false) String after, @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return ConditionalResponses.collection(tipService.versions(), ifNoneMatch, () -> {
+            if (limit != null) {
+                return tipService.getTipsPage(limit, after)
+                        .thenApply(page -> PageResponses.ok(page))
+                        .exceptionally(throwable -> ErrorResponses.badRequest(throwable));
+            }
+            return tipService.getAllTips()
+                    .thenApply(tips -> ResponseEntity.ok(tips))
+                    .exceptionally(throwable -> ErrorResponses.badRequest(throwable));
+        });
+    }
+
+    @GetMapping("/summary")
+    public CompletableFuture<ResponseEntity<List<CakeDecTipSummary>>> getTipSummaries(@RequestParam(required = false) Integer limit, @RequestParam(required = false) String after, @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return ConditionalResponses.collection(tipService.versions(), ifNoneMatch, () -> {
+            if (limit != null) {
+                return tipService.getTipSummariesPage(limit, after)
+                        .thenApply(page -> PageResponses.ok(page))
+                        .exceptionally(throwable -> ErrorResponses.badRequest(throwable));
+            }
+            return tipService.getTipSummaries()
+                    .thenApply(summaries -> ResponseEntity.ok(summaries))
+                    .exceptionally(throwable -> ErrorResponses.badRequest(throwable));
+        });
+    }
+
+    // Filtered listing answered from the facet indexes, with per-value counts for each facet
+    @GetMapping("/filter")
+    public ResponseEntity<FacetedPage<CakeDecTipSummary>> filterTipSummaries(@RequestParam(required = false) String category, @RequestParam(required = false) String difficulty, @RequestParam(defaultValue = "20") int limit, @RequestParam(required = false) String after, @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return ConditionalResponses.collectionNow(tipService.versions(), ifNoneMatch, () -> {
+            try {
+                return ResponseEntity.ok(facetService.filterTips(category, difficulty, limit, after));
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().build();
+            }
+        });
+    }
+
+    // Served from leaderboards kept current by the like paths
+    @GetMapping("/top")
+    public ResponseEntity<List<CakeDecTipSummary>> getTopTips(@RequestParam(defaultValue = "10") int limit, @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return ConditionalResponses.collectionNow(tipService.versions(), ifNoneMatch, () -> ResponseEntity.ok(leaderboardService.topTips(limit)));
+    }
+
+    @GetMapping("/trending")
+    public ResponseEntity<List<CakeDecTipSummary>> getTrendingTips(@RequestParam(defaultValue = "10") int limit, @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return ConditionalResponses.collectionNow(tipService.versions(), ifNoneMatch, () -> ResponseEntity.ok(leaderboardService.trendingTips(limit)));
     }
 
     @PutMapping("/{id}")
     public CompletableFuture<ResponseEntity<CakeDecTip>> updateTip(@PathVariable String id, @RequestBody CakeDecTip tip) {
         return tipService.updateTip(id, tip)
                 .thenApply(t -> ResponseEntity.ok(t))
-                .exceptionally(throwable -> ResponseEntity.badRequest().build());
+                .exceptionally(throwable -> ErrorResponses.badRequest(throwable));
     }
 
     @DeleteMapping("/{id}")
     public CompletableFuture<ResponseEntity<Void>> deleteTip(@PathVariable String id) {
         return tipService.deleteTip(id)
                 .thenApply(aVoid -> ResponseEntity.ok().<Void>build())
-                .exceptionally(throwable -> ResponseEntity.badRequest().build());
+                .exceptionally(throwable -> ErrorResponses.badRequest(throwable));
+    }
+
+    // Bulk creates, updates and deletes as one write; send application/x-ndjson to stream a large import
+    @PostMapping(path = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public CompletableFuture<ResponseEntity<List<BatchResult>>> applyBatch(@RequestBody List<BatchOperation<CakeDecTip>> operations) {
+        return batchRequests.apply(operations, tipService::applyBatch);
+    }
+
+    @PostMapping(path = "/batch", consumes = BatchRequests.NDJSON)
+    public ResponseEntity<ResponseBodyEmitter> streamBatch(HttpServletRequest request) throws IOException {
+        return batchRequests.stream(request.getInputStream(), CakeDecTip.class, tipService::applyBatch);
     }
 
     @PostMapping("/{id}/like")
     public CompletableFuture<ResponseEntity<CakeDecTip>> likeTip(@PathVariable String id) {
         return tipService.likeTip(id)
                 .thenApply(t -> ResponseEntity.ok(t))
-                .exceptionally(throwable -> ResponseEntity.badRequest().build());
+                .exceptionally(throwable -> ErrorResponses.badRequest(throwable));
     }
 
     @PostMapping("/{id}/comment")
     public CompletableFuture<ResponseEntity<CakeDecTip>> addComment(@PathVariable String id, @RequestBody CakeDecTip.Comment comment) {
         return tipService.addComment(id, comment)
                 .thenApply(t -> ResponseEntity.ok(t))
-                .exceptionally(throwable -> ResponseEntity.badRequest().build());
+                .exceptionally(throwable -> ErrorResponses.badRequest(throwable));
     }
 
     @PutMapping("/{id}/comment/{commentId}")
     public CompletableFuture<ResponseEntity<CakeDecTip>> editComment(@PathVariable String id, @PathVariable String commentId, @RequestBody CakeDecTip.Comment comment) {
         return tipService.editComment(id, commentId, comment)
                 .thenApply(t -> ResponseEntity.ok(t))
-                .exceptionally(throwable -> ResponseEntity.badRequest().build());
+                .exceptionally(throwable -> ErrorResponses.badRequest(throwable));
     }
 
     @DeleteMapping("/{id}/comment/{commentId}")
     public CompletableFuture<ResponseEntity<CakeDecTip>> deleteComment(@PathVariable String id, @PathVariable String commentId) {
         return tipService.deleteComment(id, commentId)
                 .thenApply(t -> ResponseEntity.ok(t))
-                .exceptionally(throwable -> ResponseEntity.badRequest().build());
+                .exceptionally(throwable -> ErrorResponses.badRequest(throwable));
     }
 }
\ No newline at end of file
@@ -1,11 +1,23 @@
 package com.cakecrafters.backend.controller;
 
+import com.cakecrafters.backend.model.BatchOperation;
+import com.cakecrafters.backend.model.BatchResult;
 import com.cakecrafters.backend.model.CakeRecipe;
+import com.cakecrafters.backend.model.CakeRecipeSummary;
+import com.cakecrafters.backend.model.FacetedPage;
 import com.cakecrafters.backend.service.CakeRecipeService;
+import com.cakecrafters.backend.service.LeaderboardService;
+import com.cakecrafters.backend.service.FacetService;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 
@@ -14,58 +26,127 @@ import java.util.concurrent.CompletableFuture;
 public class CakeRecipeController {
 
     private final CakeRecipeService cakeRecipeService;
+    private final FacetService facetService;
+    private final LeaderboardService leaderboardService;
+    private final BatchRequests batchRequests;
+    private final ExportResponses exportResponses;
 
     @Autowired
-    public CakeRecipeController(CakeRecipeService cakeRecipeService) {
+    public CakeRecipeController(CakeRecipeService cakeRecipeService, FacetService facetService, LeaderboardService leaderboardService, BatchRequests batchRequests, ExportResponses exportResponses) {
         this.cakeRecipeService = cakeRecipeService;
+        this.facetService = facetService;
+        this.leaderboardService = leaderboardService;
+        this.batchRequests = batchRequests;
+        this.exportResponses = exportResponses;
     }
 
     @PostMapping
     public CompletableFuture<ResponseEntity<CakeRecipe>> createCakeRecipe(@RequestBody CakeRecipe cakeRecipe) {
         return cakeRecipeService.createCakeRecipe(cakeRecipe)
                 .thenApply(recipe -> ResponseEntity.ok(recipe))
-                .exceptionally(throwable -> ResponseEntity.badRequest().build());
+                .exceptionally(throwable -> ErrorResponses.badRequest(throwable));
+    }
+
+    // Streams every document as NDJSON, one page at a time
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportCakeRecipes(HttpServletRequest request) {
+        return exportResponses.ndjson(request, "cake-recipes", cakeRecipeService::getCakeRecipesPage);
     }
 
     @GetMapping("/{id}")
-    public CompletableFuture<ResponseEntity<CakeRecipe>> getCakeRecipe(@PathVariable String id) {
-        return cakeRecipeService.getCakeRecipe(id)
-                .thenApply(recipe -> ResponseEntity.ok(recipe))
-                .exceptionally(throwable -> ResponseEntity.notFound().build());
+    public CompletableFuture<ResponseEntity<CakeRecipe>> getCakeRecipe(@PathVariable String id, @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return ConditionalResponses.document(cakeRecipeService.versions(), id, ifNoneMatch,
+                () -> cakeRecipeService.getCakeRecipe(id),
+                throwable -> ErrorResponses.notFound(throwable));
     }
 
     @GetMapping
-    public CompletableFuture<ResponseEntity<List<CakeRecipe>>> getAllCakeRecipes() {
-        return cakeRecipeService.getAllCakeRecipes()
-                .thenApply(recipes -> ResponseEntity.ok(recipes))
-                .exceptionally(throwable -> ResponseEntity.badRequest().build());
+    public CompletableFuture<ResponseEntity<List<CakeRecipe>>> getAllCakeRecipes(@RequestParam(required = false) Integer limit, @RequestParam(required = false) String after, @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return ConditionalResponses.collection(cakeRecipeService.versions(), ifNoneMatch, () -> {
+            if (limit != null) {
+                return cakeRecipeService.getCakeRecipesPage(limit, after)
+                        .thenApply(page -> PageResponses.ok(page))
+                        .exceptionally(throwable -> ErrorResponses.badRequest(throwable));
+            }
+            return cakeRecipeService.getAllCakeRecipes()
+                    .thenApply(recipes -> ResponseEntity.ok(recipes))
+                    .exceptionally(throwable -> ErrorResponses.badRequest(throwable));
+        });
+    }
+
+    @GetMapping("/summary")
+    public CompletableFuture<ResponseEntity<List<CakeRecipeSummary>>> getCakeRecipeSummaries(@RequestParam(required = false) Integer limit, @RequestParam(required = false) String after, @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return ConditionalResponses.collection(cakeRecipeService.versions(), ifNoneMatch, () -> {
+            if (limit != null) {
+                return cakeRecipeService.getCakeRecipeSummariesPage(limit, after)
+                        .thenApply(page -> PageResponses.ok(page))
+                        .exceptionally(throwable -> ErrorResponses.badRequest(throwable));
+            }
+            return cakeRecipeService.getCakeRecipeSummaries()
+                    .thenApply(summaries -> ResponseEntity.ok(summaries))
+                    .exceptionally(throwable -> ErrorResponses.badRequest(throwable));
+        });
+    }
+
+    // Filtered listing answered from the facet indexes, with per-value counts for each facet
+    @GetMapping("/filter")
+    public ResponseEntity<FacetedPage<CakeRecipeSummary>> filterCakeRecipeSummaries(@RequestParam(required = false) String cakeType, @RequestParam(required = false) String skillLevel, @RequestParam(defaultValue = "20") int limit, @RequestParam(required = false) String after, @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return ConditionalResponses.collectionNow(cakeRecipeService.versions(), ifNoneMatch, () -> {
+            try {
+                return ResponseEntity.ok(facetService.filterRecipes(cakeType, skillLevel, limit, after));
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().build();
+            }
+        });
+    }
+
+    // Served from leaderboards kept current by the like paths
+    @GetMapping("/top")
+    public ResponseEntity<List<CakeRecipeSummary>> getTopRecipes(@RequestParam(defaultValue = "10") int limit, @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return ConditionalResponses.collectionNow(cakeRecipeService.versions(), ifNoneMatch, () -> ResponseEntity.ok(leaderboardService.topRecipes(limit)));
+    }
+
+    @GetMapping("/trending")
+    public ResponseEntity<List<CakeRecipeSummary>> getTrendingRecipes(@RequestParam(defaultValue = "10") int limit, @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return ConditionalResponses.collectionNow(cakeRecipeService.versions(), ifNoneMatch, () -> ResponseEntity.ok(leaderboardService.trendingRecipes(limit)));
     }
 
     @PutMapping("/{id}")
     public CompletableFuture<ResponseEntity<CakeRecipe>> updateCakeRecipe(@PathVariable String id, @RequestBody CakeRecipe cakeRecipe) {
         return cakeRecipeService.updateCakeRecipe(id, cakeRecipe)
                 .thenApply(recipe -> ResponseEntity.ok(recipe))
-                .exceptionally(throwable -> ResponseEntity.badRequest().build());
+                .exceptionally(throwable -> ErrorResponses.badRequest(throwable));
     }
 
     @DeleteMapping("/{id}")
     public CompletableFuture<ResponseEntity<Void>> deleteCakeRecipe(@PathVariable String id) {
         return cakeRecipeService.deleteCakeRecipe(id)
                 .thenApply(aVoid -> ResponseEntity.ok().<Void>build())
-                .exceptionally(throwable -> ResponseEntity.badRequest().build());
+                .exceptionally(throwable -> ErrorResponses.badRequest(throwable));
+    }
+
+    // Bulk creates, updates and deletes as one write; send application/x-ndjson to stream a large import
+    @PostMapping(path = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public CompletableFuture<ResponseEntity<List<BatchResult>>> applyBatch(@RequestBody List<BatchOperation<CakeRecipe>> operations) {
+        return batchRequests.apply(operations, cakeRecipeService::applyBatch);
+    }
+
+    @PostMapping(path = "/batch", consumes = BatchRequests.NDJSON)
+    public ResponseEntity<ResponseBodyEmitter> streamBatch(HttpServletRequest request) throws IOException {
+        return batchRequests.stream(request.getInputStream(), CakeRecipe.class, cakeRecipeService::applyBatch);
     }
 
     @PostMapping("/{id}/like")
     public CompletableFuture<ResponseEntity<CakeRecipe>> likeCakeRecipe(@PathVariable String id) {
         return cakeRecipeService.likeCakeRecipe(id)
                 .thenApply(recipe -> ResponseEntity.ok(recipe))
-                .exceptionally(throwable -> ResponseEntity.badRequest().build());
+                .exceptionally(throwable -> ErrorResponses.badRequest(throwable));
     }
 
     @PostMapping("/{id}/comment")
     public CompletableFuture<ResponseEntity<CakeRecipe>> addComment(@PathVariable String id, @RequestBody String comment) {
         return cakeRecipeService.addComment(id, comment)
                 .thenApply(recipe -> ResponseEntity.ok(recipe))
-                .exceptionally(throwable -> ResponseEntity.badRequest().build());
+                .exceptionally(throwable -> ErrorResponses.badRequest(throwable));
     }
 }
\ No newline at end of file
@@ -0,0 +1,90 @@
+package com.cakecrafters.backend.controller;
+
+import com.cakecrafters.backend.service.DocumentVersions;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+// Conditional GET for documents and listings. A request whose If-None-Match names the current version is answered
+// 304 before anything is read; otherwise the response carries ETag and Last-Modified, and Spring still turns it
+// into a 304 when the freshly computed ETag matches. no-cache makes browsers revalidate instead of guessing.
+final class ConditionalResponses {
+
+    private ConditionalResponses() {
+    }
+
+    static <T> CompletableFuture<ResponseEntity<T>> document(DocumentVersions versions, String id, String ifNoneMatch,
+                                                             Supplier<CompletableFuture<T>> read,
+                                                             Function<Throwable, ResponseEntity<T>> failure) {
+        DocumentVersions.Version known = versions.get(id);
+        if (matches(ifNoneMatch, known)) {
+            return CompletableFuture.completedFuture(notModified(known));
+        }
+        long stamp = versions.stamp();
+        return read.get()
+                .thenApply(document -> withVersion(ResponseEntity.ok(document), versions.record(id, document, stamp)))
+                .exceptionally(failure);
+    }
+
+    // The version is taken before the read, so a change racing with it can only make the response look older
+    static <T> CompletableFuture<ResponseEntity<T>> collection(DocumentVersions versions, String ifNoneMatch,
+                                                               Supplier<CompletableFuture<ResponseEntity<T>>> read) {
+        DocumentVersions.Version version = versions.collection();
+        if (matches(ifNoneMatch, version)) {
+            return CompletableFuture.completedFuture(notModified(version));
+        }
+        return read.get().thenApply(response -> withVersion(response, version));
+    }
+
+    // For listings answered from the in-memory indexes
+    static <T> ResponseEntity<T> collectionNow(DocumentVersions versions, String ifNoneMatch, Supplier<ResponseEntity<T>> read) {
+        DocumentVersions.Version version = versions.collection();
+        if (matches(ifNoneMatch, version)) {
+            return notModified(version);
+        }
+        return withVersion(read.get(), version);
+    }
+
+    private static <T> ResponseEntity<T> withVersion(ResponseEntity<T> response, DocumentVersions.Version version) {
+        if (version == null || !response.getStatusCode().is2xxSuccessful()) {
+            return response;
+        }
+        return ResponseEntity.status(response.getStatusCode())
+                .headers(response.getHeaders())
+                .eTag(version.etag())
+                .lastModified(version.lastModified())
+                .cacheControl(CacheControl.noCache())
+                .body(response.getBody());
+    }
+
+    private static <T> ResponseEntity<T> notModified(DocumentVersions.Version version) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .eTag(version.etag())
+                .lastModified(version.lastModified())
+                .cacheControl(CacheControl.noCache())
+                .build();
+    }
+
+    // Weak comparison, as GET allows: a W/ prefix on either side is ignored
+    private static boolean matches(String ifNoneMatch, DocumentVersions.Version version) {
+        if (ifNoneMatch == null || version == null) {
+            return false;
+        }
+        String etag = strip(version.etag());
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = strip(candidate.trim());
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String strip(String tag) {
+        return tag.startsWith("W/") ? tag.substring(2) : tag;
+    }
+}
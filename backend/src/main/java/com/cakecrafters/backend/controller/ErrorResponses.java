@@ -0,0 +1,45 @@
+package com.cakecrafters.backend.controller;
+
+import com.cakecrafters.backend.service.BulkheadFullException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeoutException;
+
+// Maps a failed service future to a response: a missed database deadline is 504, a full bulkhead 503,
+// anything else keeps the endpoint's usual status
+final class ErrorResponses {
+
+    private ErrorResponses() {
+    }
+
+    static <T> ResponseEntity<T> badRequest(Throwable throwable) {
+        return of(throwable, HttpStatus.BAD_REQUEST);
+    }
+
+    static <T> ResponseEntity<T> notFound(Throwable throwable) {
+        return of(throwable, HttpStatus.NOT_FOUND);
+    }
+
+    static <T> ResponseEntity<T> of(Throwable throwable, HttpStatus otherwise) {
+        Throwable cause = unwrap(throwable);
+        if (cause instanceof TimeoutException) {
+            return ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT).build();
+        }
+        if (cause instanceof BulkheadFullException) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").build();
+        }
+        return ResponseEntity.status(otherwise).build();
+    }
+
+    static boolean isOverload(Throwable throwable) {
+        Throwable cause = unwrap(throwable);
+        return cause instanceof TimeoutException || cause instanceof BulkheadFullException;
+    }
+
+    static Throwable unwrap(Throwable throwable) {
+        return throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause() : throwable;
+    }
+}
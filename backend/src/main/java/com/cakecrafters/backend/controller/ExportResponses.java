@@ -0,0 +1,71 @@
+package com.cakecrafters.backend.controller;
+
+import com.cakecrafters.backend.model.CursorPage;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiFunction;
+
+// Whole-collection exports as NDJSON. Documents are fetched one keyset page at a time and written through a
+// JsonGenerator as each page arrives, so memory use does not grow with the collection and the first page is on
+// the wire before the second is read. Compression is left to the server's (application/x-ndjson is among its
+// compressed types): it honours Accept-Encoding and flushes its compressed stream with each page.
+@Component
+class ExportResponses {
+
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter writer;
+    private final long timeoutMs;
+
+    ExportResponses(ObjectMapper objectMapper, @Value("${cakecrafters.export.timeout-ms:3600000}") long timeoutMs) {
+        this.objectMapper = objectMapper;
+        // The generator is flushed once per page instead
+        this.writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.timeoutMs = timeoutMs;
+    }
+
+    // pages is a service's keyset page method, called with the largest page size until there is no next cursor
+    <T> ResponseEntity<StreamingResponseBody> ndjson(HttpServletRequest request, String name,
+                                                     BiFunction<Integer, String, CompletableFuture<CursorPage<T>>> pages) {
+        // An export can outlast the usual async request timeout
+        AsyncWebRequest asyncRequest = WebAsyncUtils.getAsyncManager(request).getAsyncWebRequest();
+        if (asyncRequest != null) {
+            asyncRequest.setTimeout(timeoutMs);
+        }
+        StreamingResponseBody body = out -> {
+            JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+            String after = null;
+            do {
+                CursorPage<T> page = pages.apply(CursorPage.MAX_LIMIT, after).join();
+                for (T document : page.getItems()) {
+                    writer.writeValue(generator, document);
+                    generator.writeRaw('\n');
+                }
+                generator.flush();
+                after = page.getNextCursor();
+            } while (after != null);
+            generator.close();
+        };
+        return ResponseEntity.ok()
+                .contentType(NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(name + ".ndjson").build().toString())
+                .body(body);
+    }
+}
@@ -0,0 +1,162 @@
+package com.cakecrafters.backend.controller;
+
+import com.cakecrafters.backend.service.ImageVariants;
+import com.cakecrafters.backend.service.MediaService;
+import com.cakecrafters.backend.service.MediaStore;
+import com.cakecrafters.backend.service.PostService;
+import com.cakecrafters.backend.service.StoredMedia;
+import jakarta.servlet.http.HttpServletRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+@RestController
+@RequestMapping("/api/media")
+public class MediaController {
+
+    private static final Logger logger = LoggerFactory.getLogger(MediaController.class);
+
+    private final MediaStore mediaStore;
+    private final MediaService mediaService;
+    private final ImageVariants imageVariants;
+    private final long maxFileSize;
+    private final long maxRequestSize;
+
+    @Autowired
+    public MediaController(MediaStore mediaStore, MediaService mediaService, ImageVariants imageVariants,
+                           @Value("${spring.servlet.multipart.max-file-size:10MB}") DataSize maxFileSize,
+                           @Value("${spring.servlet.multipart.max-request-size:10MB}") DataSize maxRequestSize) {
+        this.mediaStore = mediaStore;
+        this.mediaService = mediaService;
+        this.imageVariants = imageVariants;
+        this.maxFileSize = maxFileSize.toBytes();
+        this.maxRequestSize = maxRequestSize.toBytes();
+    }
+
+    // Uploads up to three files as multipart/form-data and returns their media URLs in order, to be put in a
+    // document instead of inline Base64. Each file part is written to the media store while it is being received.
+    // Parts without a filename are ignored, and a file whose declared type is not on the media allowlist gets 415.
+    // A body rejected part way leaves the files before it stored but not referenced.
+    @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<List<String>> upload(HttpServletRequest request) {
+        String boundary = MediaType.parseMediaType(request.getContentType()).getParameter("boundary");
+        if (boundary == null || boundary.isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (boundary.length() > 1 && boundary.startsWith("\"") && boundary.endsWith("\"")) {
+            boundary = boundary.substring(1, boundary.length() - 1);
+        }
+        List<String> urls = new ArrayList<>();
+        try {
+            MultipartParts parts = new MultipartParts(request.getInputStream(), boundary, maxFileSize, maxRequestSize);
+            MultipartParts.Part part;
+            while ((part = parts.next()) != null) {
+                if (part.filename() == null || part.filename().isEmpty()) {
+                    continue;
+                }
+                if (urls.size() == PostService.MAX_MEDIA) {
+                    return ResponseEntity.badRequest().build();
+                }
+                if (!MediaService.isInlineType(part.contentType())) {
+                    return ResponseEntity.status(HttpStatus.UNSUPPORTED_MEDIA_TYPE).build();
+                }
+                urls.add(mediaService.store(part.body(), MediaService.safeContentType(part.contentType())));
+            }
+        } catch (MultipartParts.TooLargeException e) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
+        } catch (IOException e) {
+            logger.warn("Failed to read media upload", e);
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.status(HttpStatus.CREATED).body(urls);
+    }
+
+    // size=thumb or medium returns a smaller rendition of an image; until it has been generated (and for media that
+    // is not an image) the original is returned, cached only briefly so the variant replaces it once ready
+    @GetMapping("/{hash}")
+    public ResponseEntity<StreamingResponseBody> getMedia(@PathVariable String hash,
+                                                          @RequestParam(value = "size", defaultValue = "full") String size,
+                                                          @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) throws IOException {
+        ImageVariants.Size requested;
+        try {
+            requested = ImageVariants.Size.of(size);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        Optional<StoredMedia> variant = requested == ImageVariants.Size.FULL
+                ? Optional.empty()
+                : mediaStore.findVariant(hash, requested.variant());
+        Optional<StoredMedia> found = variant.isPresent() ? variant : mediaStore.find(hash);
+        if (found.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        StoredMedia media = found.get();
+        // The content hash is the identity of the bytes, so it is a strong validator that never changes
+        String etag = "\"" + media.getHash() + (variant.isPresent() ? "-" + requested.variant() : "") + "\"";
+        CacheControl cacheControl = CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable();
+        if (requested != ImageVariants.Size.FULL && variant.isEmpty()) {
+            cacheControl = CacheControl.maxAge(Duration.ofMinutes(1)).cachePublic();
+            if (ImageVariants.isImage(media.getContentType()) && !imageVariants.hasFailed(hash)) {
+                imageVariants.request(hash);
+            }
+        }
+        // Media stored before uploads were restricted to the allowlist can carry any declared type; those are only
+        // ever downloaded, never rendered, and no type is sniffed into something active
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("X-Content-Type-Options", "nosniff");
+        if (!MediaService.isInlineType(media.getContentType())) {
+            headers.setContentDisposition(ContentDisposition.attachment().build());
+        }
+        if (ifNoneMatch != null && (ifNoneMatch.contains(etag) || ifNoneMatch.trim().equals("*"))) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).headers(headers).eTag(etag).cacheControl(cacheControl).build();
+        }
+        StreamingResponseBody body = outputStream -> {
+            try (FileChannel channel = FileChannel.open(media.getPath(), StandardOpenOption.READ)) {
+                WritableByteChannel target = Channels.newChannel(outputStream);
+                long position = 0;
+                while (position < media.getSize()) {
+                    position += channel.transferTo(position, media.getSize() - position, target);
+                }
+            }
+        };
+        return ResponseEntity.ok()
+                .headers(headers)
+                .eTag(etag)
+                .cacheControl(cacheControl)
+                .contentType(contentType(media))
+                .contentLength(media.getSize())
+                .body(body);
+    }
+
+    private MediaType contentType(StoredMedia media) {
+        if (!MediaService.isInlineType(media.getContentType())) {
+            return MediaType.APPLICATION_OCTET_STREAM;
+        }
+        try {
+            return MediaType.parseMediaType(media.getContentType());
+        } catch (InvalidMediaTypeException e) {
+            return MediaType.APPLICATION_OCTET_STREAM;
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package com.cakecrafters.backend.controller;
+
+import org.springframework.http.ContentDisposition;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+// Reads a multipart/form-data body one part at a time through a fixed buffer, so a part's bytes can be streamed to
+// storage as they arrive instead of the whole body being parsed (and spooled) first. Each part's body must be
+// read, or is skipped, before the next part is returned.
+final class MultipartParts {
+
+    record Part(String name, String filename, String contentType, InputStream body) {}
+
+    // Thrown when a part or the whole body is over its limit
+    static class TooLargeException extends IOException {
+        TooLargeException(String message) {
+            super(message);
+        }
+    }
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_HEADER_BYTES = 8 * 1024;
+
+    private final InputStream in;
+    private final byte[] delimiter;
+    private final long maxPartSize;
+    private final long maxBodySize;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int position;
+    private int limit;
+    private long bodyRead;
+    private boolean finished;
+    private PartBody current;
+
+    MultipartParts(InputStream in, String boundary, long maxPartSize, long maxBodySize) {
+        this.in = in;
+        this.delimiter = ("\r\n--" + boundary).getBytes(StandardCharsets.ISO_8859_1);
+        this.maxPartSize = maxPartSize;
+        this.maxBodySize = maxBodySize;
+        // The first delimiter may open the body without a line break before it
+        buffer[0] = '\r';
+        buffer[1] = '\n';
+        limit = 2;
+    }
+
+    // Null after the closing delimiter
+    Part next() throws IOException {
+        if (current != null) {
+            current.skipRest();
+            current = null;
+        } else if (!finished && !skipToDelimiter()) {
+            throw new IOException("Malformed multipart body: no boundary");
+        }
+        if (finished) {
+            return null;
+        }
+        // After a delimiter comes "--" for the end, or the line break that starts the part's headers
+        ensure(2);
+        if (buffer[position] == '-' && buffer[position + 1] == '-') {
+            finished = true;
+            return null;
+        }
+        // Rest of the delimiter line (transport padding)
+        readLine();
+        String name = null;
+        String filename = null;
+        String contentType = "application/octet-stream";
+        String header;
+        while (!(header = readLine()).isEmpty()) {
+            int colon = header.indexOf(':');
+            if (colon < 0) {
+                continue;
+            }
+            String field = header.substring(0, colon).trim();
+            String value = header.substring(colon + 1).trim();
+            if (field.equalsIgnoreCase("Content-Disposition")) {
+                ContentDisposition disposition = ContentDisposition.parse(value);
+                name = disposition.getName();
+                filename = disposition.getFilename();
+            } else if (field.equalsIgnoreCase("Content-Type")) {
+                contentType = value;
+            }
+        }
+        current = new PartBody();
+        return new Part(name, filename, contentType, current);
+    }
+
+    // Used only for the preamble, before the first part
+    private boolean skipToDelimiter() throws IOException {
+        while (true) {
+            int found = indexOfDelimiter();
+            if (found >= 0) {
+                position = found + delimiter.length;
+                return true;
+            }
+            position = Math.max(position, limit - delimiter.length + 1);
+            if (!fill()) {
+                return false;
+            }
+        }
+    }
+
+    private int indexOfDelimiter() {
+        int last = limit - delimiter.length;
+        for (int i = position; i <= last; i++) {
+            if (buffer[i] == '\r' && Arrays.equals(buffer, i, i + delimiter.length, delimiter, 0, delimiter.length)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // Moves the unread bytes to the front and reads more; false at the end of the input
+    private boolean fill() throws IOException {
+        if (position > 0) {
+            System.arraycopy(buffer, position, buffer, 0, limit - position);
+            limit -= position;
+            position = 0;
+        }
+        if (limit == buffer.length) {
+            return true;
+        }
+        int read = in.read(buffer, limit, buffer.length - limit);
+        if (read < 0) {
+            return false;
+        }
+        bodyRead += read;
+        if (bodyRead > maxBodySize) {
+            throw new TooLargeException("Request body is larger than " + maxBodySize + " bytes");
+        }
+        limit += read;
+        return true;
+    }
+
+    private void ensure(int bytes) throws IOException {
+        while (limit - position < bytes) {
+            if (!fill()) {
+                throw new IOException("Malformed multipart body: truncated");
+            }
+        }
+    }
+
+    // Decoded as UTF-8, which is how browsers send non-ASCII filenames
+    private String readLine() throws IOException {
+        int start = position;
+        while (true) {
+            for (int i = start; i + 1 < limit; i++) {
+                if (buffer[i] == '\r' && buffer[i + 1] == '\n') {
+                    String line = new String(buffer, position, i - position, StandardCharsets.UTF_8);
+                    position = i + 2;
+                    return line;
+                }
+            }
+            if (limit - position >= MAX_HEADER_BYTES) {
+                throw new IOException("Malformed multipart body: header line too long");
+            }
+            int scanned = limit - position;
+            if (!fill()) {
+                throw new IOException("Malformed multipart body: truncated headers");
+            }
+            start = position + Math.max(0, scanned - 1);
+        }
+    }
+
+    // Ends just before the next delimiter. Bytes that could still be the start of a delimiter are held back until
+    // enough input has arrived to tell.
+    private class PartBody extends InputStream {
+
+        private long read;
+        private boolean ended;
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) < 0 ? -1 : one[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] target, int offset, int length) throws IOException {
+            if (ended) {
+                return -1;
+            }
+            if (length == 0) {
+                return 0;
+            }
+            while (true) {
+                int found = indexOfDelimiter();
+                int available = found >= 0 ? found - position : limit - position - delimiter.length + 1;
+                if (found == position) {
+                    position += delimiter.length;
+                    ended = true;
+                    return -1;
+                }
+                if (available > 0) {
+                    int count = Math.min(available, length);
+                    System.arraycopy(buffer, position, target, offset, count);
+                    position += count;
+                    read += count;
+                    if (read > maxPartSize) {
+                        throw new TooLargeException("Part is larger than " + maxPartSize + " bytes");
+                    }
+                    return count;
+                }
+                if (!fill()) {
+                    throw new IOException("Malformed multipart body: truncated part");
+                }
+            }
+        }
+
+        void skipRest() throws IOException {
+            byte[] scratch = new byte[8192];
+            while (read(scratch, 0, scratch.length) >= 0) {
+                // discard
+            }
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.cakecrafters.backend.controller;
+
+import com.cakecrafters.backend.model.CursorPage;
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+
+final class PageResponses {
+
+    private PageResponses() {}
+
+    // The body stays a plain JSON array so existing clients keep working; the cursor travels in a header
+    static <T> ResponseEntity<List<T>> ok(CursorPage<T> page) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            builder.header(CursorPage.NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return builder.body(page.getItems());
+    }
+}
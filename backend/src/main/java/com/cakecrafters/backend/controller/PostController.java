@@ -1,17 +1,29 @@
 package com.cakecrafters.backend.controller;
 
+import com.cakecrafters.backend.model.BatchOperation;
+import com.cakecrafters.backend.model.BatchResult;
 import com.cakecrafters.backend.model.Comment;
 import com.cakecrafters.backend.model.Post;
 import com.cakecrafters.backend.service.PostService;
+import com.cakecrafters.backend.service.BulkheadFullException;
+import com.cakecrafters.backend.service.LeaderboardService;
+import com.cakecrafters.backend.service.PostFeed;
+import jakarta.servlet.http.HttpServletRequest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
 import java.util.List;
-import java.util.concurrent.ExecutionException;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/posts")
@@ -23,6 +35,18 @@ public class PostController {
     @Autowired
     private PostService postService;
 
+    @Autowired
+    private LeaderboardService leaderboardService;
+
+    @Autowired
+    private PostFeed postFeed;
+
+    @Autowired
+    private BatchRequests batchRequests;
+
+    @Autowired
+    private ExportResponses exportResponses;
+
     @GetMapping("/test")
     public ResponseEntity<String> testEndpoint() {
         logger.info("Test endpoint accessed");
@@ -30,104 +54,157 @@ public class PostController {
     }
 
     @GetMapping
-    public ResponseEntity<List<Post>> getAllPosts() {
+    public CompletableFuture<ResponseEntity<List<Post>>> getAllPosts(@RequestParam(required = false) Integer limit, @RequestParam(required = false) String after, @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return ConditionalResponses.collection(postService.versions(), ifNoneMatch, () -> {
+            if (limit != null) {
+                return postService.getPostsPage(limit, after)
+                        .thenApply(page -> {
+                            logger.info("Fetched page of {} posts", page.getItems().size());
+                            return PageResponses.ok(page);
+                        })
+                        .exceptionally(throwable -> failure(throwable, "fetching posts page"));
+            }
+            return postService.getAllPosts()
+                    .thenApply(posts -> {
+                        logger.info("Fetched {} posts", posts.size());
+                        return new ResponseEntity<>(posts, HttpStatus.OK);
+                    })
+                    .exceptionally(throwable -> failure(throwable, "fetching posts"));
+        });
+    }
+
+    // Served from leaderboards kept current by the like paths
+    @GetMapping("/top")
+    public ResponseEntity<List<Post>> getTopPosts(@RequestParam(defaultValue = "10") int limit, @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return ConditionalResponses.collectionNow(postService.versions(), ifNoneMatch, () -> ResponseEntity.ok(leaderboardService.topPosts(limit)));
+    }
+
+    @GetMapping("/trending")
+    public ResponseEntity<List<Post>> getTrendingPosts(@RequestParam(defaultValue = "10") int limit, @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return ConditionalResponses.collectionNow(postService.versions(), ifNoneMatch, () -> ResponseEntity.ok(leaderboardService.trendingPosts(limit)));
+    }
+
+    // Live post, comment and like changes as Server-Sent Events, instead of polling the whole collection
+    @GetMapping(path = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamEvents(@RequestHeader(name = "Last-Event-ID", required = false) String lastEventId) {
         try {
-            List<Post> posts = postService.getAllPosts().get();
-            logger.info("Fetched {} posts", posts.size());
-            return new ResponseEntity<>(posts, HttpStatus.OK);
-        } catch (InterruptedException | ExecutionException e) {
-            logger.error("Error fetching posts", e);
-            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+            return ResponseEntity.ok(postFeed.subscribe(lastEventId));
+        } catch (BulkheadFullException e) {
+            return failure(e, "subscribing to post events");
         }
     }
 
+    // Streams every document as NDJSON, one page at a time
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportPosts(HttpServletRequest request) {
+        return exportResponses.ndjson(request, "posts", postService::getPostsPage);
+    }
+
+    @GetMapping("/{postId}")
+    public CompletableFuture<ResponseEntity<Post>> getPost(@PathVariable String postId, @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return ConditionalResponses.document(postService.versions(), postId, ifNoneMatch,
+                () -> postService.getPost(postId),
+                throwable -> ErrorResponses.notFound(throwable));
+    }
+
     @PostMapping
-    public ResponseEntity<String> createPost(@RequestBody Post post) {
+    public CompletableFuture<ResponseEntity<String>> createPost(@RequestBody Post post) {
         logger.info("Received create post request: {}", post);
-        if (post.getMediaUrls() != null && post.getMediaUrls().size() > 3) {
-            return new ResponseEntity<>("Max 3 media files allowed", HttpStatus.BAD_REQUEST);
+        if (post.getMediaUrls() != null && post.getMediaUrls().size() > PostService.MAX_MEDIA) {
+            return CompletableFuture.completedFuture(new ResponseEntity<>("Max " + PostService.MAX_MEDIA + " media files allowed", HttpStatus.BAD_REQUEST));
         }
         post.setOwnerId("default-user");
-        try {
-            String postId = postService.createPost(post).get();
-            logger.info("Post created with ID: {}", postId);
-            return new ResponseEntity<>(postId, HttpStatus.CREATED);
-        } catch (InterruptedException | ExecutionException e) {
-            logger.error("Error creating post", e);
-            return new ResponseEntity<>("Failed to create post: " + e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
-        }
+        return postService.createPost(post)
+                .thenApply(postId -> {
+                    logger.info("Post created with ID: {}", postId);
+                    return new ResponseEntity<>(postId, HttpStatus.CREATED);
+                })
+                .exceptionally(throwable -> {
+                    if (ErrorResponses.isOverload(throwable)) {
+                        return failure(throwable, "creating post");
+                    }
+                    logger.error("Error creating post", ErrorResponses.unwrap(throwable));
+                    return new ResponseEntity<>("Failed to create post: " + ErrorResponses.unwrap(throwable).getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+                });
     }
 
     @PutMapping("/{postId}")
-    public ResponseEntity<Void> updatePost(@PathVariable String postId, @RequestBody Post post) {
-        try {
-            postService.updatePost(postId, post).get();
-            return new ResponseEntity<>(HttpStatus.OK);
-        } catch (InterruptedException | ExecutionException e) {
-            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
-        }
+    public CompletableFuture<ResponseEntity<Void>> updatePost(@PathVariable String postId, @RequestBody Post post) {
+        return postService.updatePost(postId, post)
+                .thenApply(aVoid -> new ResponseEntity<Void>(HttpStatus.OK))
+                .exceptionally(throwable -> failure(throwable, "updating post"));
     }
 
     @DeleteMapping("/{postId}")
-    public ResponseEntity<Void> deletePost(@PathVariable String postId) {
-        try {
-            postService.deletePost(postId).get();
-            return new ResponseEntity<>(HttpStatus.NO_CONTENT);
-        } catch (InterruptedException | ExecutionException e) {
-            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+    public CompletableFuture<ResponseEntity<Void>> deletePost(@PathVariable String postId) {
+        return postService.deletePost(postId)
+                .thenApply(aVoid -> new ResponseEntity<Void>(HttpStatus.NO_CONTENT))
+                .exceptionally(throwable -> failure(throwable, "deleting post"));
+    }
+
+    // Bulk creates, updates and deletes as one write; send application/x-ndjson to stream a large import
+    @PostMapping(path = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public CompletableFuture<ResponseEntity<List<BatchResult>>> applyBatch(@RequestBody List<BatchOperation<Post>> operations) {
+        return batchRequests.apply(operations, this::applyBatchAsDefaultUser);
+    }
+
+    @PostMapping(path = "/batch", consumes = BatchRequests.NDJSON)
+    public ResponseEntity<ResponseBodyEmitter> streamBatch(HttpServletRequest request) throws IOException {
+        return batchRequests.stream(request.getInputStream(), Post.class, this::applyBatchAsDefaultUser);
+    }
+
+    private CompletableFuture<List<BatchResult>> applyBatchAsDefaultUser(List<BatchOperation<Post>> operations) {
+        for (BatchOperation<Post> operation : operations) {
+            if (BatchOperation.CREATE.equals(operation.getOp()) && operation.getDocument() != null) {
+                operation.getDocument().setOwnerId("default-user");
+            }
         }
+        return postService.applyBatch(operations);
     }
 
     @PostMapping("/{postId}/likes")
-    public ResponseEntity<Void> likePost(@PathVariable String postId) {
-        try {
-            postService.likePost(postId).get();
-            return new ResponseEntity<>(HttpStatus.OK);
-        } catch (InterruptedException | ExecutionException e) {
-            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
-        }
+    public CompletableFuture<ResponseEntity<Void>> likePost(@PathVariable String postId) {
+        return postService.likePost(postId)
+                .thenApply(aVoid -> new ResponseEntity<Void>(HttpStatus.OK))
+                .exceptionally(throwable -> failure(throwable, "liking post"));
     }
 
     @PostMapping("/{postId}/dislikes")
-    public ResponseEntity<Void> dislikePost(@PathVariable String postId) {
-        try {
-            postService.dislikePost(postId).get();
-            return new ResponseEntity<>(HttpStatus.OK);
-        } catch (InterruptedException | ExecutionException e) {
-            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
-        }
+    public CompletableFuture<ResponseEntity<Void>> dislikePost(@PathVariable String postId) {
+        return postService.dislikePost(postId)
+                .thenApply(aVoid -> new ResponseEntity<Void>(HttpStatus.OK))
+                .exceptionally(throwable -> failure(throwable, "disliking post"));
     }
 
     @PostMapping("/{postId}/comments")
-    public ResponseEntity<String> addComment(@PathVariable String postId, @RequestBody Comment comment) {
+    public CompletableFuture<ResponseEntity<String>> addComment(@PathVariable String postId, @RequestBody Comment comment) {
         comment.setPostId(postId);
         comment.setUserId("default-user");
-        try {
-            String commentId = postService.addComment(postId, comment).get();
-            return new ResponseEntity<>(commentId, HttpStatus.CREATED);
-        } catch (InterruptedException | ExecutionException e) {
-            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
-        }
+        return postService.addComment(postId, comment)
+                .thenApply(commentId -> new ResponseEntity<>(commentId, HttpStatus.CREATED))
+                .exceptionally(throwable -> failure(throwable, "adding comment"));
     }
 
     @PutMapping("/{postId}/comments/{commentId}")
-    public ResponseEntity<Void> updateComment(@PathVariable String postId, @PathVariable String commentId, @RequestBody Comment comment) {
-        try {
-            postService.updateComment(postId, commentId, comment).get();
-            return new ResponseEntity<>(HttpStatus.OK);
-        } catch (InterruptedException | ExecutionException e) {
-            logger.error("Error updating comment", e);
-            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
-        }
+    public CompletableFuture<ResponseEntity<Void>> updateComment(@PathVariable String postId, @PathVariable String commentId, @RequestBody Comment comment) {
+        return postService.updateComment(postId, commentId, comment)
+                .thenApply(aVoid -> new ResponseEntity<Void>(HttpStatus.OK))
+                .exceptionally(throwable -> failure(throwable, "updating comment"));
     }
 
     @DeleteMapping("/{postId}/comments/{commentId}")
-    public ResponseEntity<Void> deleteComment(@PathVariable String postId, @PathVariable String commentId) {
-        try {
-            postService.deleteComment(postId, commentId).get();
-            return new ResponseEntity<>(HttpStatus.NO_CONTENT);
-        } catch (InterruptedException | ExecutionException e) {
-            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+    public CompletableFuture<ResponseEntity<Void>> deleteComment(@PathVariable String postId, @PathVariable String commentId) {
+        return postService.deleteComment(postId, commentId)
+                .thenApply(aVoid -> new ResponseEntity<Void>(HttpStatus.NO_CONTENT))
+                .exceptionally(throwable -> failure(throwable, "deleting comment"));
+    }
+
+    private <T> ResponseEntity<T> failure(Throwable throwable, String action) {
+        if (ErrorResponses.isOverload(throwable)) {
+            logger.warn("Gave up {}: {}", action, ErrorResponses.unwrap(throwable).toString());
+        } else {
+            logger.error("Error {}", action, ErrorResponses.unwrap(throwable));
         }
+        return ErrorResponses.of(throwable, HttpStatus.INTERNAL_SERVER_ERROR);
     }
-}
\ No newline at end of file
+}
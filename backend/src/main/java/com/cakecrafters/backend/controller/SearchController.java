@@ -0,0 +1,39 @@
+package com.cakecrafters.backend.controller;
+
+import com.cakecrafters.backend.model.SearchResult;
+import com.cakecrafters.backend.service.SearchService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/search")
+@CrossOrigin(origins = "http://localhost:3000")
+public class SearchController {
+
+    private static final int MAX_LIMIT = 100;
+
+    private final SearchService searchService;
+
+    @Autowired
+    public SearchController(SearchService searchService) {
+        this.searchService = searchService;
+    }
+
+    // Served from the in-memory index, so there is no database call to wait for
+    @GetMapping
+    public ResponseEntity<List<SearchResult>> search(@RequestParam String q,
+                                                     @RequestParam(required = false) String type,
+                                                     @RequestParam(defaultValue = "20") int limit) {
+        if (type != null && !type.equals(SearchResult.RECIPE) && !type.equals(SearchResult.TIP)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(searchService.search(q, type, Math.max(1, Math.min(limit, MAX_LIMIT))));
+    }
+}
@@ -1,11 +1,19 @@
 package com.cakecrafters.backend.controller;
 
+import com.cakecrafters.backend.model.BatchOperation;
+import com.cakecrafters.backend.model.BatchResult;
 import com.cakecrafters.backend.model.UserProject;
 import com.cakecrafters.backend.service.UserProjectService;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 
@@ -14,51 +22,79 @@ import java.util.concurrent.CompletableFuture;
 public class UserProjectController {
 
     private final UserProjectService userProjectService;
+    private final BatchRequests batchRequests;
+    private final ExportResponses exportResponses;
 
     @Autowired
-    public UserProjectController(UserProjectService userProjectService) {
+    public UserProjectController(UserProjectService userProjectService, BatchRequests batchRequests, ExportResponses exportResponses) {
         this.userProjectService = userProjectService;
+        this.batchRequests = batchRequests;
+        this.exportResponses = exportResponses;
     }
 
     @PostMapping
     public CompletableFuture<ResponseEntity<UserProject>> createUserProject(@RequestBody UserProject userProject) {
         return userProjectService.createUserProject(userProject)
                 .thenApply(project -> ResponseEntity.ok(project))
-                .exceptionally(throwable -> ResponseEntity.badRequest().build());
+                .exceptionally(throwable -> ErrorResponses.badRequest(throwable));
+    }
+
+    // Streams every document as NDJSON, one page at a time
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportUserProjects(HttpServletRequest request) {
+        return exportResponses.ndjson(request, "user-projects", userProjectService::getUserProjectsPage);
     }
 
     @GetMapping("/{id}")
-    public CompletableFuture<ResponseEntity<UserProject>> getUserProject(@PathVariable String id) {
-        return userProjectService.getUserProject(id)
-                .thenApply(project -> ResponseEntity.ok(project))
-                .exceptionally(throwable -> ResponseEntity.notFound().build());
+    public CompletableFuture<ResponseEntity<UserProject>> getUserProject(@PathVariable String id, @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return ConditionalResponses.document(userProjectService.versions(), id, ifNoneMatch,
+                () -> userProjectService.getUserProject(id),
+                throwable -> ErrorResponses.notFound(throwable));
     }
 
     @GetMapping
-    public CompletableFuture<ResponseEntity<List<UserProject>>> getAllUserProjects() {
-        return userProjectService.getAllUserProjects()
-                .thenApply(projects -> ResponseEntity.ok(projects))
-                .exceptionally(throwable -> ResponseEntity.badRequest().build());
+    public CompletableFuture<ResponseEntity<List<UserProject>>> getAllUserProjects(@RequestParam(required = false) Integer limit, @RequestParam(required = false) String after, @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return ConditionalResponses.collection(userProjectService.versions(), ifNoneMatch, () -> {
+            if (limit != null) {
+                return userProjectService.getUserProjectsPage(limit, after)
+                        .thenApply(page -> PageResponses.ok(page))
+                        .exceptionally(throwable -> ErrorResponses.badRequest(throwable));
+            }
+            return userProjectService.getAllUserProjects()
+                    .thenApply(projects -> ResponseEntity.ok(projects))
+                    .exceptionally(throwable -> ErrorResponses.badRequest(throwable));
+        });
     }
 
     @PutMapping("/{id}")
     public CompletableFuture<ResponseEntity<UserProject>> updateUserProject(@PathVariable String id, @RequestBody UserProject userProject) {
         return userProjectService.updateUserProject(id, userProject)
                 .thenApply(project -> ResponseEntity.ok(project))
-                .exceptionally(throwable -> ResponseEntity.badRequest().build());
+                .exceptionally(throwable -> ErrorResponses.badRequest(throwable));
     }
 
     @DeleteMapping("/{id}")
     public CompletableFuture<ResponseEntity<Void>> deleteUserProject(@PathVariable String id) {
         return userProjectService.deleteUserProject(id)
                 .thenApply(aVoid -> ResponseEntity.ok().<Void>build())
-                .exceptionally(throwable -> ResponseEntity.badRequest().build());
+                .exceptionally(throwable -> ErrorResponses.badRequest(throwable));
+    }
+
+    // Bulk creates, updates and deletes as one write; send application/x-ndjson to stream a large import
+    @PostMapping(path = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public CompletableFuture<ResponseEntity<List<BatchResult>>> applyBatch(@RequestBody List<BatchOperation<UserProject>> operations) {
+        return batchRequests.apply(operations, userProjectService::applyBatch);
+    }
+
+    @PostMapping(path = "/batch", consumes = BatchRequests.NDJSON)
+    public ResponseEntity<ResponseBodyEmitter> streamBatch(HttpServletRequest request) throws IOException {
+        return batchRequests.stream(request.getInputStream(), UserProject.class, userProjectService::applyBatch);
     }
 
     @PostMapping("/{id}/progress")
     public CompletableFuture<ResponseEntity<UserProject>> addProgressUpdate(@PathVariable String id, @RequestBody String progressUpdate) {
         return userProjectService.addProgressUpdate(id, progressUpdate)
                 .thenApply(project -> ResponseEntity.ok(project))
-                .exceptionally(throwable -> ResponseEntity.badRequest().build());
+                .exceptionally(throwable -> ErrorResponses.badRequest(throwable));
     }
 }
\ No newline at end of file
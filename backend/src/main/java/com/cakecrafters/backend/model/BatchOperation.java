@@ -0,0 +1,27 @@
+package com.cakecrafters.backend.model;
+
+// One item of a bulk write; id is required for update and delete, document for create and update
+public class BatchOperation<T> {
+    public static final String CREATE = "create";
+    public static final String UPDATE = "update";
+    public static final String DELETE = "delete";
+
+    private String op;
+    private String id;
+    private T document;
+
+    public BatchOperation() {}
+
+    public BatchOperation(String op, String id, T document) {
+        this.op = op;
+        this.id = id;
+        this.document = document;
+    }
+
+    public String getOp() { return op; }
+    public void setOp(String op) { this.op = op; }
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+    public T getDocument() { return document; }
+    public void setDocument(T document) { this.document = document; }
+}
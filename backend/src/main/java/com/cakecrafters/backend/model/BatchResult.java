@@ -0,0 +1,41 @@
+package com.cakecrafters.backend.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+// Outcome of one batch item, reported at the item's position in the request
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchResult {
+    public static final String CREATED = "created";
+    public static final String UPDATED = "updated";
+    public static final String DELETED = "deleted";
+    public static final String INVALID = "invalid"; // Rejected before the write; the rest of the batch still runs
+    public static final String NOT_FOUND = "not_found"; // The update or delete target does not exist; the rest still runs
+    public static final String FAILED = "failed"; // The batch write failed, so nothing in it was applied
+
+    private int index;
+    private String op;
+    private String id;
+    private String status;
+    private String error;
+
+    public BatchResult() {}
+
+    public BatchResult(int index, String op, String id, String status, String error) {
+        this.index = index;
+        this.op = op;
+        this.id = id;
+        this.status = status;
+        this.error = error;
+    }
+
+    public int getIndex() { return index; }
+    public void setIndex(int index) { this.index = index; }
+    public String getOp() { return op; }
+    public void setOp(String op) { this.op = op; }
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+    public String getError() { return error; }
+    public void setError(String error) { this.error = error; }
+}
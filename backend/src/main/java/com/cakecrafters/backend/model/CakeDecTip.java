@@ -1,8 +1,12 @@
 package com.cakecrafters.backend.model;
 
+import com.google.firebase.database.Exclude;
+import com.google.firebase.database.IgnoreExtraProperties;
+
 import java.util.ArrayList;
 import java.util.List;
 
+@IgnoreExtraProperties // The keyed child map is read separately by the service
 public class CakeDecTip {
     private String id;
     private String title;
@@ -112,10 +116,12 @@ public class CakeDecTip {
         this.likes = likes;
     }
 
+    @Exclude // Stored as a keyed child map and written by the service, not with the document
     public List<Comment> getComments() {
         return comments;
     }
 
+    @Exclude
     public void setComments(List<Comment> comments) {
         this.comments = comments;
     }
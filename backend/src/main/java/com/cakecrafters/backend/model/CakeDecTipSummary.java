@@ -0,0 +1,49 @@
+package com.cakecrafters.backend.model;
+
+// Denormalized listing view of a CakeDecTip, kept in decorationTipSummaries/{id} by CakeDecTipService
+public class CakeDecTipSummary {
+    private String id;
+    private String title;
+    private String author;
+    private String category;
+    private String difficulty;
+    private String mediaType;
+    private String createdAt;
+    private int likes;
+    private String thumbnail;
+
+    public CakeDecTipSummary() {}
+
+    public static CakeDecTipSummary from(CakeDecTip tip) {
+        CakeDecTipSummary summary = new CakeDecTipSummary();
+        summary.setId(tip.getId());
+        summary.setTitle(tip.getTitle());
+        summary.setAuthor(tip.getAuthor());
+        summary.setCategory(tip.getCategory());
+        summary.setDifficulty(tip.getDifficulty());
+        summary.setMediaType(tip.getMediaType());
+        summary.setCreatedAt(tip.getCreatedAt());
+        summary.setLikes(tip.getLikes());
+        summary.setThumbnail(CakeRecipeSummary.thumbnailOf(tip.getMedia()));
+        return summary;
+    }
+
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+    public String getTitle() { return title; }
+    public void setTitle(String title) { this.title = title; }
+    public String getAuthor() { return author; }
+    public void setAuthor(String author) { this.author = author; }
+    public String getCategory() { return category; }
+    public void setCategory(String category) { this.category = category; }
+    public String getDifficulty() { return difficulty; }
+    public void setDifficulty(String difficulty) { this.difficulty = difficulty; }
+    public String getMediaType() { return mediaType; }
+    public void setMediaType(String mediaType) { this.mediaType = mediaType; }
+    public String getCreatedAt() { return createdAt; }
+    public void setCreatedAt(String createdAt) { this.createdAt = createdAt; }
+    public int getLikes() { return likes; }
+    public void setLikes(int likes) { this.likes = likes; }
+    public String getThumbnail() { return thumbnail; }
+    public void setThumbnail(String thumbnail) { this.thumbnail = thumbnail; }
+}
@@ -1,8 +1,12 @@
 package com.cakecrafters.backend.model;
 
+import com.google.firebase.database.Exclude;
+import com.google.firebase.database.IgnoreExtraProperties;
+
 import java.util.ArrayList;
 import java.util.List;
 
+@IgnoreExtraProperties // The keyed child map is read separately by the service
 public class CakeRecipe {
     private String id;
     private String authorName;
@@ -139,10 +143,12 @@ public class CakeRecipe {
         this.likes = likes;
     }
 
+    @Exclude // Stored as a keyed child map and written by the service, not with the document
     public List<String> getComments() {
         return comments;
     }
 
+    @Exclude
     public void setComments(List<String> comments) {
         this.comments = comments;
     }
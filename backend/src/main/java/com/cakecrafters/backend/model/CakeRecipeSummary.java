@@ -0,0 +1,67 @@
+package com.cakecrafters.backend.model;
+
+import com.cakecrafters.backend.service.MediaService;
+
+import java.util.List;
+
+// Denormalized listing view of a CakeRecipe, kept in cakeRecipeSummaries/{id} by CakeRecipeService
+public class CakeRecipeSummary {
+    private String id;
+    private String cakeName;
+    private String subTitle;
+    private String authorName;
+    private String cakeType;
+    private String skillLevel;
+    private String date;
+    private int likes;
+    private String thumbnail;
+
+    public CakeRecipeSummary() {}
+
+    public static CakeRecipeSummary from(CakeRecipe recipe) {
+        CakeRecipeSummary summary = new CakeRecipeSummary();
+        summary.setId(recipe.getId());
+        summary.setCakeName(recipe.getCakeName());
+        summary.setSubTitle(recipe.getSubTitle());
+        summary.setAuthorName(recipe.getAuthorName());
+        summary.setCakeType(recipe.getCakeType());
+        summary.setSkillLevel(recipe.getSkillLevel());
+        summary.setDate(recipe.getDate());
+        summary.setLikes(recipe.getLikes());
+        summary.setThumbnail(thumbnailOf(recipe.getImages()));
+        return summary;
+    }
+
+    // First media URL, pointing at the thumbnail rendition when it is in the media store; inline Base64 is never
+    // copied into a summary
+    static String thumbnailOf(List<String> media) {
+        if (media == null) {
+            return null;
+        }
+        for (String item : media) {
+            if (item != null && !item.startsWith("data:")) {
+                return item.contains(MediaService.MEDIA_PATH) && !item.contains("?") ? item + "?size=thumb" : item;
+            }
+        }
+        return null;
+    }
+
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+    public String getCakeName() { return cakeName; }
+    public void setCakeName(String cakeName) { this.cakeName = cakeName; }
+    public String getSubTitle() { return subTitle; }
+    public void setSubTitle(String subTitle) { this.subTitle = subTitle; }
+    public String getAuthorName() { return authorName; }
+    public void setAuthorName(String authorName) { this.authorName = authorName; }
+    public String getCakeType() { return cakeType; }
+    public void setCakeType(String cakeType) { this.cakeType = cakeType; }
+    public String getSkillLevel() { return skillLevel; }
+    public void setSkillLevel(String skillLevel) { this.skillLevel = skillLevel; }
+    public String getDate() { return date; }
+    public void setDate(String date) { this.date = date; }
+    public int getLikes() { return likes; }
+    public void setLikes(int likes) { this.likes = likes; }
+    public String getThumbnail() { return thumbnail; }
+    public void setThumbnail(String thumbnail) { this.thumbnail = thumbnail; }
+}
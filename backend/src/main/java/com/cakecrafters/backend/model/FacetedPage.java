@@ -0,0 +1,23 @@
+package com.cakecrafters.backend.model;
+
+import java.util.List;
+import java.util.Map;
+
+// A filtered page plus the number of matches overall and, per facet, how many matches each value has
+public class FacetedPage<T> extends CursorPage<T> {
+    private int total;
+    private Map<String, Map<String, Integer>> facets;
+
+    public FacetedPage() {}
+
+    public FacetedPage(List<T> items, String nextCursor, int total, Map<String, Map<String, Integer>> facets) {
+        super(items, nextCursor);
+        this.total = total;
+        this.facets = facets;
+    }
+
+    public int getTotal() { return total; }
+    public void setTotal(int total) { this.total = total; }
+    public Map<String, Map<String, Integer>> getFacets() { return facets; }
+    public void setFacets(Map<String, Map<String, Integer>> facets) { this.facets = facets; }
+}
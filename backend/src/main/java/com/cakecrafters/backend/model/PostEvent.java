@@ -0,0 +1,73 @@
+package com.cakecrafters.backend.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+// One change to a post as sent on the live feed; only the fields relevant to the type are set
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class PostEvent {
+    public static final String POST_CREATED = "post-created";
+    public static final String POST_UPDATED = "post-updated";
+    public static final String POST_DELETED = "post-deleted";
+    public static final String LIKES_CHANGED = "likes-changed";
+    public static final String COMMENT_ADDED = "comment-added";
+    public static final String COMMENT_UPDATED = "comment-updated";
+    public static final String COMMENT_DELETED = "comment-deleted";
+
+    private String type;
+    private String postId;
+    private Post post; // Without its comments, which are sent as their own events
+    private Integer likesCount;
+    private Integer dislikesCount;
+    private String commentId;
+    private Comment comment;
+
+    public PostEvent() {}
+
+    private PostEvent(String type, String postId) {
+        this.type = type;
+        this.postId = postId;
+    }
+
+    public static PostEvent postChanged(String type, Post post) {
+        PostEvent event = new PostEvent(type, post.getPostId());
+        Post withoutComments = new Post(post.getDescription(), post.getMediaUrls(), post.getOwnerId());
+        withoutComments.setPostId(post.getPostId());
+        withoutComments.setLikesCount(post.getLikesCount());
+        withoutComments.setDislikesCount(post.getDislikesCount());
+        event.setPost(withoutComments);
+        return event;
+    }
+
+    public static PostEvent postDeleted(String postId) {
+        return new PostEvent(POST_DELETED, postId);
+    }
+
+    public static PostEvent likesChanged(Post post) {
+        PostEvent event = new PostEvent(LIKES_CHANGED, post.getPostId());
+        event.setLikesCount(post.getLikesCount());
+        event.setDislikesCount(post.getDislikesCount());
+        return event;
+    }
+
+    public static PostEvent commentChanged(String type, String postId, String commentId, Comment comment) {
+        PostEvent event = new PostEvent(type, postId);
+        event.setCommentId(commentId);
+        event.setComment(comment);
+        return event;
+    }
+
+    public String getType() { return type; }
+    public void setType(String type) { this.type = type; }
+    public String getPostId() { return postId; }
+    public void setPostId(String postId) { this.postId = postId; }
+    public Post getPost() { return post; }
+    public void setPost(Post post) { this.post = post; }
+    public Integer getLikesCount() { return likesCount; }
+    public void setLikesCount(Integer likesCount) { this.likesCount = likesCount; }
+    public Integer getDislikesCount() { return dislikesCount; }
+    public void setDislikesCount(Integer dislikesCount) { this.dislikesCount = dislikesCount; }
+    public String getCommentId() { return commentId; }
+    public void setCommentId(String commentId) { this.commentId = commentId; }
+    public Comment getComment() { return comment; }
+    public void setComment(Comment comment) { this.comment = comment; }
+}
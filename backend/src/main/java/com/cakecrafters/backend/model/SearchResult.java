@@ -0,0 +1,60 @@
+package com.cakecrafters.backend.model;
+
+// One hit from /api/search: enough to render a result row and link to the recipe or tip
+public class SearchResult {
+    public static final String RECIPE = "recipe";
+    public static final String TIP = "tip";
+
+    private String type;
+    private String id;
+    private String title;
+    private String subTitle;
+    private String thumbnail;
+    private double score;
+
+    public SearchResult() {}
+
+    public static SearchResult from(CakeRecipe recipe) {
+        SearchResult result = new SearchResult();
+        result.setType(RECIPE);
+        result.setId(recipe.getId());
+        result.setTitle(recipe.getCakeName());
+        result.setSubTitle(recipe.getSubTitle());
+        result.setThumbnail(CakeRecipeSummary.thumbnailOf(recipe.getImages()));
+        return result;
+    }
+
+    public static SearchResult from(CakeDecTip tip) {
+        SearchResult result = new SearchResult();
+        result.setType(TIP);
+        result.setId(tip.getId());
+        result.setTitle(tip.getTitle());
+        result.setSubTitle(tip.getCategory());
+        result.setThumbnail(CakeRecipeSummary.thumbnailOf(tip.getMedia()));
+        return result;
+    }
+
+    public SearchResult withScore(double score) {
+        SearchResult result = new SearchResult();
+        result.setType(type);
+        result.setId(id);
+        result.setTitle(title);
+        result.setSubTitle(subTitle);
+        result.setThumbnail(thumbnail);
+        result.setScore(score);
+        return result;
+    }
+
+    public String getType() { return type; }
+    public void setType(String type) { this.type = type; }
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+    public String getTitle() { return title; }
+    public void setTitle(String title) { this.title = title; }
+    public String getSubTitle() { return subTitle; }
+    public void setSubTitle(String subTitle) { this.subTitle = subTitle; }
+    public String getThumbnail() { return thumbnail; }
+    public void setThumbnail(String thumbnail) { this.thumbnail = thumbnail; }
+    public double getScore() { return score; }
+    public void setScore(double score) { this.score = score; }
+}
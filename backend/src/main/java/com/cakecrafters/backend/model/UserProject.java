@@ -1,8 +1,12 @@
 package com.cakecrafters.backend.model;
 
+import com.google.firebase.database.Exclude;
+import com.google.firebase.database.IgnoreExtraProperties;
+
 import java.util.ArrayList;
 import java.util.List;
 
+@IgnoreExtraProperties // The keyed child map is read separately by the service
 public class UserProject {
     private String id;
     private String userId;
@@ -47,10 +51,12 @@ public class UserProject {
         this.description = description;
     }
 
+    @Exclude // Stored as a keyed child map and written by the service, not with the document
     public List<String> getProgressUpdates() {
         return progressUpdates;
     }
 
+    @Exclude
     public void setProgressUpdates(List<String> progressUpdates) {
         this.progressUpdates = progressUpdates;
     }
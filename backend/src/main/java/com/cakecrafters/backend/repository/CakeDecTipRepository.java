@@ -0,0 +1,51 @@
+package com.cakecrafters.backend.repository;
+
+import com.cakecrafters.backend.model.BatchOperation;
+import com.cakecrafters.backend.model.CakeDecTip;
+import com.cakecrafters.backend.model.CakeDecTipSummary;
+import com.cakecrafters.backend.model.CursorPage;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+// Storage for decoration tips; the implementation is chosen by cakecrafters.storage.engine
+public interface CakeDecTipRepository {
+
+    // Assigns the tip id and an id to each of its comments
+    CompletableFuture<CakeDecTip> create(CakeDecTip tip);
+
+    CompletableFuture<CakeDecTip> findById(String id);
+
+    CompletableFuture<List<CakeDecTip>> findAll();
+
+    CompletableFuture<CursorPage<CakeDecTip>> findPage(int limit, String after);
+
+    CompletableFuture<List<CakeDecTipSummary>> findSummaries();
+
+    CompletableFuture<CursorPage<CakeDecTipSummary>> findSummariesPage(int limit, String after);
+
+    // Replaces the document fields but keeps the stored likes and comments
+    CompletableFuture<CakeDecTip> update(String id, CakeDecTip tip);
+
+    CompletableFuture<Void> delete(String id);
+
+    // Applies already validated operations as one atomic write; created documents get their ids assigned. Completes
+    // with the ids of update and delete targets that do not exist, whose operations are left out of the write.
+    CompletableFuture<Set<String>> applyBatch(List<BatchOperation<CakeDecTip>> operations);
+
+    // Completes with the new likes count
+    CompletableFuture<Integer> like(String id);
+
+    // Assigns the comment id
+    CompletableFuture<Void> addComment(String id, CakeDecTip.Comment comment);
+
+    CompletableFuture<Void> updateComment(String tipId, String commentId, CakeDecTip.Comment comment);
+
+    CompletableFuture<Void> deleteComment(String tipId, String commentId);
+
+    // Reports the id of each document the database says was added, changed or removed, including by other
+    // instances, where the engine pushes such changes; null means reports have stopped
+    void watchChanges(Consumer<String> listener);
+}
@@ -0,0 +1,46 @@
+package com.cakecrafters.backend.repository;
+
+import com.cakecrafters.backend.model.BatchOperation;
+import com.cakecrafters.backend.model.CakeRecipe;
+import com.cakecrafters.backend.model.CakeRecipeSummary;
+import com.cakecrafters.backend.model.CursorPage;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+// Storage for cake recipes; the implementation is chosen by cakecrafters.storage.engine
+public interface CakeRecipeRepository {
+
+    // Assigns the id and stores the recipe together with its comments
+    CompletableFuture<CakeRecipe> create(CakeRecipe cakeRecipe);
+
+    CompletableFuture<CakeRecipe> findById(String id);
+
+    CompletableFuture<List<CakeRecipe>> findAll();
+
+    CompletableFuture<CursorPage<CakeRecipe>> findPage(int limit, String after);
+
+    CompletableFuture<List<CakeRecipeSummary>> findSummaries();
+
+    CompletableFuture<CursorPage<CakeRecipeSummary>> findSummariesPage(int limit, String after);
+
+    // Replaces the document fields but keeps the stored likes and comments
+    CompletableFuture<CakeRecipe> update(String id, CakeRecipe cakeRecipe);
+
+    CompletableFuture<Void> delete(String id);
+
+    // Applies already validated operations as one atomic write; created documents get their ids assigned. Completes
+    // with the ids of update and delete targets that do not exist, whose operations are left out of the write.
+    CompletableFuture<Set<String>> applyBatch(List<BatchOperation<CakeRecipe>> operations);
+
+    // Completes with the new likes count
+    CompletableFuture<Integer> like(String id);
+
+    CompletableFuture<Void> addComment(String id, String comment);
+
+    // Reports the id of each document the database says was added, changed or removed, including by other
+    // instances, where the engine pushes such changes; null means reports have stopped
+    void watchChanges(Consumer<String> listener);
+}
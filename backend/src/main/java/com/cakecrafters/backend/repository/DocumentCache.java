@@ -0,0 +1,98 @@
+package com.cakecrafters.backend.repository;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.google.firebase.database.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+// Read-through cache for the documents of one collection. Caffeine bounds it by estimated bytes using
+// W-TinyLFU eviction, and a ChildEventListener on the collection keeps it coherent: changed documents are
+// refreshed in place and removed ones are dropped as soon as the database reports them.
+// Cached instances are shared between requests and must not be mutated by callers.
+public class DocumentCache<T> {
+
+    private static final Logger logger = LoggerFactory.getLogger(DocumentCache.class);
+
+    private final String name;
+    private final DatabaseReference collection;
+    private final AsyncCache<String, T> cache;
+    private final ChildEventListener listener;
+
+    DocumentCache(DatabaseReference collection, Function<DataSnapshot, T> mapper, ToIntFunction<T> weigher, long maxBytes) {
+        this.name = collection.getKey();
+        this.collection = collection;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((String id, T document) -> weigher.applyAsInt(document))
+                .recordStats()
+                .buildAsync();
+        this.listener = new ChildEventListener() {
+            @Override
+            public void onChildAdded(DataSnapshot snapshot, String previousChildName) {
+                // New documents are loaded on first read; nothing can be cached for them yet
+            }
+
+            @Override
+            public void onChildChanged(DataSnapshot snapshot, String previousChildName) {
+                if (cache.getIfPresent(snapshot.getKey()) != null) {
+                    T document = mapper.apply(snapshot);
+                    if (document != null) {
+                        cache.put(snapshot.getKey(), CompletableFuture.completedFuture(document));
+                    } else {
+                        invalidate(snapshot.getKey());
+                    }
+                }
+            }
+
+            @Override
+            public void onChildRemoved(DataSnapshot snapshot) {
+                invalidate(snapshot.getKey());
+            }
+
+            @Override
+            public void onChildMoved(DataSnapshot snapshot, String previousChildName) {
+            }
+
+            @Override
+            public void onCancelled(DatabaseError error) {
+                // Without change events the cache could serve stale data, so stop serving from it
+                logger.error("Cache listener on {} cancelled: {}", name, error.getMessage());
+                cache.synchronous().invalidateAll();
+            }
+        };
+        collection.addChildEventListener(listener);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    // Concurrent misses for the same id share one load; failed loads are not cached
+    public CompletableFuture<T> get(String id, Function<String, CompletableFuture<T>> loader) {
+        return cache.get(id, (key, executor) -> loader.apply(key));
+    }
+
+    public void invalidate(String id) {
+        // Also drops an in-flight load, so a read that started before the change cannot re-insert stale data
+        cache.synchronous().invalidate(id);
+    }
+
+    public CacheStats stats() {
+        return cache.synchronous().stats();
+    }
+
+    public long estimatedSize() {
+        return cache.synchronous().estimatedSize();
+    }
+
+    public void close() {
+        collection.removeEventListener(listener);
+        cache.synchronous().invalidateAll();
+    }
+}
@@ -0,0 +1,75 @@
+package com.cakecrafters.backend.repository;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseReference;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+// Creates the per-collection document caches and reports their hit, miss and eviction counters
+@Component
+public class DocumentCaches {
+
+    private final boolean enabled;
+    private final long maxBytesPerCollection;
+    private final List<DocumentCache<?>> caches = new CopyOnWriteArrayList<>();
+
+    public DocumentCaches(@Value("${cakecrafters.cache.enabled:true}") boolean enabled,
+                          @Value("${cakecrafters.cache.max-bytes-per-collection:67108864}") long maxBytesPerCollection) {
+        this.enabled = enabled;
+        this.maxBytesPerCollection = maxBytesPerCollection;
+    }
+
+    // Returns null when caching is disabled; services then read straight from the database
+    public <T> DocumentCache<T> create(DatabaseReference collection, Function<DataSnapshot, T> mapper, ToIntFunction<T> weigher) {
+        if (!enabled) {
+            return null;
+        }
+        DocumentCache<T> cache = new DocumentCache<>(collection, mapper, weigher, maxBytesPerCollection);
+        caches.add(cache);
+        return cache;
+    }
+
+    public Map<String, Map<String, Long>> stats() {
+        Map<String, Map<String, Long>> stats = new LinkedHashMap<>();
+        for (DocumentCache<?> cache : caches) {
+            CacheStats cacheStats = cache.stats();
+            Map<String, Long> counters = new LinkedHashMap<>();
+            counters.put("hits", cacheStats.hitCount());
+            counters.put("misses", cacheStats.missCount());
+            counters.put("evictions", cacheStats.evictionCount());
+            counters.put("evictedBytes", cacheStats.evictionWeight());
+            counters.put("entries", cache.estimatedSize());
+            stats.put(cache.getName(), counters);
+        }
+        return stats;
+    }
+
+    @PreDestroy
+    public void close() {
+        caches.forEach(DocumentCache::close);
+    }
+
+    // Rough heap estimate used by the weighers: two bytes per char plus a fixed per-object overhead
+    static int weigh(Iterable<String> values) {
+        int weight = 0;
+        if (values != null) {
+            for (String value : values) {
+                weight += weigh(value);
+            }
+        }
+        return weight;
+    }
+
+    static int weigh(String value) {
+        return value == null ? 0 : 40 + 2 * value.length();
+    }
+}
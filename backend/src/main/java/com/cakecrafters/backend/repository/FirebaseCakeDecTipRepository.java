@@ -0,0 +1,270 @@
+package com.cakecrafters.backend.repository;
+
+import com.cakecrafters.backend.model.BatchOperation;
+import com.cakecrafters.backend.model.CakeDecTip;
+import com.cakecrafters.backend.model.CakeDecTipSummary;
+import com.cakecrafters.backend.model.CursorPage;
+import com.google.firebase.database.*;
+import io.micrometer.tracing.Span;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Repository;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+@Repository
+@ConditionalOnProperty(name = "cakecrafters.storage.engine", havingValue = "firebase", matchIfMissing = true)
+public class FirebaseCakeDecTipRepository implements CakeDecTipRepository {
+
+    private static final Logger logger = LoggerFactory.getLogger(FirebaseCakeDecTipRepository.class);
+    private static final String COLLECTION = "decorationTips";
+    private static final String SUMMARIES = "decorationTipSummaries";
+
+    private final DatabaseReference databaseReference;
+    private final DatabaseReference summariesReference;
+    private final LikeBuffer likeBuffer;
+    private final SnapshotSpans spans;
+    private final WriteBehindQueue writes;
+    private final DocumentCache<CakeDecTip> cache;
+    private final SnapshotCache<CakeDecTip> snapshot;
+
+    public FirebaseCakeDecTipRepository(@Value("${cakecrafters.likes.flush-interval-ms:0}") long likeFlushIntervalMs,
+                                        DocumentCaches documentCaches,
+                                        SnapshotCaches snapshotCaches,
+                                        SnapshotSpans spans,
+                                        WriteBehindQueue writes) {
+        this.databaseReference = FirebaseDatabase.getInstance().getReference(COLLECTION);
+        this.summariesReference = FirebaseDatabase.getInstance().getReference(SUMMARIES);
+        this.spans = spans;
+        this.writes = writes;
+        this.cache = documentCaches.create(databaseReference, SnapshotMappers::tip, FirebaseCakeDecTipRepository::weigh);
+        this.snapshot = snapshotCaches.create(databaseReference, SnapshotMappers::tip);
+        this.likeBuffer = new LikeBuffer(databaseReference, summariesReference, "likes", "Tip not found", likeFlushIntervalMs);
+    }
+
+    @PreDestroy
+    public void flushLikes() {
+        likeBuffer.close();
+    }
+
+    @Override
+    public CompletableFuture<CakeDecTip> create(CakeDecTip tip) {
+        // The document and its listing summary are written in one atomic multi-path update
+        return writes.submit(stageCreate(new MultiPathUpdate(), tip))
+                .thenApply(written -> tip);
+    }
+
+    private MultiPathUpdate stageCreate(MultiPathUpdate update, CakeDecTip tip) {
+        String key = databaseReference.push().getKey();
+        tip.setId(key);
+        Map<String, Object> document = KeyedChildren.fields(tip);
+        document.put("comments", keyComments(databaseReference.child(key).child("comments"), tip.getComments()));
+        return update
+                .set(COLLECTION + "/" + key, document)
+                .set(SUMMARIES + "/" + key, CakeDecTipSummary.from(tip));
+    }
+
+    @Override
+    public CompletableFuture<CakeDecTip> findById(String id) {
+        return cache != null ? cache.get(id, this::load) : load(id);
+    }
+
+    private CompletableFuture<CakeDecTip> load(String id) {
+        CompletableFuture<CakeDecTip> future = new CompletableFuture<>();
+        Span parent = spans.current();
+        databaseReference.child(id).addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(DataSnapshot snapshot) {
+                CakeDecTip tip = spans.map(parent, snapshot, () -> SnapshotMappers.tip(snapshot));
+                if (tip != null) {
+                    future.complete(tip);
+                } else {
+                    future.completeExceptionally(new RuntimeException("Tip not found"));
+                }
+            }
+
+            @Override
+            public void onCancelled(DatabaseError error) {
+                future.completeExceptionally(new RuntimeException(error.getMessage()));
+            }
+        });
+        return future;
+    }
+
+    @Override
+    public CompletableFuture<List<CakeDecTip>> findAll() {
+        if (snapshot != null && snapshot.isServing()) {
+            return CompletableFuture.completedFuture(snapshot.list());
+        }
+        return FirebaseQueries.list(databaseReference, SnapshotMappers::tip, spans);
+    }
+
+    @Override
+    public CompletableFuture<CursorPage<CakeDecTip>> findPage(int limit, String after) {
+        if (snapshot != null && snapshot.isServing()) {
+            return CompletableFuture.completedFuture(snapshot.page(limit, after));
+        }
+        return FirebaseQueries.page(databaseReference, limit, after, SnapshotMappers::tip, spans);
+    }
+
+    @Override
+    public CompletableFuture<List<CakeDecTipSummary>> findSummaries() {
+        // Derived from the documents, as the summary collection is not kept on disk
+        if (snapshot != null && snapshot.isServing()) {
+            return CompletableFuture.completedFuture(snapshot.list(CakeDecTipSummary::from));
+        }
+        return FirebaseQueries.list(summariesReference, SnapshotMappers::tipSummary, spans);
+    }
+
+    @Override
+    public CompletableFuture<CursorPage<CakeDecTipSummary>> findSummariesPage(int limit, String after) {
+        if (snapshot != null && snapshot.isServing()) {
+            return CompletableFuture.completedFuture(snapshot.page(limit, after, CakeDecTipSummary::from));
+        }
+        return FirebaseQueries.page(summariesReference, limit, after, SnapshotMappers::tipSummary, spans);
+    }
+
+    // Rebuilds the summary node from the full collection when it does not exist yet (first start after upgrading)
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillSummaries() {
+        summariesReference.limitToFirst(1).addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(DataSnapshot probe) {
+                if (probe.exists()) {
+                    return;
+                }
+                // Straight from the database; a snapshot file may be out of date
+                FirebaseQueries.list(databaseReference, SnapshotMappers::tip, spans).thenCompose(tips -> {
+                    MultiPathUpdate update = new MultiPathUpdate();
+                    for (CakeDecTip tip : tips) {
+                        update.set(tip.getId(), CakeDecTipSummary.from(tip));
+                    }
+                    return update.isEmpty() ? CompletableFuture.completedFuture(null) : update.commit(summariesReference);
+                }).whenComplete((written, throwable) -> {
+                    if (throwable != null) {
+                        logger.error("Failed to backfill {}", SUMMARIES, throwable);
+                    }
+                });
+            }
+
+            @Override
+            public void onCancelled(DatabaseError error) {
+                logger.error("Failed to probe {}: {}", SUMMARIES, error.getMessage());
+            }
+        });
+    }
+
+    @Override
+    public CompletableFuture<CakeDecTip> update(String id, CakeDecTip tip) {
+        return stageUpdate(new MultiPathUpdate(), id, tip)
+                .commit(databaseReference.getRoot())
+                .thenApply(written -> tip);
+    }
+
+    private MultiPathUpdate stageUpdate(MultiPathUpdate update, String id, CakeDecTip tip) {
+        tip.setId(id);
+        // Only the document fields are replaced; comments live under their own keys and likes are
+        // maintained by transactions, so neither is overwritten by a stale client copy
+        return update
+                .setFields(COLLECTION + "/" + id, tip, "likes")
+                .setFields(SUMMARIES + "/" + id, CakeDecTipSummary.from(tip), "likes");
+    }
+
+    @Override
+    public CompletableFuture<Void> delete(String id) {
+        return stageDelete(new MultiPathUpdate(), id).commit(databaseReference.getRoot());
+    }
+
+    private MultiPathUpdate stageDelete(MultiPathUpdate update, String id) {
+        return update
+                .set(COLLECTION + "/" + id, null)
+                .set(SUMMARIES + "/" + id, null);
+    }
+
+    // Every operation is staged into one update, so the whole batch is a single updateChildren call
+    @Override
+    public CompletableFuture<Set<String>> applyBatch(List<BatchOperation<CakeDecTip>> operations) {
+        return KeyedChildren.missingTargets(databaseReference, operations, "id").thenCompose(missing -> {
+            MultiPathUpdate update = new MultiPathUpdate();
+            for (BatchOperation<CakeDecTip> operation : operations) {
+                switch (operation.getOp()) {
+                    case BatchOperation.CREATE -> stageCreate(update, operation.getDocument());
+                    // Writing the fields of a missing document would create a stub of it
+                    case BatchOperation.UPDATE -> {
+                        if (!missing.contains(operation.getId())) {
+                            stageUpdate(update, operation.getId(), operation.getDocument());
+                        }
+                    }
+                    default -> {
+                        if (!missing.contains(operation.getId())) {
+                            stageDelete(update, operation.getId());
+                        }
+                    }
+                }
+            }
+            return update.isEmpty()
+                    ? CompletableFuture.completedFuture(missing)
+                    : update.commit(databaseReference.getRoot()).thenApply(written -> missing);
+        });
+    }
+
+    @Override
+    public CompletableFuture<Integer> like(String id) {
+        // Only the likes child is written
+        return likeBuffer.like(id);
+    }
+
+    @Override
+    public CompletableFuture<Void> addComment(String id, CakeDecTip.Comment comment) {
+        // Comments are keyed by their id, so adding, editing or deleting one touches only comments/{commentId}
+        DatabaseReference commentRef = databaseReference.child(id).child("comments").push();
+        comment.setId(commentRef.getKey());
+        return KeyedChildren.requireDocument(databaseReference.child(id), "id", "Tip not found")
+                .thenCompose(exists -> KeyedChildren.setValue(commentRef, comment));
+    }
+
+    @Override
+    public CompletableFuture<Void> updateComment(String tipId, String commentId, CakeDecTip.Comment comment) {
+        DatabaseReference commentRef = databaseReference.child(tipId).child("comments").child(commentId);
+        comment.setId(commentId);
+        return KeyedChildren.requireNode(commentRef, "Comment not found")
+                .thenCompose(exists -> KeyedChildren.setValue(commentRef, comment));
+    }
+
+    @Override
+    public CompletableFuture<Void> deleteComment(String tipId, String commentId) {
+        return KeyedChildren.remove(databaseReference.child(tipId).child("comments").child(commentId));
+    }
+
+    private Map<String, Object> keyComments(DatabaseReference node, List<CakeDecTip.Comment> comments) {
+        Map<String, Object> keyed = KeyedChildren.pushAll(node, comments);
+        keyed.forEach((key, comment) -> ((CakeDecTip.Comment) comment).setId(key));
+        return keyed;
+    }
+
+    @Override
+    public void watchChanges(Consumer<String> listener) {
+        FirebaseQueries.watchChanges(databaseReference, listener);
+    }
+
+    private static int weigh(CakeDecTip tip) {
+        int weight = 256 + DocumentCaches.weigh(Arrays.asList(tip.getTitle(), tip.getDescription(), tip.getTip(), tip.getAuthor()))
+                + DocumentCaches.weigh(tip.getMedia());
+        if (tip.getComments() != null) {
+            for (CakeDecTip.Comment comment : tip.getComments()) {
+                weight += 64 + DocumentCaches.weigh(comment.getText());
+            }
+        }
+        return weight;
+    }
+}
@@ -0,0 +1,246 @@
+package com.cakecrafters.backend.repository;
+
+import com.cakecrafters.backend.model.BatchOperation;
+import com.cakecrafters.backend.model.CakeRecipe;
+import com.cakecrafters.backend.model.CakeRecipeSummary;
+import com.cakecrafters.backend.model.CursorPage;
+import com.google.firebase.database.*;
+import io.micrometer.tracing.Span;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Repository;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+@Repository
+@ConditionalOnProperty(name = "cakecrafters.storage.engine", havingValue = "firebase", matchIfMissing = true)
+public class FirebaseCakeRecipeRepository implements CakeRecipeRepository {
+
+    private static final Logger logger = LoggerFactory.getLogger(FirebaseCakeRecipeRepository.class);
+    private static final String COLLECTION = "cakeRecipes";
+    private static final String SUMMARIES = "cakeRecipeSummaries";
+
+    private final DatabaseReference databaseReference;
+    private final DatabaseReference summariesReference;
+    private final LikeBuffer likeBuffer;
+    private final SnapshotSpans spans;
+    private final WriteBehindQueue writes;
+    private final DocumentCache<CakeRecipe> cache;
+    private final SnapshotCache<CakeRecipe> snapshot;
+
+    public FirebaseCakeRecipeRepository(@Value("${cakecrafters.likes.flush-interval-ms:0}") long likeFlushIntervalMs,
+                                        DocumentCaches documentCaches,
+                                        SnapshotCaches snapshotCaches,
+                                        SnapshotSpans spans,
+                                        WriteBehindQueue writes) {
+        this.databaseReference = FirebaseDatabase.getInstance().getReference(COLLECTION);
+        this.summariesReference = FirebaseDatabase.getInstance().getReference(SUMMARIES);
+        this.spans = spans;
+        this.writes = writes;
+        this.cache = documentCaches.create(databaseReference, SnapshotMappers::recipe, FirebaseCakeRecipeRepository::weigh);
+        this.snapshot = snapshotCaches.create(databaseReference, SnapshotMappers::recipe);
+        this.likeBuffer = new LikeBuffer(databaseReference, summariesReference, "likes", "Recipe not found", likeFlushIntervalMs);
+    }
+
+    @PreDestroy
+    public void flushLikes() {
+        likeBuffer.close();
+    }
+
+    @Override
+    public CompletableFuture<CakeRecipe> create(CakeRecipe cakeRecipe) {
+        // The document and its listing summary are written in one atomic multi-path update
+        return writes.submit(stageCreate(new MultiPathUpdate(), cakeRecipe))
+                .thenApply(written -> cakeRecipe);
+    }
+
+    private MultiPathUpdate stageCreate(MultiPathUpdate update, CakeRecipe cakeRecipe) {
+        String key = databaseReference.push().getKey();
+        cakeRecipe.setId(key);
+        Map<String, Object> document = KeyedChildren.fields(cakeRecipe);
+        document.put("comments", KeyedChildren.pushAll(databaseReference.child(key).child("comments"), cakeRecipe.getComments()));
+        return update
+                .set(COLLECTION + "/" + key, document)
+                .set(SUMMARIES + "/" + key, CakeRecipeSummary.from(cakeRecipe));
+    }
+
+    @Override
+    public CompletableFuture<CakeRecipe> findById(String id) {
+        return cache != null ? cache.get(id, this::load) : load(id);
+    }
+
+    private CompletableFuture<CakeRecipe> load(String id) {
+        CompletableFuture<CakeRecipe> future = new CompletableFuture<>();
+        Span parent = spans.current();
+        databaseReference.child(id).addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(DataSnapshot snapshot) {
+                CakeRecipe recipe = spans.map(parent, snapshot, () -> SnapshotMappers.recipe(snapshot));
+                if (recipe != null) {
+                    future.complete(recipe);
+                } else {
+                    future.completeExceptionally(new RuntimeException("Recipe not found"));
+                }
+            }
+
+            @Override
+            public void onCancelled(DatabaseError error) {
+                future.completeExceptionally(new RuntimeException(error.getMessage()));
+            }
+        });
+        return future;
+    }
+
+    @Override
+    public CompletableFuture<List<CakeRecipe>> findAll() {
+        if (snapshot != null && snapshot.isServing()) {
+            return CompletableFuture.completedFuture(snapshot.list());
+        }
+        return FirebaseQueries.list(databaseReference, SnapshotMappers::recipe, spans);
+    }
+
+    @Override
+    public CompletableFuture<CursorPage<CakeRecipe>> findPage(int limit, String after) {
+        if (snapshot != null && snapshot.isServing()) {
+            return CompletableFuture.completedFuture(snapshot.page(limit, after));
+        }
+        return FirebaseQueries.page(databaseReference, limit, after, SnapshotMappers::recipe, spans);
+    }
+
+    @Override
+    public CompletableFuture<List<CakeRecipeSummary>> findSummaries() {
+        // Derived from the documents, as the summary collection is not kept on disk
+        if (snapshot != null && snapshot.isServing()) {
+            return CompletableFuture.completedFuture(snapshot.list(CakeRecipeSummary::from));
+        }
+        return FirebaseQueries.list(summariesReference, SnapshotMappers::recipeSummary, spans);
+    }
+
+    @Override
+    public CompletableFuture<CursorPage<CakeRecipeSummary>> findSummariesPage(int limit, String after) {
+        if (snapshot != null && snapshot.isServing()) {
+            return CompletableFuture.completedFuture(snapshot.page(limit, after, CakeRecipeSummary::from));
+        }
+        return FirebaseQueries.page(summariesReference, limit, after, SnapshotMappers::recipeSummary, spans);
+    }
+
+    // Rebuilds the summary node from the full collection when it does not exist yet (first start after upgrading)
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillSummaries() {
+        summariesReference.limitToFirst(1).addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(DataSnapshot probe) {
+                if (probe.exists()) {
+                    return;
+                }
+                // Straight from the database; a snapshot file may be out of date
+                FirebaseQueries.list(databaseReference, SnapshotMappers::recipe, spans).thenCompose(cakeRecipes -> {
+                    MultiPathUpdate update = new MultiPathUpdate();
+                    for (CakeRecipe cakeRecipe : cakeRecipes) {
+                        update.set(cakeRecipe.getId(), CakeRecipeSummary.from(cakeRecipe));
+                    }
+                    return update.isEmpty() ? CompletableFuture.completedFuture(null) : update.commit(summariesReference);
+                }).whenComplete((written, throwable) -> {
+                    if (throwable != null) {
+                        logger.error("Failed to backfill {}", SUMMARIES, throwable);
+                    }
+                });
+            }
+
+            @Override
+            public void onCancelled(DatabaseError error) {
+                logger.error("Failed to probe {}: {}", SUMMARIES, error.getMessage());
+            }
+        });
+    }
+
+    @Override
+    public CompletableFuture<CakeRecipe> update(String id, CakeRecipe cakeRecipe) {
+        return stageUpdate(new MultiPathUpdate(), id, cakeRecipe)
+                .commit(databaseReference.getRoot())
+                .thenApply(written -> cakeRecipe);
+    }
+
+    private MultiPathUpdate stageUpdate(MultiPathUpdate update, String id, CakeRecipe cakeRecipe) {
+        cakeRecipe.setId(id);
+        // Only the document fields are replaced; comments live under their own keys and likes are
+        // maintained by transactions, so neither is overwritten by a stale client copy
+        return update
+                .setFields(COLLECTION + "/" + id, cakeRecipe, "likes")
+                .setFields(SUMMARIES + "/" + id, CakeRecipeSummary.from(cakeRecipe), "likes");
+    }
+
+    @Override
+    public CompletableFuture<Void> delete(String id) {
+        return stageDelete(new MultiPathUpdate(), id).commit(databaseReference.getRoot());
+    }
+
+    private MultiPathUpdate stageDelete(MultiPathUpdate update, String id) {
+        return update
+                .set(COLLECTION + "/" + id, null)
+                .set(SUMMARIES + "/" + id, null);
+    }
+
+    // Every operation is staged into one update, so the whole batch is a single updateChildren call
+    @Override
+    public CompletableFuture<Set<String>> applyBatch(List<BatchOperation<CakeRecipe>> operations) {
+        return KeyedChildren.missingTargets(databaseReference, operations, "id").thenCompose(missing -> {
+            MultiPathUpdate update = new MultiPathUpdate();
+            for (BatchOperation<CakeRecipe> operation : operations) {
+                switch (operation.getOp()) {
+                    case BatchOperation.CREATE -> stageCreate(update, operation.getDocument());
+                    // Writing the fields of a missing document would create a stub of it
+                    case BatchOperation.UPDATE -> {
+                        if (!missing.contains(operation.getId())) {
+                            stageUpdate(update, operation.getId(), operation.getDocument());
+                        }
+                    }
+                    default -> {
+                        if (!missing.contains(operation.getId())) {
+                            stageDelete(update, operation.getId());
+                        }
+                    }
+                }
+            }
+            return update.isEmpty()
+                    ? CompletableFuture.completedFuture(missing)
+                    : update.commit(databaseReference.getRoot()).thenApply(written -> missing);
+        });
+    }
+
+    @Override
+    public CompletableFuture<Integer> like(String id) {
+        // Only the likes child is written
+        return likeBuffer.like(id);
+    }
+
+    @Override
+    public CompletableFuture<Void> addComment(String id, String comment) {
+        // Appends one keyed child instead of rewriting the recipe
+        DatabaseReference comments = databaseReference.child(id).child("comments");
+        return KeyedChildren.requireDocument(databaseReference.child(id), "id", "Recipe not found")
+                .thenCompose(exists -> KeyedChildren.setValue(comments.push(), comment));
+    }
+
+    @Override
+    public void watchChanges(Consumer<String> listener) {
+        FirebaseQueries.watchChanges(databaseReference, listener);
+    }
+
+    // Rough heap footprint of a recipe, used to bound the cache by bytes
+    private static int weigh(CakeRecipe recipe) {
+        return 256 + DocumentCaches.weigh(Arrays.asList(recipe.getAuthorName(), recipe.getCakeName(), recipe.getSubTitle(),
+                recipe.getIngredients(), recipe.getInstructions()))
+                + DocumentCaches.weigh(recipe.getImages()) + DocumentCaches.weigh(recipe.getComments());
+    }
+}
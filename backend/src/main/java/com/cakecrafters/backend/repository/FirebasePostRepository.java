@@ -0,0 +1,250 @@
+package com.cakecrafters.backend.repository;
+
+import com.cakecrafters.backend.model.BatchOperation;
+import com.cakecrafters.backend.model.Comment;
+import com.cakecrafters.backend.model.CursorPage;
+import com.cakecrafters.backend.model.Post;
+import com.cakecrafters.backend.model.PostEvent;
+import com.google.firebase.database.*;
+import io.micrometer.tracing.Span;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+@Repository
+@ConditionalOnProperty(name = "cakecrafters.storage.engine", havingValue = "firebase", matchIfMissing = true)
+public class FirebasePostRepository implements PostRepository {
+
+    private static final Logger logger = LoggerFactory.getLogger(FirebasePostRepository.class);
+
+    private final DatabaseReference posts;
+    private final SnapshotSpans spans;
+    private final WriteBehindQueue writes;
+    private final DocumentCache<Post> cache;
+    private final SnapshotCache<Post> snapshot;
+    private final PostChangeTracker changes = new PostChangeTracker();
+    private final AtomicBoolean watching = new AtomicBoolean();
+
+    public FirebasePostRepository(DocumentCaches documentCaches, SnapshotCaches snapshotCaches, SnapshotSpans spans, WriteBehindQueue writes) {
+        this.posts = FirebaseDatabase.getInstance().getReference("posts");
+        this.spans = spans;
+        this.writes = writes;
+        this.cache = documentCaches.create(posts, SnapshotMappers::post, FirebasePostRepository::weigh);
+        this.snapshot = snapshotCaches.create(posts, SnapshotMappers::post);
+    }
+
+    @Override
+    public CompletableFuture<String> create(Post post) {
+        String postId = posts.push().getKey();
+        post.setPostId(postId);
+        return writes.submit(new MultiPathUpdate().set(posts.getKey() + "/" + postId, post)).thenApply(written -> postId);
+    }
+
+    @Override
+    public CompletableFuture<Post> findById(String postId) {
+        return cache != null ? cache.get(postId, this::load) : load(postId);
+    }
+
+    private CompletableFuture<Post> load(String postId) {
+        CompletableFuture<Post> future = new CompletableFuture<>();
+        Span parent = spans.current();
+        posts.child(postId).addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(DataSnapshot snapshot) {
+                Post post = spans.map(parent, snapshot, () -> SnapshotMappers.post(snapshot));
+                if (post != null) {
+                    future.complete(post);
+                } else {
+                    future.completeExceptionally(new RuntimeException("Post not found"));
+                }
+            }
+
+            @Override
+            public void onCancelled(DatabaseError error) {
+                future.completeExceptionally(new RuntimeException(error.getMessage()));
+            }
+        });
+        return future;
+    }
+
+    @Override
+    public CompletableFuture<List<Post>> findAll() {
+        if (snapshot != null && snapshot.isServing()) {
+            return CompletableFuture.completedFuture(snapshot.list());
+        }
+        return FirebaseQueries.list(posts, SnapshotMappers::post, spans);
+    }
+
+    @Override
+    public CompletableFuture<CursorPage<Post>> findPage(int limit, String after) {
+        if (snapshot != null && snapshot.isServing()) {
+            return CompletableFuture.completedFuture(snapshot.page(limit, after));
+        }
+        return FirebaseQueries.page(posts, limit, after, SnapshotMappers::post, spans);
+    }
+
+    @Override
+    public CompletableFuture<Void> update(String postId, Post post) {
+        return KeyedChildren.setValue(posts.child(postId), post);
+    }
+
+    @Override
+    public CompletableFuture<Void> delete(String postId) {
+        return KeyedChildren.remove(posts.child(postId));
+    }
+
+    // Paths are relative to the collection, so the whole batch is a single updateChildren call on it
+    @Override
+    public CompletableFuture<Set<String>> applyBatch(List<BatchOperation<Post>> operations) {
+        return KeyedChildren.missingTargets(posts, operations, "postId").thenCompose(missing -> {
+            MultiPathUpdate update = new MultiPathUpdate();
+            for (BatchOperation<Post> operation : operations) {
+                Post post = operation.getDocument();
+                if (!BatchOperation.CREATE.equals(operation.getOp()) && missing.contains(operation.getId())) {
+                    continue;
+                }
+                switch (operation.getOp()) {
+                    case BatchOperation.CREATE -> {
+                        post.setPostId(posts.push().getKey());
+                        update.set(post.getPostId(), post);
+                    }
+                    case BatchOperation.UPDATE -> {
+                        // Only the post's own fields are replaced; the counters and comments are kept
+                        post.setPostId(operation.getId());
+                        update.setFields(operation.getId(), post, "likesCount", "dislikesCount", "comments");
+                    }
+                    default -> update.set(operation.getId(), null);
+                }
+            }
+            return update.isEmpty()
+                    ? CompletableFuture.completedFuture(missing)
+                    : update.commit(posts).thenApply(written -> missing);
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> like(String postId) {
+        return increment(posts.child(postId).child("likesCount"));
+    }
+
+    @Override
+    public CompletableFuture<Void> dislike(String postId) {
+        return increment(posts.child(postId).child("dislikesCount"));
+    }
+
+    @Override
+    public CompletableFuture<String> addComment(String postId, Comment comment) {
+        String commentId = posts.child(postId).child("comments").push().getKey();
+        comment.setCommentId(commentId);
+        return KeyedChildren.setValue(posts.child(postId).child("comments").child(commentId), comment).thenApply(written -> commentId);
+    }
+
+    @Override
+    public CompletableFuture<Void> updateComment(String postId, String commentId, Comment comment) {
+        return KeyedChildren.setValue(posts.child(postId).child("comments").child(commentId), comment);
+    }
+
+    @Override
+    public CompletableFuture<Void> deleteComment(String postId, String commentId) {
+        return KeyedChildren.remove(posts.child(postId).child("comments").child(commentId));
+    }
+
+    // One child listener serves every watcher. The collection is read once first so that the listener's initial
+    // onChildAdded calls match what is already known and report nothing.
+    @Override
+    public void watch(Consumer<PostEvent> listener) {
+        changes.addListener(listener);
+        if (!watching.compareAndSet(false, true)) {
+            return;
+        }
+        posts.addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(DataSnapshot snapshot) {
+                for (DataSnapshot child : snapshot.getChildren()) {
+                    Post post = SnapshotMappers.post(child);
+                    if (post != null) {
+                        changes.seed(post);
+                    }
+                }
+                posts.addChildEventListener(new ChildEventListener() {
+                    @Override
+                    public void onChildAdded(DataSnapshot snapshot, String previousChildName) {
+                        onChildChanged(snapshot, previousChildName);
+                    }
+
+                    @Override
+                    public void onChildChanged(DataSnapshot snapshot, String previousChildName) {
+                        Post post = SnapshotMappers.post(snapshot);
+                        if (post != null) {
+                            changes.changed(post);
+                        }
+                    }
+
+                    @Override
+                    public void onChildRemoved(DataSnapshot snapshot) {
+                        changes.removed(snapshot.getKey());
+                    }
+
+                    @Override
+                    public void onChildMoved(DataSnapshot snapshot, String previousChildName) {
+                    }
+
+                    @Override
+                    public void onCancelled(DatabaseError error) {
+                        logger.error("Post change listener cancelled: {}", error.getMessage());
+                        changes.lost();
+                    }
+                });
+            }
+
+            @Override
+            public void onCancelled(DatabaseError error) {
+                logger.error("Failed to read posts for change tracking: {}", error.getMessage());
+                watching.set(false);
+                changes.lost();
+            }
+        });
+    }
+
+    private CompletableFuture<Void> increment(DatabaseReference counter) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        counter.runTransaction(new Transaction.Handler() {
+            @Override
+            public Transaction.Result doTransaction(MutableData currentData) {
+                Integer count = currentData.getValue(Integer.class);
+                if (count == null) {
+                    count = 0;
+                }
+                currentData.setValue(count + 1);
+                return Transaction.success(currentData);
+            }
+
+            @Override
+            public void onComplete(DatabaseError error, boolean committed, DataSnapshot currentData) {
+                if (error == null && committed) {
+                    future.complete(null);
+                } else {
+                    future.completeExceptionally(new RuntimeException(error != null ? error.getMessage() : "Transaction failed"));
+                }
+            }
+        });
+        return future;
+    }
+
+    private static int weigh(Post post) {
+        int weight = 128 + DocumentCaches.weigh(post.getDescription()) + DocumentCaches.weigh(post.getMediaUrls());
+        if (post.getComments() != null) {
+            for (Comment comment : post.getComments().values()) {
+                weight += 96 + DocumentCaches.weigh(comment.getContent());
+            }
+        }
+        return weight;
+    }
+}
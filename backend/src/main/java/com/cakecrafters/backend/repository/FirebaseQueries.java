@@ -0,0 +1,120 @@
+package com.cakecrafters.backend.repository;
+
+import com.cakecrafters.backend.model.CursorPage;
+import com.google.firebase.database.*;
+import io.micrometer.tracing.Span;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+final class FirebaseQueries {
+
+    private static final Logger logger = LoggerFactory.getLogger(FirebaseQueries.class);
+
+    private FirebaseQueries() {}
+
+    static <T> CompletableFuture<List<T>> list(Query query, Function<DataSnapshot, T> mapper, SnapshotSpans spans) {
+        CompletableFuture<List<T>> future = new CompletableFuture<>();
+        Span parent = spans.current();
+        query.addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(DataSnapshot snapshot) {
+                future.complete(spans.map(parent, snapshot, () -> {
+                    List<T> items = new ArrayList<>();
+                    for (DataSnapshot data : snapshot.getChildren()) {
+                        T item = mapper.apply(data);
+                        if (item != null) {
+                            items.add(item);
+                        }
+                    }
+                    return items;
+                }));
+            }
+
+            @Override
+            public void onCancelled(DatabaseError error) {
+                future.completeExceptionally(new RuntimeException(error.getMessage()));
+            }
+        });
+        return future;
+    }
+
+    // Keyset paging in key order: the cursor is the last key of the previous page. startAt is inclusive, so one extra
+    // child is fetched and the cursor itself skipped; one more beyond the page tells whether there is a next one.
+    static <T> CompletableFuture<CursorPage<T>> page(DatabaseReference collection, int limit, String after, Function<DataSnapshot, T> mapper,
+                                                     SnapshotSpans spans) {
+        CompletableFuture<CursorPage<T>> future = new CompletableFuture<>();
+        Span parent = spans.current();
+        int pageSize = CursorPage.clampLimit(limit);
+        Query query = after == null
+                ? collection.orderByKey().limitToFirst(pageSize + 1)
+                : collection.orderByKey().startAt(after).limitToFirst(pageSize + 2);
+        query.addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(DataSnapshot snapshot) {
+                future.complete(spans.map(parent, snapshot, () -> {
+                    List<T> items = new ArrayList<>();
+                    String lastKey = null;
+                    String nextCursor = null;
+                    for (DataSnapshot data : snapshot.getChildren()) {
+                        if (data.getKey().equals(after)) {
+                            continue;
+                        }
+                        if (items.size() == pageSize) {
+                            nextCursor = lastKey;
+                            break;
+                        }
+                        T item = mapper.apply(data);
+                        if (item != null) {
+                            items.add(item);
+                            lastKey = data.getKey();
+                        }
+                    }
+                    return new CursorPage<>(items, nextCursor);
+                }));
+            }
+
+            @Override
+            public void onCancelled(DatabaseError error) {
+                future.completeExceptionally(new RuntimeException(error.getMessage()));
+            }
+        });
+        return future;
+    }
+
+    // Reports the key of every child added, changed or removed; null means the listener was cancelled and
+    // later changes will not be reported
+    static void watchChanges(DatabaseReference collection, Consumer<String> listener) {
+        collection.addChildEventListener(new ChildEventListener() {
+            @Override
+            public void onChildAdded(DataSnapshot snapshot, String previousChildName) {
+                listener.accept(snapshot.getKey());
+            }
+
+            @Override
+            public void onChildChanged(DataSnapshot snapshot, String previousChildName) {
+                listener.accept(snapshot.getKey());
+            }
+
+            @Override
+            public void onChildRemoved(DataSnapshot snapshot) {
+                listener.accept(snapshot.getKey());
+            }
+
+            @Override
+            public void onChildMoved(DataSnapshot snapshot, String previousChildName) {
+            }
+
+            @Override
+            public void onCancelled(DatabaseError error) {
+                logger.error("Change listener on {} cancelled: {}", collection.getKey(), error.getMessage());
+                listener.accept(null);
+            }
+        });
+    }
+}
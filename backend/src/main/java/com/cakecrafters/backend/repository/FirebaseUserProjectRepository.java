@@ -0,0 +1,150 @@
+package com.cakecrafters.backend.repository;
+
+import com.cakecrafters.backend.model.BatchOperation;
+import com.cakecrafters.backend.model.CursorPage;
+import com.cakecrafters.backend.model.UserProject;
+import com.google.firebase.database.*;
+import io.micrometer.tracing.Span;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+@Repository
+@ConditionalOnProperty(name = "cakecrafters.storage.engine", havingValue = "firebase", matchIfMissing = true)
+public class FirebaseUserProjectRepository implements UserProjectRepository {
+
+    private final DatabaseReference databaseReference;
+    private final SnapshotSpans spans;
+    private final WriteBehindQueue writes;
+    private final DocumentCache<UserProject> cache;
+    private final SnapshotCache<UserProject> snapshot;
+
+    public FirebaseUserProjectRepository(DocumentCaches documentCaches, SnapshotCaches snapshotCaches, SnapshotSpans spans, WriteBehindQueue writes) {
+        this.databaseReference = FirebaseDatabase.getInstance().getReference("userProjects");
+        this.spans = spans;
+        this.writes = writes;
+        this.cache = documentCaches.create(databaseReference, SnapshotMappers::userProject, FirebaseUserProjectRepository::weigh);
+        this.snapshot = snapshotCaches.create(databaseReference, SnapshotMappers::userProject);
+    }
+
+    @Override
+    public CompletableFuture<UserProject> create(UserProject userProject) {
+        userProject.setId(databaseReference.push().getKey());
+        return KeyedChildren.setValue(databaseReference.child(userProject.getId()), document(userProject)).thenApply(written -> userProject);
+    }
+
+    private Map<String, Object> document(UserProject userProject) {
+        Map<String, Object> document = KeyedChildren.fields(userProject);
+        document.put("progressUpdates", KeyedChildren.pushAll(databaseReference.child(userProject.getId()).child("progressUpdates"), userProject.getProgressUpdates()));
+        return document;
+    }
+
+    @Override
+    public CompletableFuture<UserProject> findById(String id) {
+        return cache != null ? cache.get(id, this::load) : load(id);
+    }
+
+    private CompletableFuture<UserProject> load(String id) {
+        CompletableFuture<UserProject> future = new CompletableFuture<>();
+        Span parent = spans.current();
+        databaseReference.child(id).addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(DataSnapshot snapshot) {
+                UserProject project = spans.map(parent, snapshot, () -> SnapshotMappers.userProject(snapshot));
+                if (project != null) {
+                    future.complete(project);
+                } else {
+                    future.completeExceptionally(new RuntimeException("Project not found"));
+                }
+            }
+
+            @Override
+            public void onCancelled(DatabaseError error) {
+                future.completeExceptionally(new RuntimeException(error.getMessage()));
+            }
+        });
+        return future;
+    }
+
+    @Override
+    public CompletableFuture<List<UserProject>> findAll() {
+        if (snapshot != null && snapshot.isServing()) {
+            return CompletableFuture.completedFuture(snapshot.list());
+        }
+        return FirebaseQueries.list(databaseReference, SnapshotMappers::userProject, spans);
+    }
+
+    @Override
+    public CompletableFuture<CursorPage<UserProject>> findPage(int limit, String after) {
+        if (snapshot != null && snapshot.isServing()) {
+            return CompletableFuture.completedFuture(snapshot.page(limit, after));
+        }
+        return FirebaseQueries.page(databaseReference, limit, after, SnapshotMappers::userProject, spans);
+    }
+
+    @Override
+    public CompletableFuture<UserProject> update(String id, UserProject userProject) {
+        userProject.setId(id);
+        // Only the document fields are replaced; progress updates are appended separately
+        return writes.submit(new MultiPathUpdate().setFields(databaseReference.getKey() + "/" + id, userProject))
+                .thenApply(written -> userProject);
+    }
+
+    @Override
+    public CompletableFuture<Void> delete(String id) {
+        return KeyedChildren.remove(databaseReference.child(id));
+    }
+
+    // Paths are relative to the collection, so the whole batch is a single updateChildren call on it
+    @Override
+    public CompletableFuture<Set<String>> applyBatch(List<BatchOperation<UserProject>> operations) {
+        return KeyedChildren.missingTargets(databaseReference, operations, "id").thenCompose(missing -> {
+            MultiPathUpdate update = new MultiPathUpdate();
+            for (BatchOperation<UserProject> operation : operations) {
+                UserProject userProject = operation.getDocument();
+                if (!BatchOperation.CREATE.equals(operation.getOp()) && missing.contains(operation.getId())) {
+                    continue;
+                }
+                switch (operation.getOp()) {
+                    case BatchOperation.CREATE -> {
+                        userProject.setId(databaseReference.push().getKey());
+                        update.set(userProject.getId(), document(userProject));
+                    }
+                    case BatchOperation.UPDATE -> {
+                        // Same as update: the fields are replaced and the progress updates kept
+                        userProject.setId(operation.getId());
+                        update.setFields(operation.getId(), userProject);
+                    }
+                    default -> update.set(operation.getId(), null);
+                }
+            }
+            return update.isEmpty()
+                    ? CompletableFuture.completedFuture(missing)
+                    : update.commit(databaseReference).thenApply(written -> missing);
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> addProgressUpdate(String id, String progressUpdate) {
+        // Appends one keyed child instead of rewriting the project
+        DatabaseReference updates = databaseReference.child(id).child("progressUpdates");
+        return KeyedChildren.requireDocument(databaseReference.child(id), "id", "Project not found")
+                .thenCompose(exists -> KeyedChildren.setValue(updates.push(), progressUpdate));
+    }
+
+    @Override
+    public void watchChanges(Consumer<String> listener) {
+        FirebaseQueries.watchChanges(databaseReference, listener);
+    }
+
+    private static int weigh(UserProject project) {
+        return 128 + DocumentCaches.weigh(Arrays.asList(project.getTitle(), project.getDescription()))
+                + DocumentCaches.weigh(project.getProgressUpdates());
+    }
+}
@@ -0,0 +1,119 @@
+package com.cakecrafters.backend.repository;
+
+import com.cakecrafters.backend.model.BatchOperation;
+import com.google.firebase.database.*;
+import com.google.firebase.database.utilities.encoding.CustomClassMapper;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Helpers for child collections (comments, progress updates) stored as push-keyed maps under their parent,
+// so appending or editing one entry writes only that entry instead of the whole document.
+final class KeyedChildren {
+
+    private KeyedChildren() {}
+
+    // Document fields as the Firebase mapper writes them; child collections marked @Exclude are left out
+    @SuppressWarnings("unchecked")
+    static Map<String, Object> fields(Object model) {
+        return (Map<String, Object>) CustomClassMapper.convertToPlainJavaTypes(model);
+    }
+
+    static Map<String, Object> pushAll(DatabaseReference node, List<?> values) {
+        Map<String, Object> keyed = new LinkedHashMap<>();
+        if (values != null) {
+            for (Object value : values) {
+                keyed.put(node.push().getKey(), value);
+            }
+        }
+        return keyed;
+    }
+
+    // Probes one small child (documents always carry their id field) instead of downloading the whole node
+    static CompletableFuture<Void> requireDocument(DatabaseReference document, String probeField, String notFoundMessage) {
+        return requireNode(document.child(probeField), notFoundMessage);
+    }
+
+    // For small nodes that have no field they always carry, such as comments
+    static CompletableFuture<Void> requireNode(DatabaseReference node, String notFoundMessage) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        node.addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(DataSnapshot snapshot) {
+                if (snapshot.exists()) {
+                    future.complete(null);
+                } else {
+                    future.completeExceptionally(new RuntimeException(notFoundMessage));
+                }
+            }
+
+            @Override
+            public void onCancelled(DatabaseError error) {
+                future.completeExceptionally(new RuntimeException(error.getMessage()));
+            }
+        });
+        return future;
+    }
+
+    // The update and delete targets of a batch that do not exist, each probed by one small field like
+    // requireDocument. They are read before the write, so a document deleted in between can still be written to.
+    static <T> CompletableFuture<Set<String>> missingTargets(DatabaseReference collection, List<BatchOperation<T>> operations,
+                                                            String probeField) {
+        Set<String> missing = ConcurrentHashMap.newKeySet();
+        CompletableFuture<?>[] probes = operations.stream()
+                .filter(operation -> !BatchOperation.CREATE.equals(operation.getOp()))
+                .map(BatchOperation::getId)
+                .distinct()
+                .map(id -> exists(collection.child(id).child(probeField)).thenAccept(found -> {
+                    if (!found) {
+                        missing.add(id);
+                    }
+                }))
+                .toArray(CompletableFuture[]::new);
+        return CompletableFuture.allOf(probes).thenApply(probed -> missing);
+    }
+
+    private static CompletableFuture<Boolean> exists(DatabaseReference node) {
+        CompletableFuture<Boolean> future = new CompletableFuture<>();
+        node.addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(DataSnapshot snapshot) {
+                future.complete(snapshot.exists());
+            }
+
+            @Override
+            public void onCancelled(DatabaseError error) {
+                future.completeExceptionally(new RuntimeException(error.getMessage()));
+            }
+        });
+        return future;
+    }
+
+    static CompletableFuture<Void> setValue(DatabaseReference ref, Object value) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        ref.setValue(value, (error, written) -> {
+            if (error == null) {
+                future.complete(null);
+            } else {
+                future.completeExceptionally(new RuntimeException(error.getMessage()));
+            }
+        });
+        return future;
+    }
+
+    static CompletableFuture<Void> remove(DatabaseReference ref) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        ref.removeValue((error, removed) -> {
+            if (error == null) {
+                future.complete(null);
+            } else {
+                future.completeExceptionally(new RuntimeException(error.getMessage()));
+            }
+        });
+        return future;
+    }
+}
@@ -0,0 +1,74 @@
+package com.cakecrafters.backend.repository;
+
+import com.google.firebase.database.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// One-off rewrite of list-shaped child collections (numeric keys 0..n) into push-keyed maps.
+// Reads already accept both shapes, so this only needs to run once per database and is opt-in.
+@Component
+@ConditionalOnExpression("'${cakecrafters.storage.engine:firebase}' == 'firebase' && ${cakecrafters.migration.keyed-children.enabled:false}")
+public class KeyedChildrenMigration {
+
+    private static final Logger logger = LoggerFactory.getLogger(KeyedChildrenMigration.class);
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrate() {
+        migrate("cakeRecipes", "comments", false);
+        migrate("decorationTips", "comments", true);
+        migrate("userProjects", "progressUpdates", false);
+    }
+
+    private void migrate(String collection, String field, boolean keyIsId) {
+        DatabaseReference collectionRef = FirebaseDatabase.getInstance().getReference(collection);
+        collectionRef.addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(DataSnapshot snapshot) {
+                // One multi-path update per collection; each legacy entry moves to a fresh push key
+                // without touching entries that were already appended with push keys
+                Map<String, Object> updates = new HashMap<>();
+                for (DataSnapshot document : snapshot.getChildren()) {
+                    for (DataSnapshot entry : document.child(field).getChildren()) {
+                        if (!entry.getKey().chars().allMatch(Character::isDigit)) {
+                            continue;
+                        }
+                        String path = document.getKey() + "/" + field + "/";
+                        String newKey = collectionRef.push().getKey();
+                        Object value = entry.getValue();
+                        if (keyIsId && value instanceof Map) {
+                            @SuppressWarnings("unchecked")
+                            Map<String, Object> comment = new HashMap<>((Map<String, Object>) value);
+                            comment.put("id", newKey);
+                            value = comment;
+                        }
+                        updates.put(path + entry.getKey(), null);
+                        updates.put(path + newKey, value);
+                    }
+                }
+                if (updates.isEmpty()) {
+                    logger.info("No list-shaped {} found in {}", field, collection);
+                    return;
+                }
+                collectionRef.updateChildren(updates, (error, ref) -> {
+                    if (error == null) {
+                        logger.info("Migrated {} legacy {} entries in {}", updates.size() / 2, field, collection);
+                    } else {
+                        logger.error("Failed to migrate {} in {}: {}", field, collection, error.getMessage());
+                    }
+                });
+            }
+
+            @Override
+            public void onCancelled(DatabaseError error) {
+                logger.error("Failed to read {} for migration: {}", collection, error.getMessage());
+            }
+        });
+    }
+}
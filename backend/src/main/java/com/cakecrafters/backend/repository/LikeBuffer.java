@@ -0,0 +1,159 @@
+package com.cakecrafters.backend.repository;
+
+import com.google.firebase.database.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Applies likes as transactional increments on a counter child instead of rewriting the whole document.
+// With a positive flush interval, likes for the same id are coalesced and committed as one delta per window.
+public class LikeBuffer {
+
+    private final DatabaseReference collection;
+    private final DatabaseReference mirror;
+    private final String counterField;
+    private final String notFoundMessage;
+    private final Map<String, List<CompletableFuture<Integer>>> pending = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler;
+
+    public LikeBuffer(DatabaseReference collection, String counterField, String notFoundMessage, long flushIntervalMs) {
+        this(collection, null, counterField, notFoundMessage, flushIntervalMs);
+    }
+
+    // The mirror is a denormalized node (e.g. a summary) whose counter child follows the committed value
+    public LikeBuffer(DatabaseReference collection, DatabaseReference mirror, String counterField, String notFoundMessage, long flushIntervalMs) {
+        this.collection = collection;
+        this.mirror = mirror;
+        this.counterField = counterField;
+        this.notFoundMessage = notFoundMessage;
+        if (flushIntervalMs > 0) {
+            this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "like-buffer-" + collection.getKey());
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.scheduler.scheduleWithFixedDelay(this::flush, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+        } else {
+            this.scheduler = null;
+        }
+    }
+
+    // Completes with the committed counter value once the like (or the batch holding it) is written
+    public CompletableFuture<Integer> like(String id) {
+        if (scheduler == null) {
+            return applyDelta(id, 1);
+        }
+        CompletableFuture<Integer> future = new CompletableFuture<>();
+        pending.compute(id, (key, waiters) -> {
+            if (waiters == null) {
+                waiters = new ArrayList<>();
+            }
+            waiters.add(future);
+            return waiters;
+        });
+        return future;
+    }
+
+    public void flush() {
+        for (String id : pending.keySet()) {
+            // remove() takes the batch atomically; likes arriving after this start a new batch
+            List<CompletableFuture<Integer>> waiters = pending.remove(id);
+            if (waiters == null) {
+                continue;
+            }
+            applyDelta(id, waiters.size()).whenComplete((count, throwable) -> {
+                for (CompletableFuture<Integer> waiter : waiters) {
+                    if (throwable == null) {
+                        waiter.complete(count);
+                    } else {
+                        waiter.completeExceptionally(throwable);
+                    }
+                }
+            });
+        }
+    }
+
+    public void close() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+            flush();
+        }
+    }
+
+    private CompletableFuture<Integer> applyDelta(String id, int delta) {
+        CompletableFuture<Integer> future = new CompletableFuture<>();
+        DatabaseReference counter = collection.child(id).child(counterField);
+        // Check the counter child first so a like on a missing id does not create a stub document
+        counter.addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(DataSnapshot snapshot) {
+                if (!snapshot.exists()) {
+                    future.completeExceptionally(new RuntimeException(notFoundMessage));
+                    return;
+                }
+                counter.runTransaction(new Transaction.Handler() {
+                    @Override
+                    public Transaction.Result doTransaction(MutableData currentData) {
+                        Integer count = currentData.getValue(Integer.class);
+                        if (count == null) {
+                            count = 0;
+                        }
+                        currentData.setValue(count + delta);
+                        return Transaction.success(currentData);
+                    }
+
+                    @Override
+                    public void onComplete(DatabaseError error, boolean committed, DataSnapshot currentData) {
+                        if (error == null && committed) {
+                            Integer count = currentData.getValue(Integer.class);
+                            if (mirror != null) {
+                                mirrorCount(id, count);
+                            }
+                            future.complete(count);
+                        } else {
+                            future.completeExceptionally(new RuntimeException(error != null ? error.getMessage() : "Transaction failed"));
+                        }
+                    }
+                });
+            }
+
+            @Override
+            public void onCancelled(DatabaseError error) {
+                future.completeExceptionally(new RuntimeException(error.getMessage()));
+            }
+        });
+        return future;
+    }
+
+    // Raises the mirrored counter to at least the committed value, so out-of-order commits never lower it. Runs on the
+    // whole mirrored node, so a node deleted in the meantime is not brought back as a stub holding only the counter.
+    private void mirrorCount(String id, int count) {
+        mirror.child(id).runTransaction(new Transaction.Handler() {
+            @Override
+            public Transaction.Result doTransaction(MutableData currentData) {
+                // Committing the node unchanged rather than aborting: if the local copy was stale, the server
+                // rejects it and the transaction runs again with the node as stored
+                if (currentData.getValue() == null) {
+                    return Transaction.success(currentData);
+                }
+                MutableData counter = currentData.child(counterField);
+                Integer mirrored = counter.getValue(Integer.class);
+                if (mirrored != null && mirrored >= count) {
+                    return Transaction.abort();
+                }
+                counter.setValue(count);
+                return Transaction.success(currentData);
+            }
+
+            @Override
+            public void onComplete(DatabaseError error, boolean committed, DataSnapshot currentData) {
+            }
+        });
+    }
+}
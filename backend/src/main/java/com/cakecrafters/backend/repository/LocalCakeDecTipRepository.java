@@ -0,0 +1,206 @@
+package com.cakecrafters.backend.repository;
+
+import com.cakecrafters.backend.model.BatchOperation;
+import com.cakecrafters.backend.model.CakeDecTip;
+import com.cakecrafters.backend.model.CakeDecTipSummary;
+import com.cakecrafters.backend.model.CursorPage;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+@Repository
+@ConditionalOnProperty(name = "cakecrafters.storage.engine", havingValue = "local")
+public class LocalCakeDecTipRepository implements CakeDecTipRepository {
+
+    private static final String COLLECTION = "decorationTips";
+
+    private final LocalStore store;
+
+    public LocalCakeDecTipRepository(LocalStore store) {
+        this.store = store;
+    }
+
+    @Override
+    public CompletableFuture<CakeDecTip> create(CakeDecTip tip) {
+        return LocalStore.supply(() -> {
+            tip.setId(store.newKey());
+            if (tip.getComments() != null) {
+                for (CakeDecTip.Comment comment : tip.getComments()) {
+                    comment.setId(store.newKey());
+                }
+            }
+            store.put(COLLECTION, tip.getId(), tip);
+            return tip;
+        });
+    }
+
+    @Override
+    public CompletableFuture<CakeDecTip> findById(String id) {
+        return LocalStore.supply(() -> require(store.get(COLLECTION, id, CakeDecTip.class)));
+    }
+
+    @Override
+    public CompletableFuture<List<CakeDecTip>> findAll() {
+        return LocalStore.supply(() -> store.list(COLLECTION, CakeDecTip.class));
+    }
+
+    @Override
+    public CompletableFuture<CursorPage<CakeDecTip>> findPage(int limit, String after) {
+        return LocalStore.supply(() -> store.page(COLLECTION, limit, after, CakeDecTip.class));
+    }
+
+    // Summaries are derived on read; the whole collection is in memory anyway
+    @Override
+    public CompletableFuture<List<CakeDecTipSummary>> findSummaries() {
+        return LocalStore.supply(() -> {
+            List<CakeDecTipSummary> summaries = new ArrayList<>();
+            for (CakeDecTip tip : store.list(COLLECTION, CakeDecTip.class)) {
+                summaries.add(CakeDecTipSummary.from(tip));
+            }
+            return summaries;
+        });
+    }
+
+    @Override
+    public CompletableFuture<CursorPage<CakeDecTipSummary>> findSummariesPage(int limit, String after) {
+        return LocalStore.supply(() -> store.page(COLLECTION, limit, after, CakeDecTip.class, CakeDecTipSummary::from));
+    }
+
+    @Override
+    public CompletableFuture<CakeDecTip> update(String id, CakeDecTip tip) {
+        tip.setId(id);
+        // Likes and comments have their own operations, so the stored ones win over a stale client copy
+        return LocalStore.supply(() -> require(store.update(COLLECTION, id, CakeDecTip.class, stored -> {
+            tip.setLikes(stored.getLikes());
+            tip.setComments(stored.getComments());
+            return tip;
+        })));
+    }
+
+    @Override
+    public CompletableFuture<Void> delete(String id) {
+        return LocalStore.supply(() -> {
+            store.delete(COLLECTION, id);
+            return null;
+        });
+    }
+
+    // Writes are built under the store lock and logged as one entry; an update of a missing document fails the batch
+    @Override
+    public CompletableFuture<Set<String>> applyBatch(List<BatchOperation<CakeDecTip>> operations) {
+        return LocalStore.supply(() -> {
+            Set<String> missing = new HashSet<>();
+            synchronized (store) {
+                List<LocalStore.Write> writes = new ArrayList<>();
+                for (BatchOperation<CakeDecTip> operation : operations) {
+                    if (!BatchOperation.CREATE.equals(operation.getOp())
+                            && store.get(COLLECTION, operation.getId(), CakeDecTip.class) == null) {
+                        missing.add(operation.getId());
+                    } else {
+                        writes.add(write(operation));
+                    }
+                }
+                store.writeAll(writes);
+            }
+            return missing;
+        });
+    }
+
+    private LocalStore.Write write(BatchOperation<CakeDecTip> operation) {
+        CakeDecTip tip = operation.getDocument();
+        switch (operation.getOp()) {
+            case BatchOperation.CREATE -> tip.setId(store.newKey());
+            case BatchOperation.UPDATE -> {
+                CakeDecTip stored = require(store.get(COLLECTION, operation.getId(), CakeDecTip.class));
+                tip.setId(operation.getId());
+                tip.setLikes(stored.getLikes());
+                tip.setComments(stored.getComments());
+            }
+            default -> {
+                return new LocalStore.Write(COLLECTION, operation.getId(), null);
+            }
+        }
+        return new LocalStore.Write(COLLECTION, tip.getId(), tip);
+    }
+
+    @Override
+    public CompletableFuture<Integer> like(String id) {
+        return LocalStore.supply(() -> require(store.update(COLLECTION, id, CakeDecTip.class, stored -> {
+            stored.setLikes(stored.getLikes() + 1);
+            return stored;
+        })).getLikes());
+    }
+
+    @Override
+    public CompletableFuture<Void> addComment(String id, CakeDecTip.Comment comment) {
+        return LocalStore.supply(() -> {
+            comment.setId(store.newKey());
+            require(store.update(COLLECTION, id, CakeDecTip.class, stored -> {
+                if (stored.getComments() == null) {
+                    stored.setComments(new ArrayList<>());
+                }
+                stored.getComments().add(comment);
+                return stored;
+            }));
+            return null;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> updateComment(String tipId, String commentId, CakeDecTip.Comment comment) {
+        return LocalStore.supply(() -> {
+            comment.setId(commentId);
+            require(store.update(COLLECTION, tipId, CakeDecTip.class, stored -> {
+                int index = indexOf(stored, commentId);
+                if (index < 0) {
+                    throw new RuntimeException("Comment not found");
+                }
+                stored.getComments().set(index, comment);
+                return stored;
+            }));
+            return null;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> deleteComment(String tipId, String commentId) {
+        return LocalStore.supply(() -> {
+            store.update(COLLECTION, tipId, CakeDecTip.class, stored -> {
+                int index = indexOf(stored, commentId);
+                if (index >= 0) {
+                    stored.getComments().remove(index);
+                }
+                return stored;
+            });
+            return null;
+        });
+    }
+
+    // Every write to the embedded store goes through this process's services, which see it already
+    @Override
+    public void watchChanges(Consumer<String> listener) {
+    }
+
+    private static int indexOf(CakeDecTip tip, String commentId) {
+        List<CakeDecTip.Comment> comments = tip.getComments();
+        for (int i = 0; comments != null && i < comments.size(); i++) {
+            if (commentId.equals(comments.get(i).getId())) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static CakeDecTip require(CakeDecTip tip) {
+        if (tip == null) {
+            throw new RuntimeException("Tip not found");
+        }
+        return tip;
+    }
+}
@@ -0,0 +1,160 @@
+package com.cakecrafters.backend.repository;
+
+import com.cakecrafters.backend.model.BatchOperation;
+import com.cakecrafters.backend.model.CakeRecipe;
+import com.cakecrafters.backend.model.CakeRecipeSummary;
+import com.cakecrafters.backend.model.CursorPage;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+@Repository
+@ConditionalOnProperty(name = "cakecrafters.storage.engine", havingValue = "local")
+public class LocalCakeRecipeRepository implements CakeRecipeRepository {
+
+    private static final String COLLECTION = "cakeRecipes";
+
+    private final LocalStore store;
+
+    public LocalCakeRecipeRepository(LocalStore store) {
+        this.store = store;
+    }
+
+    @Override
+    public CompletableFuture<CakeRecipe> create(CakeRecipe cakeRecipe) {
+        return LocalStore.supply(() -> {
+            cakeRecipe.setId(store.newKey());
+            store.put(COLLECTION, cakeRecipe.getId(), cakeRecipe);
+            return cakeRecipe;
+        });
+    }
+
+    @Override
+    public CompletableFuture<CakeRecipe> findById(String id) {
+        return LocalStore.supply(() -> require(store.get(COLLECTION, id, CakeRecipe.class)));
+    }
+
+    @Override
+    public CompletableFuture<List<CakeRecipe>> findAll() {
+        return LocalStore.supply(() -> store.list(COLLECTION, CakeRecipe.class));
+    }
+
+    @Override
+    public CompletableFuture<CursorPage<CakeRecipe>> findPage(int limit, String after) {
+        return LocalStore.supply(() -> store.page(COLLECTION, limit, after, CakeRecipe.class));
+    }
+
+    // Summaries are derived on read; the whole collection is in memory anyway
+    @Override
+    public CompletableFuture<List<CakeRecipeSummary>> findSummaries() {
+        return LocalStore.supply(() -> {
+            List<CakeRecipeSummary> summaries = new ArrayList<>();
+            for (CakeRecipe cakeRecipe : store.list(COLLECTION, CakeRecipe.class)) {
+                summaries.add(CakeRecipeSummary.from(cakeRecipe));
+            }
+            return summaries;
+        });
+    }
+
+    @Override
+    public CompletableFuture<CursorPage<CakeRecipeSummary>> findSummariesPage(int limit, String after) {
+        return LocalStore.supply(() -> store.page(COLLECTION, limit, after, CakeRecipe.class, CakeRecipeSummary::from));
+    }
+
+    @Override
+    public CompletableFuture<CakeRecipe> update(String id, CakeRecipe cakeRecipe) {
+        cakeRecipe.setId(id);
+        // Likes and comments have their own operations, so the stored ones win over a stale client copy
+        return LocalStore.supply(() -> require(store.update(COLLECTION, id, CakeRecipe.class, stored -> {
+            cakeRecipe.setLikes(stored.getLikes());
+            cakeRecipe.setComments(stored.getComments());
+            return cakeRecipe;
+        })));
+    }
+
+    @Override
+    public CompletableFuture<Void> delete(String id) {
+        return LocalStore.supply(() -> {
+            store.delete(COLLECTION, id);
+            return null;
+        });
+    }
+
+    // Writes are built under the store lock and logged as one entry; an update of a missing document fails the batch
+    @Override
+    public CompletableFuture<Set<String>> applyBatch(List<BatchOperation<CakeRecipe>> operations) {
+        return LocalStore.supply(() -> {
+            Set<String> missing = new HashSet<>();
+            synchronized (store) {
+                List<LocalStore.Write> writes = new ArrayList<>();
+                for (BatchOperation<CakeRecipe> operation : operations) {
+                    if (!BatchOperation.CREATE.equals(operation.getOp())
+                            && store.get(COLLECTION, operation.getId(), CakeRecipe.class) == null) {
+                        missing.add(operation.getId());
+                    } else {
+                        writes.add(write(operation));
+                    }
+                }
+                store.writeAll(writes);
+            }
+            return missing;
+        });
+    }
+
+    private LocalStore.Write write(BatchOperation<CakeRecipe> operation) {
+        CakeRecipe cakeRecipe = operation.getDocument();
+        switch (operation.getOp()) {
+            case BatchOperation.CREATE -> cakeRecipe.setId(store.newKey());
+            case BatchOperation.UPDATE -> {
+                CakeRecipe stored = require(store.get(COLLECTION, operation.getId(), CakeRecipe.class));
+                cakeRecipe.setId(operation.getId());
+                cakeRecipe.setLikes(stored.getLikes());
+                cakeRecipe.setComments(stored.getComments());
+            }
+            default -> {
+                return new LocalStore.Write(COLLECTION, operation.getId(), null);
+            }
+        }
+        return new LocalStore.Write(COLLECTION, cakeRecipe.getId(), cakeRecipe);
+    }
+
+    @Override
+    public CompletableFuture<Integer> like(String id) {
+        return LocalStore.supply(() -> require(store.update(COLLECTION, id, CakeRecipe.class, stored -> {
+            stored.setLikes(stored.getLikes() + 1);
+            return stored;
+        })).getLikes());
+    }
+
+    @Override
+    public CompletableFuture<Void> addComment(String id, String comment) {
+        return LocalStore.supply(() -> {
+            require(store.update(COLLECTION, id, CakeRecipe.class, stored -> {
+                if (stored.getComments() == null) {
+                    stored.setComments(new ArrayList<>());
+                }
+                stored.getComments().add(comment);
+                return stored;
+            }));
+            return null;
+        });
+    }
+
+    // Every write to the embedded store goes through this process's services, which see it already
+    @Override
+    public void watchChanges(Consumer<String> listener) {
+    }
+
+    private static CakeRecipe require(CakeRecipe cakeRecipe) {
+        if (cakeRecipe == null) {
+            throw new RuntimeException("Recipe not found");
+        }
+        return cakeRecipe;
+    }
+}
@@ -0,0 +1,214 @@
+package com.cakecrafters.backend.repository;
+
+import com.cakecrafters.backend.model.BatchOperation;
+import com.cakecrafters.backend.model.Comment;
+import com.cakecrafters.backend.model.CursorPage;
+import com.cakecrafters.backend.model.Post;
+import com.cakecrafters.backend.model.PostEvent;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+
+@Repository
+@ConditionalOnProperty(name = "cakecrafters.storage.engine", havingValue = "local")
+public class LocalPostRepository implements PostRepository {
+
+    private static final String COLLECTION = "posts";
+
+    private final LocalStore store;
+    private final PostChangeTracker changes = new PostChangeTracker();
+
+    public LocalPostRepository(LocalStore store) {
+        this.store = store;
+        store.list(COLLECTION, Post.class).forEach(changes::seed);
+    }
+
+    @Override
+    public CompletableFuture<String> create(Post post) {
+        return LocalStore.supply(() -> {
+            post.setPostId(store.newKey());
+            synchronized (store) {
+                store.put(COLLECTION, post.getPostId(), post);
+                changes.changed(post);
+            }
+            return post.getPostId();
+        });
+    }
+
+    @Override
+    public CompletableFuture<Post> findById(String postId) {
+        return LocalStore.supply(() -> require(store.get(COLLECTION, postId, Post.class)));
+    }
+
+    @Override
+    public CompletableFuture<List<Post>> findAll() {
+        return LocalStore.supply(() -> store.list(COLLECTION, Post.class));
+    }
+
+    @Override
+    public CompletableFuture<CursorPage<Post>> findPage(int limit, String after) {
+        return LocalStore.supply(() -> store.page(COLLECTION, limit, after, Post.class));
+    }
+
+    @Override
+    public CompletableFuture<Void> update(String postId, Post post) {
+        return LocalStore.supply(() -> {
+            post.setPostId(postId);
+            synchronized (store) {
+                store.put(COLLECTION, postId, post);
+                changes.changed(post);
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> delete(String postId) {
+        return LocalStore.supply(() -> {
+            synchronized (store) {
+                store.delete(COLLECTION, postId);
+                changes.removed(postId);
+            }
+            return null;
+        });
+    }
+
+    // Logged as one entry; the tracker sees the posts in batch order, still under the store lock
+    @Override
+    public CompletableFuture<Set<String>> applyBatch(List<BatchOperation<Post>> operations) {
+        return LocalStore.supply(() -> {
+            Set<String> missing = new HashSet<>();
+            synchronized (store) {
+                List<LocalStore.Write> writes = new ArrayList<>();
+                for (BatchOperation<Post> operation : operations) {
+                    Post stored = BatchOperation.CREATE.equals(operation.getOp())
+                            ? null : store.get(COLLECTION, operation.getId(), Post.class);
+                    if (!BatchOperation.CREATE.equals(operation.getOp()) && stored == null) {
+                        missing.add(operation.getId());
+                        continue;
+                    }
+                    Post post = operation.getDocument();
+                    switch (operation.getOp()) {
+                        case BatchOperation.CREATE -> post.setPostId(store.newKey());
+                        case BatchOperation.UPDATE -> {
+                            post.setPostId(operation.getId());
+                            post.setLikesCount(stored.getLikesCount());
+                            post.setDislikesCount(stored.getDislikesCount());
+                            post.setComments(stored.getComments());
+                        }
+                        default -> {
+                            writes.add(new LocalStore.Write(COLLECTION, operation.getId(), null));
+                            continue;
+                        }
+                    }
+                    writes.add(new LocalStore.Write(COLLECTION, post.getPostId(), post));
+                }
+                store.writeAll(writes);
+                for (BatchOperation<Post> operation : operations) {
+                    if (missing.contains(operation.getId())) {
+                        continue;
+                    }
+                    if (BatchOperation.DELETE.equals(operation.getOp())) {
+                        changes.removed(operation.getId());
+                    } else {
+                        changes.changed(operation.getDocument());
+                    }
+                }
+            }
+            return missing;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> like(String postId) {
+        return LocalStore.supply(() -> {
+            require(updateTracked(postId, stored -> {
+                stored.setLikesCount(stored.getLikesCount() + 1);
+                return stored;
+            }));
+            return null;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> dislike(String postId) {
+        return LocalStore.supply(() -> {
+            require(updateTracked(postId, stored -> {
+                stored.setDislikesCount(stored.getDislikesCount() + 1);
+                return stored;
+            }));
+            return null;
+        });
+    }
+
+    @Override
+    public CompletableFuture<String> addComment(String postId, Comment comment) {
+        return LocalStore.supply(() -> {
+            comment.setCommentId(store.newKey());
+            putComment(postId, comment.getCommentId(), comment);
+            return comment.getCommentId();
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> updateComment(String postId, String commentId, Comment comment) {
+        return LocalStore.supply(() -> {
+            putComment(postId, commentId, comment);
+            return null;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> deleteComment(String postId, String commentId) {
+        return LocalStore.supply(() -> {
+            updateTracked(postId, stored -> {
+                if (stored.getComments() != null) {
+                    stored.getComments().remove(commentId);
+                }
+                return stored;
+            });
+            return null;
+        });
+    }
+
+    private void putComment(String postId, String commentId, Comment comment) {
+        require(updateTracked(postId, stored -> {
+            if (stored.getComments() == null) {
+                stored.setComments(new LinkedHashMap<>());
+            }
+            stored.getComments().put(commentId, comment);
+            return stored;
+        }));
+    }
+
+    // Writes take the store's lock; diffing under it as well keeps events in the order the writes were made
+    private Post updateTracked(String postId, UnaryOperator<Post> change) {
+        synchronized (store) {
+            Post written = store.update(COLLECTION, postId, Post.class, change);
+            if (written != null) {
+                changes.changed(written);
+            }
+            return written;
+        }
+    }
+
+    @Override
+    public void watch(Consumer<PostEvent> listener) {
+        changes.addListener(listener);
+    }
+
+    private static Post require(Post post) {
+        if (post == null) {
+            throw new RuntimeException("Post not found");
+        }
+        return post;
+    }
+}
@@ -0,0 +1,249 @@
+package com.cakecrafters.backend.repository;
+
+import com.cakecrafters.backend.model.CursorPage;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+// Embedded document engine for running without Firebase. Documents are held in memory as JSON trees, sorted
+// by key per collection; every write is appended to a JSON-lines log before it is applied, and on startup the
+// log is replayed and rewritten with only the live documents.
+@Component
+@ConditionalOnProperty(name = "cakecrafters.storage.engine", havingValue = "local")
+public class LocalStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(LocalStore.class);
+
+    // One write of a batch; a null value deletes the key
+    public record Write(String collection, String key, Object value) {}
+
+    private final ObjectMapper objectMapper = JsonMapper.builder()
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .build();
+    private final Path log;
+    private final Map<String, ConcurrentSkipListMap<String, JsonNode>> collections = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final BufferedWriter writer;
+
+    public LocalStore(@Value("${cakecrafters.storage.local.log:data/cakecrafters.log}") String log) throws IOException {
+        this.log = Paths.get(log).toAbsolutePath();
+        Files.createDirectories(this.log.getParent());
+        replay();
+        compact();
+        this.writer = Files.newBufferedWriter(this.log, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    // Completes immediately; failures of the operation become a failed future like a database error would
+    public static <T> CompletableFuture<T> supply(Supplier<T> operation) {
+        try {
+            return CompletableFuture.completedFuture(operation.get());
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    // Time-ordered like Firebase push keys, so key order is creation order
+    public String newKey() {
+        return String.format("%012x%06x", System.currentTimeMillis(), sequence.getAndIncrement() & 0xffffff);
+    }
+
+    // Returns a fresh copy, or null when the document does not exist
+    public <T> T get(String collection, String key, Class<T> type) {
+        JsonNode document = collection(collection).get(key);
+        return document != null ? read(document, type) : null;
+    }
+
+    public <T> List<T> list(String collection, Class<T> type) {
+        List<T> items = new ArrayList<>();
+        for (JsonNode document : collection(collection).values()) {
+            items.add(read(document, type));
+        }
+        return items;
+    }
+
+    public <T> CursorPage<T> page(String collection, int limit, String after, Class<T> type) {
+        return page(collection, limit, after, type, Function.identity());
+    }
+
+    // Same keyset scheme as the Firebase pages: key order, starting after the cursor
+    public <T, R> CursorPage<R> page(String collection, int limit, String after, Class<T> type, Function<T, R> mapper) {
+        int pageSize = CursorPage.clampLimit(limit);
+        NavigableMap<String, JsonNode> documents = after == null ? collection(collection) : collection(collection).tailMap(after, false);
+        List<R> items = new ArrayList<>();
+        String lastKey = null;
+        String nextCursor = null;
+        for (Map.Entry<String, JsonNode> entry : documents.entrySet()) {
+            if (items.size() == pageSize) {
+                nextCursor = lastKey;
+                break;
+            }
+            items.add(mapper.apply(read(entry.getValue(), type)));
+            lastKey = entry.getKey();
+        }
+        return new CursorPage<>(items, nextCursor);
+    }
+
+    public synchronized void put(String collection, String key, Object value) {
+        JsonNode document = objectMapper.valueToTree(value);
+        append(collection, key, document);
+        collection(collection).put(key, document);
+    }
+
+    public synchronized void delete(String collection, String key) {
+        append(collection, key, null);
+        collection(collection).remove(key);
+    }
+
+    // All the writes go to the log as a single line, so after a crash they are replayed together or not at all
+    public synchronized void writeAll(List<Write> writes) {
+        ArrayNode entries = objectMapper.createArrayNode();
+        for (Write write : writes) {
+            entries.add(entry(write.collection(), write.key(), write.value() != null ? objectMapper.valueToTree(write.value()) : null));
+        }
+        ObjectNode batch = objectMapper.createObjectNode();
+        batch.set("batch", entries);
+        appendLine(batch);
+        for (JsonNode entry : entries) {
+            apply(entry);
+        }
+    }
+
+    // Read-modify-write under the store lock: change gets a copy of the stored document and returns the value to write.
+    // Returns the written value, or null without writing when the key does not exist.
+    public synchronized <T> T update(String collection, String key, Class<T> type, UnaryOperator<T> change) {
+        T stored = get(collection, key, type);
+        if (stored == null) {
+            return null;
+        }
+        T value = change.apply(stored);
+        put(collection, key, value);
+        return value;
+    }
+
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        writer.close();
+    }
+
+    private ConcurrentSkipListMap<String, JsonNode> collection(String name) {
+        return collections.computeIfAbsent(name, key -> new ConcurrentSkipListMap<>());
+    }
+
+    private <T> T read(JsonNode document, Class<T> type) {
+        try {
+            return objectMapper.treeToValue(document, type);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unreadable document in " + log, e);
+        }
+    }
+
+    // A null document records a delete
+    private void append(String collection, String key, JsonNode document) {
+        appendLine(entry(collection, key, document));
+    }
+
+    private void appendLine(JsonNode line) {
+        try {
+            writer.write(objectMapper.writeValueAsString(line));
+            writer.newLine();
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to append to " + log, e);
+        }
+    }
+
+    private ObjectNode entry(String collection, String key, JsonNode document) {
+        ObjectNode entry = objectMapper.createObjectNode();
+        entry.put("collection", collection);
+        entry.put("key", key);
+        entry.set("document", document);
+        return entry;
+    }
+
+    private void apply(JsonNode entry) {
+        JsonNode document = entry.get("document");
+        if (document == null || document.isNull()) {
+            collection(entry.get("collection").asText()).remove(entry.get("key").asText());
+        } else {
+            collection(entry.get("collection").asText()).put(entry.get("key").asText(), document);
+        }
+    }
+
+    private void replay() throws IOException {
+        if (!Files.exists(log)) {
+            return;
+        }
+        int applied = 0;
+        try (BufferedReader reader = Files.newBufferedReader(log, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                JsonNode entry;
+                try {
+                    entry = objectMapper.readTree(line);
+                } catch (JsonProcessingException e) {
+                    // A crash can leave the last line half written; that write was never acknowledged
+                    logger.warn("Skipping unreadable entry in {}", log);
+                    continue;
+                }
+                if (entry.has("batch")) {
+                    for (JsonNode write : entry.get("batch")) {
+                        apply(write);
+                    }
+                } else {
+                    apply(entry);
+                }
+                applied++;
+            }
+        }
+        logger.info("Replayed {} entries from {}", applied, log);
+    }
+
+    // Rewrites the log with one entry per live document, then swaps it in atomically
+    private void compact() throws IOException {
+        Path compacted = log.resolveSibling(log.getFileName() + ".compact");
+        try (BufferedWriter out = Files.newBufferedWriter(compacted, StandardCharsets.UTF_8)) {
+            for (Map.Entry<String, ConcurrentSkipListMap<String, JsonNode>> collection : collections.entrySet()) {
+                for (Map.Entry<String, JsonNode> document : collection.getValue().entrySet()) {
+                    out.write(objectMapper.writeValueAsString(entry(collection.getKey(), document.getKey(), document.getValue())));
+                    out.newLine();
+                }
+            }
+        }
+        Files.move(compacted, log, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
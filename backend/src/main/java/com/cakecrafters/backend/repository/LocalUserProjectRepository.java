@@ -0,0 +1,132 @@
+package com.cakecrafters.backend.repository;
+
+import com.cakecrafters.backend.model.BatchOperation;
+import com.cakecrafters.backend.model.CursorPage;
+import com.cakecrafters.backend.model.UserProject;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+@Repository
+@ConditionalOnProperty(name = "cakecrafters.storage.engine", havingValue = "local")
+public class LocalUserProjectRepository implements UserProjectRepository {
+
+    private static final String COLLECTION = "userProjects";
+
+    private final LocalStore store;
+
+    public LocalUserProjectRepository(LocalStore store) {
+        this.store = store;
+    }
+
+    @Override
+    public CompletableFuture<UserProject> create(UserProject userProject) {
+        return LocalStore.supply(() -> {
+            userProject.setId(store.newKey());
+            store.put(COLLECTION, userProject.getId(), userProject);
+            return userProject;
+        });
+    }
+
+    @Override
+    public CompletableFuture<UserProject> findById(String id) {
+        return LocalStore.supply(() -> require(store.get(COLLECTION, id, UserProject.class)));
+    }
+
+    @Override
+    public CompletableFuture<List<UserProject>> findAll() {
+        return LocalStore.supply(() -> store.list(COLLECTION, UserProject.class));
+    }
+
+    @Override
+    public CompletableFuture<CursorPage<UserProject>> findPage(int limit, String after) {
+        return LocalStore.supply(() -> store.page(COLLECTION, limit, after, UserProject.class));
+    }
+
+    @Override
+    public CompletableFuture<UserProject> update(String id, UserProject userProject) {
+        userProject.setId(id);
+        // Progress updates are appended separately, so the stored ones win over a stale client copy
+        return LocalStore.supply(() -> require(store.update(COLLECTION, id, UserProject.class, stored -> {
+            userProject.setProgressUpdates(stored.getProgressUpdates());
+            return userProject;
+        })));
+    }
+
+    @Override
+    public CompletableFuture<Void> delete(String id) {
+        return LocalStore.supply(() -> {
+            store.delete(COLLECTION, id);
+            return null;
+        });
+    }
+
+    // Writes are built under the store lock and logged as one entry; an update of a missing document fails the batch
+    @Override
+    public CompletableFuture<Set<String>> applyBatch(List<BatchOperation<UserProject>> operations) {
+        return LocalStore.supply(() -> {
+            Set<String> missing = new HashSet<>();
+            synchronized (store) {
+                List<LocalStore.Write> writes = new ArrayList<>();
+                for (BatchOperation<UserProject> operation : operations) {
+                    if (!BatchOperation.CREATE.equals(operation.getOp())
+                            && store.get(COLLECTION, operation.getId(), UserProject.class) == null) {
+                        missing.add(operation.getId());
+                    } else {
+                        writes.add(write(operation));
+                    }
+                }
+                store.writeAll(writes);
+            }
+            return missing;
+        });
+    }
+
+    private LocalStore.Write write(BatchOperation<UserProject> operation) {
+        UserProject userProject = operation.getDocument();
+        switch (operation.getOp()) {
+            case BatchOperation.CREATE -> userProject.setId(store.newKey());
+            case BatchOperation.UPDATE -> {
+                UserProject stored = require(store.get(COLLECTION, operation.getId(), UserProject.class));
+                userProject.setId(operation.getId());
+                userProject.setProgressUpdates(stored.getProgressUpdates());
+            }
+            default -> {
+                return new LocalStore.Write(COLLECTION, operation.getId(), null);
+            }
+        }
+        return new LocalStore.Write(COLLECTION, userProject.getId(), userProject);
+    }
+
+    @Override
+    public CompletableFuture<Void> addProgressUpdate(String id, String progressUpdate) {
+        return LocalStore.supply(() -> {
+            require(store.update(COLLECTION, id, UserProject.class, stored -> {
+                if (stored.getProgressUpdates() == null) {
+                    stored.setProgressUpdates(new ArrayList<>());
+                }
+                stored.getProgressUpdates().add(progressUpdate);
+                return stored;
+            }));
+            return null;
+        });
+    }
+
+    // Every write to the embedded store goes through this process's services, which see it already
+    @Override
+    public void watchChanges(Consumer<String> listener) {
+    }
+
+    private static UserProject require(UserProject userProject) {
+        if (userProject == null) {
+            throw new RuntimeException("Project not found");
+        }
+        return userProject;
+    }
+}
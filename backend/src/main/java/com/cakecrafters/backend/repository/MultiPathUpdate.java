@@ -0,0 +1,52 @@
+package com.cakecrafters.backend.repository;
+
+import com.google.firebase.database.DatabaseReference;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+// Collects writes to several paths (a document and its denormalized copies) and commits them atomically
+// with a single updateChildren call on the root.
+final class MultiPathUpdate {
+
+    private final Map<String, Object> updates = new HashMap<>();
+
+    // Replaces the whole node at path; null removes it
+    MultiPathUpdate set(String path, Object value) {
+        updates.put(path, value);
+        return this;
+    }
+
+    // Writes each field of the model under path, leaving sibling children (and the skipped fields) alone
+    MultiPathUpdate setFields(String path, Object model, String... skipped) {
+        Set<String> skip = Set.of(skipped);
+        KeyedChildren.fields(model).forEach((field, value) -> {
+            if (!skip.contains(field)) {
+                updates.put(path + "/" + field, value);
+            }
+        });
+        return this;
+    }
+
+    boolean isEmpty() {
+        return updates.isEmpty();
+    }
+
+    Map<String, Object> updates() {
+        return updates;
+    }
+
+    CompletableFuture<Void> commit(DatabaseReference root) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        root.updateChildren(updates, (error, ref) -> {
+            if (error == null) {
+                future.complete(null);
+            } else {
+                future.completeExceptionally(new RuntimeException(error.getMessage()));
+            }
+        });
+        return future;
+    }
+}
@@ -0,0 +1,101 @@
+package com.cakecrafters.backend.repository;
+
+import com.cakecrafters.backend.model.Comment;
+import com.cakecrafters.backend.model.Post;
+import com.cakecrafters.backend.model.PostEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+// Turns whole-post versions into fine-grained events by comparing each one with a digest of the previous version:
+// its counters, a hash of its own fields and a hash per comment. Only the digests are kept, not the posts.
+final class PostChangeTracker {
+
+    private static final Logger logger = LoggerFactory.getLogger(PostChangeTracker.class);
+
+    private record Digest(int likesCount, int dislikesCount, int content, Map<String, Integer> comments) {}
+
+    private final Map<String, Digest> known = new HashMap<>();
+    private final List<Consumer<PostEvent>> listeners = new CopyOnWriteArrayList<>();
+
+    void addListener(Consumer<PostEvent> listener) {
+        listeners.add(listener);
+    }
+
+    // Records the post as the current version without reporting anything
+    synchronized void seed(Post post) {
+        known.put(post.getPostId(), digest(post));
+    }
+
+    synchronized void changed(Post post) {
+        Digest next = digest(post);
+        Digest previous = known.put(post.getPostId(), next);
+        if (previous == null) {
+            emit(PostEvent.postChanged(PostEvent.POST_CREATED, post));
+            for (Map.Entry<String, Comment> comment : comments(post).entrySet()) {
+                emit(PostEvent.commentChanged(PostEvent.COMMENT_ADDED, post.getPostId(), comment.getKey(), comment.getValue()));
+            }
+            return;
+        }
+        if (previous.content() != next.content()) {
+            emit(PostEvent.postChanged(PostEvent.POST_UPDATED, post));
+        }
+        if (previous.likesCount() != next.likesCount() || previous.dislikesCount() != next.dislikesCount()) {
+            emit(PostEvent.likesChanged(post));
+        }
+        for (Map.Entry<String, Comment> comment : comments(post).entrySet()) {
+            Integer before = previous.comments().get(comment.getKey());
+            if (before == null) {
+                emit(PostEvent.commentChanged(PostEvent.COMMENT_ADDED, post.getPostId(), comment.getKey(), comment.getValue()));
+            } else if (before != next.comments().get(comment.getKey()).intValue()) {
+                emit(PostEvent.commentChanged(PostEvent.COMMENT_UPDATED, post.getPostId(), comment.getKey(), comment.getValue()));
+            }
+        }
+        for (String commentId : previous.comments().keySet()) {
+            if (!next.comments().containsKey(commentId)) {
+                emit(PostEvent.commentChanged(PostEvent.COMMENT_DELETED, post.getPostId(), commentId, null));
+            }
+        }
+    }
+
+    synchronized void removed(String postId) {
+        if (known.remove(postId) != null) {
+            emit(PostEvent.postDeleted(postId));
+        }
+    }
+
+    // The engine stopped reporting changes; listeners get a null event
+    void lost() {
+        emit(null);
+    }
+
+    private void emit(PostEvent event) {
+        for (Consumer<PostEvent> listener : listeners) {
+            try {
+                listener.accept(event);
+            } catch (RuntimeException e) {
+                logger.warn("Post change listener failed", e);
+            }
+        }
+    }
+
+    private static Digest digest(Post post) {
+        Map<String, Integer> comments = new HashMap<>();
+        for (Map.Entry<String, Comment> comment : comments(post).entrySet()) {
+            Comment value = comment.getValue();
+            comments.put(comment.getKey(), Objects.hash(value.getContent(), value.getUserId(), value.getCreatedAt()));
+        }
+        int content = Objects.hash(post.getDescription(), post.getMediaUrls(), post.getOwnerId());
+        return new Digest(post.getLikesCount(), post.getDislikesCount(), content, comments);
+    }
+
+    private static Map<String, Comment> comments(Post post) {
+        return post.getComments() != null ? post.getComments() : Map.of();
+    }
+}
@@ -0,0 +1,49 @@
+package com.cakecrafters.backend.repository;
+
+import com.cakecrafters.backend.model.BatchOperation;
+import com.cakecrafters.backend.model.Comment;
+import com.cakecrafters.backend.model.CursorPage;
+import com.cakecrafters.backend.model.Post;
+import com.cakecrafters.backend.model.PostEvent;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+// Storage for community posts; the implementation is chosen by cakecrafters.storage.engine
+public interface PostRepository {
+
+    // Assigns the post id and completes with it
+    CompletableFuture<String> create(Post post);
+
+    CompletableFuture<Post> findById(String postId);
+
+    CompletableFuture<List<Post>> findAll();
+
+    CompletableFuture<CursorPage<Post>> findPage(int limit, String after);
+
+    CompletableFuture<Void> update(String postId, Post post);
+
+    CompletableFuture<Void> delete(String postId);
+
+    // Applies already validated operations as one atomic write; created documents get their ids assigned. Completes
+    // with the ids of update and delete targets that do not exist, whose operations are left out of the write.
+    CompletableFuture<Set<String>> applyBatch(List<BatchOperation<Post>> operations);
+
+    CompletableFuture<Void> like(String postId);
+
+    CompletableFuture<Void> dislike(String postId);
+
+    // Assigns the comment id and completes with it
+    CompletableFuture<String> addComment(String postId, Comment comment);
+
+    CompletableFuture<Void> updateComment(String postId, String commentId, Comment comment);
+
+    CompletableFuture<Void> deleteComment(String postId, String commentId);
+
+    // Reports every later change to posts as fine-grained events, including changes made by other instances
+    // where the engine pushes them; listeners are called on the thread that observed the change. A null event means
+    // the reports have stopped, so later changes can go unreported.
+    void watch(Consumer<PostEvent> listener);
+}
@@ -0,0 +1,278 @@
+package com.cakecrafters.backend.repository;
+
+import com.cakecrafters.backend.model.CursorPage;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.firebase.database.*;
+import com.google.firebase.database.snapshot.IndexedNode;
+import com.google.firebase.database.snapshot.NodeUtilities;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+// Last known state of one collection, kept on disk so a restarted instance can answer list reads before its first
+// download finishes. The file is memory-mapped on start and each document stays a slice of the mapping until it
+// changes. A ChildEventListener then reconciles with the database in the background: its initial events bring every
+// live document, and the value event that follows them drops the ones deleted while this instance was down. From
+// then on reads go to the database as usual and the listener keeps the state current for the next file, which is
+// rewritten whole (so compacted) when it has changed.
+//
+// File layout: magic, sync marker (epoch millis of the last completed reconcile), count, then per document the
+// UTF-8 key and the document's JSON export, each preceded by its length.
+public class SnapshotCache<T> {
+
+    private static final Logger logger = LoggerFactory.getLogger(SnapshotCache.class);
+    private static final int MAGIC = 0x43435331;
+
+    private final String name;
+    private final DatabaseReference collection;
+    private final Function<DataSnapshot, T> mapper;
+    private final Path file;
+    private final ObjectMapper objectMapper;
+    private final NavigableMap<String, ByteBuffer> documents = new ConcurrentSkipListMap<>();
+    private final AtomicBoolean dirty = new AtomicBoolean();
+    private final ChildEventListener listener;
+    private final CompletableFuture<Void> reconciled = new CompletableFuture<>();
+    private volatile long syncedAt;
+    private volatile boolean serving;
+    private volatile boolean tracking = true;
+
+    SnapshotCache(DatabaseReference collection, Function<DataSnapshot, T> mapper, Path file, long maxAgeMs, ObjectMapper objectMapper) {
+        this.name = collection.getKey();
+        this.collection = collection;
+        this.mapper = mapper;
+        this.file = file;
+        this.objectMapper = objectMapper;
+        load();
+        long age = System.currentTimeMillis() - syncedAt;
+        this.serving = !documents.isEmpty() && age <= maxAgeMs;
+        if (serving) {
+            logger.info("Serving {} {} from {} until reconciled (synced {} s ago)", documents.size(), name, file, age / 1000);
+        }
+        this.listener = new ChildEventListener() {
+            @Override
+            public void onChildAdded(DataSnapshot snapshot, String previousChildName) {
+                store(snapshot);
+            }
+
+            @Override
+            public void onChildChanged(DataSnapshot snapshot, String previousChildName) {
+                store(snapshot);
+            }
+
+            @Override
+            public void onChildRemoved(DataSnapshot snapshot) {
+                documents.remove(snapshot.getKey());
+                dirty.set(true);
+            }
+
+            @Override
+            public void onChildMoved(DataSnapshot snapshot, String previousChildName) {
+            }
+
+            @Override
+            public void onCancelled(DatabaseError error) {
+                // Without change events the file would go stale, so stop serving and writing it
+                logger.error("Snapshot listener on {} cancelled: {}", name, error.getMessage());
+                tracking = false;
+                serving = false;
+                reconciled.complete(null);
+            }
+        };
+        collection.addChildEventListener(listener);
+        // Value events are raised after the child events for the same data, so this sees every initial add
+        collection.addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(DataSnapshot snapshot) {
+                Set<String> live = new HashSet<>();
+                for (DataSnapshot child : snapshot.getChildren()) {
+                    live.add(child.getKey());
+                }
+                documents.keySet().retainAll(live);
+                syncedAt = System.currentTimeMillis();
+                serving = false;
+                dirty.set(true);
+                logger.info("Reconciled {} snapshot: {} documents", name, documents.size());
+                reconciled.complete(null);
+            }
+
+            @Override
+            public void onCancelled(DatabaseError error) {
+                logger.error("Snapshot reconcile of {} cancelled: {}", name, error.getMessage());
+                serving = false;
+                reconciled.complete(null);
+            }
+        });
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    // True from start until the first reconcile, when there is a fresh enough file to answer from
+    public boolean isServing() {
+        return serving;
+    }
+
+    // Completes once reads go back to the database, whether or not the reconcile succeeded
+    public CompletableFuture<Void> reconciled() {
+        return reconciled;
+    }
+
+    public List<T> list() {
+        return list(Function.identity());
+    }
+
+    public <R> List<R> list(Function<T, R> view) {
+        List<R> items = new ArrayList<>();
+        for (Map.Entry<String, ByteBuffer> entry : documents.entrySet()) {
+            T document = decode(entry.getKey(), entry.getValue());
+            if (document != null) {
+                items.add(view.apply(document));
+            }
+        }
+        return items;
+    }
+
+    public CursorPage<T> page(int limit, String after) {
+        return page(limit, after, Function.identity());
+    }
+
+    // Same keyset scheme as the Firebase pages: key order, starting after the cursor
+    public <R> CursorPage<R> page(int limit, String after, Function<T, R> view) {
+        int pageSize = CursorPage.clampLimit(limit);
+        NavigableMap<String, ByteBuffer> tail = after == null ? documents : documents.tailMap(after, false);
+        List<R> items = new ArrayList<>();
+        String lastKey = null;
+        String nextCursor = null;
+        for (Map.Entry<String, ByteBuffer> entry : tail.entrySet()) {
+            if (items.size() == pageSize) {
+                nextCursor = lastKey;
+                break;
+            }
+            T document = decode(entry.getKey(), entry.getValue());
+            if (document != null) {
+                items.add(view.apply(document));
+                lastKey = entry.getKey();
+            }
+        }
+        return new CursorPage<>(items, nextCursor);
+    }
+
+    // Rewrites the file with the current documents, then swaps it in atomically; the old mapping stays valid for
+    // the slices still pointing into it
+    synchronized void write() throws IOException {
+        if (!tracking || !dirty.getAndSet(false)) {
+            return;
+        }
+        try {
+            rewrite();
+        } catch (IOException | RuntimeException e) {
+            dirty.set(true);
+            throw e;
+        }
+    }
+
+    private void rewrite() throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        // Copied first: the count goes ahead of the entries and the listener may change the map meanwhile
+        List<Map.Entry<String, ByteBuffer>> entries = new ArrayList<>(documents.entrySet());
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeLong(syncedAt);
+            out.writeInt(entries.size());
+            for (Map.Entry<String, ByteBuffer> entry : entries) {
+                byte[] key = entry.getKey().getBytes(StandardCharsets.UTF_8);
+                byte[] value = bytes(entry.getValue());
+                out.writeInt(key.length);
+                out.write(key);
+                out.writeInt(value.length);
+                out.write(value);
+            }
+        }
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        logger.debug("Wrote {} {} to {}", entries.size(), name, file);
+    }
+
+    void close() {
+        collection.removeEventListener(listener);
+    }
+
+    private void store(DataSnapshot snapshot) {
+        try {
+            documents.put(snapshot.getKey(), ByteBuffer.wrap(objectMapper.writeValueAsBytes(snapshot.getValue(true))));
+            dirty.set(true);
+        } catch (IOException e) {
+            logger.warn("Failed to encode {}/{} for the snapshot", name, snapshot.getKey(), e);
+        }
+    }
+
+    private T decode(String key, ByteBuffer value) {
+        try {
+            Object tree = objectMapper.readValue(bytes(value), Object.class);
+            return mapper.apply(InternalHelpers.createDataSnapshot(collection.child(key), IndexedNode.from(NodeUtilities.NodeFromJSON(tree))));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unreadable document " + key + " in " + file, e);
+        }
+    }
+
+    // Absolute reads, since slices of the mapping are shared between threads
+    private static byte[] bytes(ByteBuffer value) {
+        if (value.hasArray() && value.arrayOffset() == 0 && value.capacity() == value.remaining()) {
+            return value.array();
+        }
+        byte[] bytes = new byte[value.remaining()];
+        value.get(value.position(), bytes);
+        return bytes;
+    }
+
+    private void load() {
+        if (!Files.exists(file)) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // The mapping outlives the channel
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("Not a snapshot file");
+            }
+            long marker = buffer.getLong();
+            int count = buffer.getInt();
+            for (int i = 0; i < count; i++) {
+                byte[] key = new byte[buffer.getInt()];
+                buffer.get(key);
+                int length = buffer.getInt();
+                documents.put(new String(key, StandardCharsets.UTF_8), buffer.slice(buffer.position(), length));
+                buffer.position(buffer.position() + length);
+            }
+            syncedAt = marker;
+        } catch (IOException | RuntimeException e) {
+            // A damaged file only costs the head start
+            logger.warn("Ignoring unreadable snapshot {}", file, e);
+            documents.clear();
+        }
+    }
+}
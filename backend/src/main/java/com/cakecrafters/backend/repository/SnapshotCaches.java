@@ -0,0 +1,98 @@
+package com.cakecrafters.backend.repository;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseReference;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+// Creates the per-collection snapshot caches and rewrites the changed ones on a fixed interval and at shutdown
+@Component
+public class SnapshotCaches {
+
+    private static final Logger logger = LoggerFactory.getLogger(SnapshotCaches.class);
+
+    private final boolean enabled;
+    private final Path directory;
+    private final long maxAgeMs;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<SnapshotCache<?>> caches = new CopyOnWriteArrayList<>();
+    private final ScheduledExecutorService scheduler;
+
+    public SnapshotCaches(@Value("${cakecrafters.snapshot-cache.enabled:false}") boolean enabled,
+                          @Value("${cakecrafters.snapshot-cache.dir:snapshots}") String directory,
+                          @Value("${cakecrafters.snapshot-cache.write-interval-ms:60000}") long writeIntervalMs,
+                          @Value("${cakecrafters.snapshot-cache.max-age-ms:86400000}") long maxAgeMs) {
+        this.enabled = enabled;
+        this.directory = Paths.get(directory).toAbsolutePath();
+        this.maxAgeMs = maxAgeMs;
+        if (enabled) {
+            try {
+                Files.createDirectories(this.directory);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to create " + this.directory, e);
+            }
+            this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "snapshot-cache");
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.scheduler.scheduleWithFixedDelay(this::writeAll, writeIntervalMs, writeIntervalMs, TimeUnit.MILLISECONDS);
+        } else {
+            this.scheduler = null;
+        }
+    }
+
+    // Returns null when disabled; list reads then always go to the database
+    public <T> SnapshotCache<T> create(DatabaseReference collection, Function<DataSnapshot, T> mapper) {
+        if (!enabled) {
+            return null;
+        }
+        SnapshotCache<T> cache = new SnapshotCache<>(collection, mapper, directory.resolve(collection.getKey() + ".snapshot"),
+                maxAgeMs, objectMapper);
+        caches.add(cache);
+        return cache;
+    }
+
+    // Completes when no list read is answered from a snapshot file any more. State built once at startup from
+    // list reads (the search, facet and leaderboard indexes) waits for this so that it does not start out stale.
+    public CompletableFuture<Void> reconciled() {
+        return CompletableFuture.allOf(caches.stream().map(SnapshotCache::reconciled).toArray(CompletableFuture[]::new));
+    }
+
+    private void writeAll() {
+        for (SnapshotCache<?> cache : caches) {
+            try {
+                cache.write();
+            } catch (IOException | RuntimeException e) {
+                logger.warn("Failed to write the {} snapshot", cache.getName(), e);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        if (scheduler == null) {
+            return;
+        }
+        scheduler.shutdown();
+        caches.forEach(SnapshotCache::close);
+        writeAll();
+    }
+}
@@ -0,0 +1,301 @@
+package com.cakecrafters.backend.repository;
+
+import com.cakecrafters.backend.model.CakeDecTip;
+import com.cakecrafters.backend.model.CakeDecTipSummary;
+import com.cakecrafters.backend.model.CakeRecipe;
+import com.cakecrafters.backend.model.CakeRecipeSummary;
+import com.cakecrafters.backend.model.Comment;
+import com.cakecrafters.backend.model.Post;
+import com.cakecrafters.backend.model.UserProject;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.snapshot.IndexedNode;
+import com.google.firebase.database.snapshot.NamedNode;
+import com.google.firebase.database.snapshot.Node;
+import com.google.firebase.database.snapshot.NodeUtilities;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Hand-written replacements for DataSnapshot.getValue(type). getValue first turns the whole node into a tree of maps
+// and lists and then fills the bean through reflection; these walk the SDK's immutable node tree under the snapshot
+// once and set the fields directly. (Walking child DataSnapshots instead allocates a reference and a path per
+// field, more than the map tree.) They accept what the Firebase mapper accepts for these models, leniently: unknown
+// fields are ignored, numbers are narrowed to int and scalars are read as strings where a string is expected.
+// The id comes from the key.
+public final class SnapshotMappers {
+
+    private static final Logger logger = LoggerFactory.getLogger(SnapshotMappers.class);
+
+    // DataSnapshot does not expose its node; without access it is rebuilt from getValue(), correct but slower
+    private static final VarHandle NODE = nodeHandle();
+
+    // Facet values repeat across every document, so one copy of each is shared. Bounded, in case a field that was
+    // expected to be small turns out not to be.
+    private static final int MAX_INTERNED = 4096;
+    private static final int MAX_INTERNED_LENGTH = 64;
+    private static final Map<String, String> interned = new ConcurrentHashMap<>();
+
+    private SnapshotMappers() {}
+
+    public static CakeRecipe recipe(DataSnapshot snapshot) {
+        Node node = node(snapshot);
+        if (node.isLeafNode() || node.isEmpty()) {
+            return null;
+        }
+        CakeRecipe recipe = new CakeRecipe();
+        recipe.setId(snapshot.getKey());
+        for (NamedNode field : node) {
+            switch (field.getName().asString()) {
+                case "authorName" -> recipe.setAuthorName(string(field.getNode()));
+                case "cakeName" -> recipe.setCakeName(string(field.getNode()));
+                case "subTitle" -> recipe.setSubTitle(string(field.getNode()));
+                case "cakeType" -> recipe.setCakeType(interned(field.getNode()));
+                case "skillLevel" -> recipe.setSkillLevel(interned(field.getNode()));
+                case "prepTime" -> recipe.setPrepTime(string(field.getNode()));
+                case "cookTime" -> recipe.setCookTime(string(field.getNode()));
+                case "servings" -> recipe.setServings(integer(field.getNode()));
+                case "ingredients" -> recipe.setIngredients(string(field.getNode()));
+                case "instructions" -> recipe.setInstructions(string(field.getNode()));
+                case "date" -> recipe.setDate(string(field.getNode()));
+                case "images" -> recipe.setImages(strings(field.getNode()));
+                case "likes" -> recipe.setLikes(integer(field.getNode()));
+                case "comments" -> recipe.setComments(strings(field.getNode()));
+                default -> {}
+            }
+        }
+        // A document without a comments child has none
+        if (recipe.getComments() == null) {
+            recipe.setComments(new ArrayList<>());
+        }
+        return recipe;
+    }
+
+    public static CakeRecipeSummary recipeSummary(DataSnapshot snapshot) {
+        Node node = node(snapshot);
+        if (node.isLeafNode() || node.isEmpty()) {
+            return null;
+        }
+        CakeRecipeSummary summary = new CakeRecipeSummary();
+        summary.setId(snapshot.getKey());
+        for (NamedNode field : node) {
+            switch (field.getName().asString()) {
+                case "cakeName" -> summary.setCakeName(string(field.getNode()));
+                case "subTitle" -> summary.setSubTitle(string(field.getNode()));
+                case "authorName" -> summary.setAuthorName(string(field.getNode()));
+                case "cakeType" -> summary.setCakeType(interned(field.getNode()));
+                case "skillLevel" -> summary.setSkillLevel(interned(field.getNode()));
+                case "date" -> summary.setDate(string(field.getNode()));
+                case "likes" -> summary.setLikes(integer(field.getNode()));
+                case "thumbnail" -> summary.setThumbnail(string(field.getNode()));
+                default -> {}
+            }
+        }
+        return summary;
+    }
+
+    public static CakeDecTip tip(DataSnapshot snapshot) {
+        Node node = node(snapshot);
+        if (node.isLeafNode() || node.isEmpty()) {
+            return null;
+        }
+        CakeDecTip tip = new CakeDecTip();
+        tip.setId(snapshot.getKey());
+        for (NamedNode field : node) {
+            switch (field.getName().asString()) {
+                case "title" -> tip.setTitle(string(field.getNode()));
+                case "description" -> tip.setDescription(string(field.getNode()));
+                case "category" -> tip.setCategory(interned(field.getNode()));
+                case "difficulty" -> tip.setDifficulty(interned(field.getNode()));
+                case "media" -> tip.setMedia(strings(field.getNode()));
+                case "author" -> tip.setAuthor(string(field.getNode()));
+                case "tip" -> tip.setTip(string(field.getNode()));
+                case "mediaType" -> tip.setMediaType(interned(field.getNode()));
+                case "createdAt" -> tip.setCreatedAt(string(field.getNode()));
+                case "likes" -> tip.setLikes(integer(field.getNode()));
+                case "comments" -> tip.setComments(tipComments(field.getNode()));
+                default -> {}
+            }
+        }
+        if (tip.getComments() == null) {
+            tip.setComments(new ArrayList<>());
+        }
+        return tip;
+    }
+
+    // The key is the comment id; legacy list-shaped nodes are keyed by index, which edit and delete accept too
+    private static List<CakeDecTip.Comment> tipComments(Node node) {
+        List<CakeDecTip.Comment> comments = new ArrayList<>();
+        for (NamedNode child : node) {
+            if (child.getNode().isLeafNode()) {
+                continue;
+            }
+            CakeDecTip.Comment comment = new CakeDecTip.Comment();
+            for (NamedNode field : child.getNode()) {
+                switch (field.getName().asString()) {
+                    case "text" -> comment.setText(string(field.getNode()));
+                    case "author" -> comment.setAuthor(string(field.getNode()));
+                    case "createdAt" -> comment.setCreatedAt(string(field.getNode()));
+                    default -> {}
+                }
+            }
+            comment.setId(child.getName().asString());
+            comments.add(comment);
+        }
+        return comments;
+    }
+
+    public static CakeDecTipSummary tipSummary(DataSnapshot snapshot) {
+        Node node = node(snapshot);
+        if (node.isLeafNode() || node.isEmpty()) {
+            return null;
+        }
+        CakeDecTipSummary summary = new CakeDecTipSummary();
+        summary.setId(snapshot.getKey());
+        for (NamedNode field : node) {
+            switch (field.getName().asString()) {
+                case "title" -> summary.setTitle(string(field.getNode()));
+                case "author" -> summary.setAuthor(string(field.getNode()));
+                case "category" -> summary.setCategory(interned(field.getNode()));
+                case "difficulty" -> summary.setDifficulty(interned(field.getNode()));
+                case "mediaType" -> summary.setMediaType(interned(field.getNode()));
+                case "createdAt" -> summary.setCreatedAt(string(field.getNode()));
+                case "likes" -> summary.setLikes(integer(field.getNode()));
+                case "thumbnail" -> summary.setThumbnail(string(field.getNode()));
+                default -> {}
+            }
+        }
+        return summary;
+    }
+
+    public static UserProject userProject(DataSnapshot snapshot) {
+        Node node = node(snapshot);
+        if (node.isLeafNode() || node.isEmpty()) {
+            return null;
+        }
+        UserProject project = new UserProject();
+        project.setId(snapshot.getKey());
+        for (NamedNode field : node) {
+            switch (field.getName().asString()) {
+                case "userId" -> project.setUserId(string(field.getNode()));
+                case "title" -> project.setTitle(string(field.getNode()));
+                case "description" -> project.setDescription(string(field.getNode()));
+                case "progressUpdates" -> project.setProgressUpdates(strings(field.getNode()));
+                case "date" -> project.setDate(string(field.getNode()));
+                default -> {}
+            }
+        }
+        if (project.getProgressUpdates() == null) {
+            project.setProgressUpdates(new ArrayList<>());
+        }
+        return project;
+    }
+
+    public static Post post(DataSnapshot snapshot) {
+        Node node = node(snapshot);
+        if (node.isLeafNode() || node.isEmpty()) {
+            return null;
+        }
+        Post post = new Post();
+        post.setPostId(snapshot.getKey());
+        for (NamedNode field : node) {
+            switch (field.getName().asString()) {
+                case "description" -> post.setDescription(string(field.getNode()));
+                case "mediaUrls" -> post.setMediaUrls(strings(field.getNode()));
+                case "ownerId" -> post.setOwnerId(string(field.getNode()));
+                case "likesCount" -> post.setLikesCount(integer(field.getNode()));
+                case "dislikesCount" -> post.setDislikesCount(integer(field.getNode()));
+                case "comments" -> post.setComments(postComments(field.getNode()));
+                default -> {}
+            }
+        }
+        return post;
+    }
+
+    private static Map<String, Comment> postComments(Node node) {
+        Map<String, Comment> comments = new LinkedHashMap<>();
+        for (NamedNode child : node) {
+            if (child.getNode().isLeafNode()) {
+                continue;
+            }
+            Comment comment = new Comment();
+            for (NamedNode field : child.getNode()) {
+                switch (field.getName().asString()) {
+                    case "commentId" -> comment.setCommentId(string(field.getNode()));
+                    case "postId" -> comment.setPostId(string(field.getNode()));
+                    case "userId" -> comment.setUserId(string(field.getNode()));
+                    case "content" -> comment.setContent(string(field.getNode()));
+                    case "createdAt" -> comment.setCreatedAt(string(field.getNode()));
+                    default -> {}
+                }
+            }
+            comments.put(child.getName().asString(), comment);
+        }
+        return comments;
+    }
+
+    // Lists are stored as index-keyed nodes and child collections as push-keyed ones. Legacy list-shaped child
+    // collections have numeric keys, which sort before push keys, so old and new entries come back in the order
+    // they were written.
+    private static List<String> strings(Node node) {
+        List<String> values = new ArrayList<>(node.getChildCount());
+        for (NamedNode child : node) {
+            String value = string(child.getNode());
+            if (value != null) {
+                values.add(value);
+            }
+        }
+        return values;
+    }
+
+    private static String string(Node field) {
+        if (!field.isLeafNode()) {
+            return null;
+        }
+        Object value = field.getValue();
+        return value instanceof String text ? text : value.toString();
+    }
+
+    private static int integer(Node field) {
+        return field.isLeafNode() && field.getValue() instanceof Number number ? number.intValue() : 0;
+    }
+
+    private static String interned(Node field) {
+        String value = string(field);
+        if (value == null || value.length() > MAX_INTERNED_LENGTH) {
+            return value;
+        }
+        String shared = interned.get(value);
+        if (shared != null) {
+            return shared;
+        }
+        if (interned.size() >= MAX_INTERNED) {
+            return value;
+        }
+        shared = interned.putIfAbsent(value, value);
+        return shared != null ? shared : value;
+    }
+
+    private static Node node(DataSnapshot snapshot) {
+        if (NODE != null) {
+            return ((IndexedNode) NODE.get(snapshot)).getNode();
+        }
+        return NodeUtilities.NodeFromJSON(snapshot.getValue(true));
+    }
+
+    private static VarHandle nodeHandle() {
+        try {
+            return MethodHandles.privateLookupIn(DataSnapshot.class, MethodHandles.lookup())
+                    .findVarHandle(DataSnapshot.class, "node", IndexedNode.class);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            logger.warn("Cannot read DataSnapshot nodes directly; snapshots will be mapped through getValue()", e);
+            return null;
+        }
+    }
+}
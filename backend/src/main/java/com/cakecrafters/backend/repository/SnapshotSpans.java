@@ -0,0 +1,47 @@
+package com.cakecrafters.backend.repository;
+
+import com.google.firebase.database.DataSnapshot;
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Supplier;
+
+// Firebase delivers snapshots on its own event thread, where no trace is current. A read captures the current span
+// (the database call's) as it registers its listener, and the callback maps the snapshot in a child of it. The
+// parent is marked when the snapshot arrives, splitting the call into round trip, mapping and what follows.
+@Component
+class SnapshotSpans {
+
+    private final Tracer tracer;
+
+    SnapshotSpans(Tracer tracer) {
+        this.tracer = tracer;
+    }
+
+    // On the calling thread; null outside a trace
+    Span current() {
+        return tracer.currentSpan();
+    }
+
+    // On the callback thread
+    <T> T map(Span parent, DataSnapshot snapshot, Supplier<T> mapping) {
+        if (parent == null) {
+            return mapping.get();
+        }
+        parent.event("snapshot received");
+        Span span = tracer.nextSpan(parent)
+                .name("map snapshot")
+                .tag("db.path", snapshot.getRef().getPath().toString())
+                .tag("db.children", Long.toString(snapshot.getChildrenCount()))
+                .start();
+        try (Tracer.SpanInScope scope = tracer.withSpan(span)) {
+            return mapping.get();
+        } catch (RuntimeException e) {
+            span.error(e);
+            throw e;
+        } finally {
+            span.end();
+        }
+    }
+}
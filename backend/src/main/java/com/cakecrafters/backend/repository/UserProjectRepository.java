@@ -0,0 +1,38 @@
+package com.cakecrafters.backend.repository;
+
+import com.cakecrafters.backend.model.BatchOperation;
+import com.cakecrafters.backend.model.CursorPage;
+import com.cakecrafters.backend.model.UserProject;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+// Storage for user projects; the implementation is chosen by cakecrafters.storage.engine
+public interface UserProjectRepository {
+
+    // Assigns the id and stores the project together with its progress updates
+    CompletableFuture<UserProject> create(UserProject userProject);
+
+    CompletableFuture<UserProject> findById(String id);
+
+    CompletableFuture<List<UserProject>> findAll();
+
+    CompletableFuture<CursorPage<UserProject>> findPage(int limit, String after);
+
+    // Replaces the document fields but keeps the stored progress updates
+    CompletableFuture<UserProject> update(String id, UserProject userProject);
+
+    CompletableFuture<Void> delete(String id);
+
+    // Applies already validated operations as one atomic write; created documents get their ids assigned. Completes
+    // with the ids of update and delete targets that do not exist, whose operations are left out of the write.
+    CompletableFuture<Set<String>> applyBatch(List<BatchOperation<UserProject>> operations);
+
+    CompletableFuture<Void> addProgressUpdate(String id, String progressUpdate);
+
+    // Reports the id of each document the database says was added, changed or removed, including by other
+    // instances, where the engine pushes such changes; null means reports have stopped
+    void watchChanges(Consumer<String> listener);
+}
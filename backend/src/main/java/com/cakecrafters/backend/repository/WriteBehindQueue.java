@@ -0,0 +1,202 @@
+package com.cakecrafters.backend.repository;
+
+import com.cakecrafters.backend.service.BulkheadFullException;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.FirebaseDatabase;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+// Group commit for create and update traffic. When enabled, writes are queued and a single writer thread merges
+// whatever arrives within a short window (or until a batch is full) into one updateChildren call on the root, so a
+// burst of creates costs one round trip instead of one each. Every caller still gets its own future, completed
+// when the batch holding its write is acknowledged; a batch fails or succeeds as a whole. A full queue rejects the
+// write straight away. When disabled, each update is committed on its own as before.
+@Component
+@ConditionalOnProperty(name = "cakecrafters.storage.engine", havingValue = "firebase", matchIfMissing = true)
+public class WriteBehindQueue {
+
+    private static final Logger logger = LoggerFactory.getLogger(WriteBehindQueue.class);
+    static final String BATCH_SIZE = "cakecrafters.write-behind.batch.size";
+    static final String COMMITS = "cakecrafters.write-behind.commits";
+    static final String QUEUED = "cakecrafters.write-behind.queued";
+
+    private record PendingWrite(Map<String, Object> updates, CompletableFuture<Void> future) {}
+
+    private final DatabaseReference root;
+    private final BlockingQueue<PendingWrite> queue;
+    private final int maxBatch;
+    private final long windowNanos;
+    private final MeterRegistry registry;
+    private final DistributionSummary batchSizes;
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    public WriteBehindQueue(@Value("${cakecrafters.write-behind.enabled:false}") boolean enabled,
+                            @Value("${cakecrafters.write-behind.queue-size:1024}") int queueSize,
+                            @Value("${cakecrafters.write-behind.max-batch:64}") int maxBatch,
+                            @Value("${cakecrafters.write-behind.window-ms:5}") long windowMs,
+                            MeterRegistry registry) {
+        this(FirebaseDatabase.getInstance().getReference(), enabled, queueSize, maxBatch, windowMs, registry);
+    }
+
+    WriteBehindQueue(DatabaseReference root, boolean enabled, int queueSize, int maxBatch, long windowMs, MeterRegistry registry) {
+        this.root = root;
+        this.maxBatch = maxBatch;
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMs);
+        this.registry = registry;
+        this.batchSizes = DistributionSummary.builder(BATCH_SIZE)
+                .description("Writes merged into one updateChildren call")
+                .publishPercentileHistogram()
+                .register(registry);
+        if (enabled) {
+            this.queue = new ArrayBlockingQueue<>(queueSize);
+            Gauge.builder(QUEUED, queue, BlockingQueue::size).register(registry);
+            this.writer = new Thread(this::drain, "write-behind");
+            this.writer.setDaemon(true);
+            this.writer.start();
+        } else {
+            this.queue = null;
+            this.writer = null;
+        }
+    }
+
+    // Paths in the update are relative to the root
+    CompletableFuture<Void> submit(MultiPathUpdate update) {
+        if (update.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        if (queue == null) {
+            return update.commit(root);
+        }
+        PendingWrite write = new PendingWrite(update.updates(), new CompletableFuture<>());
+        if (!running || !queue.offer(write)) {
+            return CompletableFuture.failedFuture(new BulkheadFullException("the write-behind queue"));
+        }
+        return write.future();
+    }
+
+    private void drain() {
+        List<PendingWrite> batch = new ArrayList<>(maxBatch);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingWrite first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                // The window opens with the first write, so a lone write waits at most windowMs
+                long deadline = System.nanoTime() + windowNanos;
+                while (batch.size() < maxBatch) {
+                    long remaining = deadline - System.nanoTime();
+                    PendingWrite next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                // Shutting down; whatever is still queued is committed by the next iterations
+                running = false;
+            }
+            if (!batch.isEmpty()) {
+                commit(batch);
+                batch = new ArrayList<>(maxBatch);
+            }
+        }
+    }
+
+    // updateChildren rejects a batch where one path is inside another, so such a write starts a new batch instead
+    private void commit(List<PendingWrite> writes) {
+        Map<String, Object> updates = new HashMap<>();
+        Set<String> ancestors = new HashSet<>();
+        List<PendingWrite> batch = new ArrayList<>(writes.size());
+        for (PendingWrite write : writes) {
+            if (conflicts(write.updates(), updates, ancestors)) {
+                send(batch, updates);
+                updates = new HashMap<>();
+                ancestors = new HashSet<>();
+                batch = new ArrayList<>();
+            }
+            for (Map.Entry<String, Object> entry : write.updates().entrySet()) {
+                updates.put(entry.getKey(), entry.getValue());
+                String path = entry.getKey();
+                for (int slash = path.indexOf('/'); slash > 0; slash = path.indexOf('/', slash + 1)) {
+                    ancestors.add(path.substring(0, slash));
+                }
+            }
+            batch.add(write);
+        }
+        send(batch, updates);
+    }
+
+    private static boolean conflicts(Map<String, Object> write, Map<String, Object> updates, Set<String> ancestors) {
+        for (String path : write.keySet()) {
+            if (ancestors.contains(path)) {
+                return true;
+            }
+            for (int slash = path.indexOf('/'); slash > 0; slash = path.indexOf('/', slash + 1)) {
+                if (updates.containsKey(path.substring(0, slash))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private void send(List<PendingWrite> batch, Map<String, Object> updates) {
+        batchSizes.record(batch.size());
+        Timer.Sample sample = Timer.start(registry);
+        try {
+            root.updateChildren(updates, (error, ref) -> {
+                sample.stop(commits(error == null ? "SUCCESS" : "ERROR"));
+                for (PendingWrite write : batch) {
+                    if (error == null) {
+                        write.future().complete(null);
+                    } else {
+                        write.future().completeExceptionally(new RuntimeException(error.getMessage()));
+                    }
+                }
+            });
+        } catch (RuntimeException e) {
+            // Invalid values are reported synchronously; the writer must keep going
+            logger.warn("Failed to commit a batch of {} writes", batch.size(), e);
+            sample.stop(commits("ERROR"));
+            batch.forEach(write -> write.future().completeExceptionally(e));
+        }
+    }
+
+    private Timer commits(String outcome) {
+        return Timer.builder(COMMITS)
+                .description("Time from sending a batch to its acknowledgement")
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    @PreDestroy
+    public void close() throws InterruptedException {
+        if (writer != null) {
+            running = false;
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.cakecrafters.backend.service;
+
+import com.cakecrafters.backend.model.BatchOperation;
+import com.cakecrafters.backend.model.BatchResult;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+// The steps the services' bulk writes share: every item is checked on its own, the valid ones go to the
+// repository as one write, and each item gets a result at its position in the request
+final class BatchWrites {
+
+    private BatchWrites() {
+    }
+
+    // prepare runs on each create and update document before the write and may reject it by throwing;
+    // write completes with the update and delete targets it did not find; applied runs for each operation once the
+    // write has succeeded, to keep the indexes current
+    static <T> CompletableFuture<List<BatchResult>> apply(List<BatchOperation<T>> operations,
+                                                          Consumer<T> prepare,
+                                                          Function<List<BatchOperation<T>>, CompletableFuture<Set<String>>> write,
+                                                          Function<T, String> idOf,
+                                                          Consumer<BatchOperation<T>> applied) {
+        BatchResult[] results = new BatchResult[operations.size()];
+        List<BatchOperation<T>> valid = new ArrayList<>();
+        List<Integer> positions = new ArrayList<>();
+        for (int i = 0; i < operations.size(); i++) {
+            BatchOperation<T> operation = operations.get(i);
+            String problem = check(operation);
+            if (problem == null && !BatchOperation.DELETE.equals(operation.getOp())) {
+                try {
+                    prepare.accept(operation.getDocument());
+                } catch (RuntimeException e) {
+                    problem = e.getMessage();
+                }
+            }
+            if (problem != null) {
+                results[i] = new BatchResult(i, operation.getOp(), operation.getId(), BatchResult.INVALID, problem);
+            } else {
+                valid.add(operation);
+                positions.add(i);
+            }
+        }
+        if (valid.isEmpty()) {
+            return CompletableFuture.completedFuture(Arrays.asList(results));
+        }
+        return write.apply(valid).handle((written, throwable) -> {
+            Throwable cause = throwable != null && throwable.getCause() != null ? throwable.getCause() : throwable;
+            // A missed deadline or a full bulkhead says nothing about the items, so it fails the whole call as usual
+            if (cause instanceof TimeoutException || cause instanceof BulkheadFullException) {
+                throw new CompletionException(cause);
+            }
+            for (int k = 0; k < valid.size(); k++) {
+                BatchOperation<T> operation = valid.get(k);
+                int i = positions.get(k);
+                if (cause != null) {
+                    String id = BatchOperation.CREATE.equals(operation.getOp()) ? null : operation.getId();
+                    results[i] = new BatchResult(i, operation.getOp(), id, BatchResult.FAILED, cause.getMessage());
+                } else if (!BatchOperation.CREATE.equals(operation.getOp()) && written.contains(operation.getId())) {
+                    results[i] = new BatchResult(i, operation.getOp(), operation.getId(), BatchResult.NOT_FOUND, "not found");
+                } else {
+                    String id = BatchOperation.DELETE.equals(operation.getOp()) ? operation.getId() : idOf.apply(operation.getDocument());
+                    results[i] = new BatchResult(i, operation.getOp(), id, status(operation.getOp()), null);
+                    applied.accept(operation);
+                }
+            }
+            return Arrays.asList(results);
+        });
+    }
+
+    private static String check(BatchOperation<?> operation) {
+        String op = operation.getOp();
+        if (!BatchOperation.CREATE.equals(op) && !BatchOperation.UPDATE.equals(op) && !BatchOperation.DELETE.equals(op)) {
+            return "op must be create, update or delete";
+        }
+        if (!BatchOperation.CREATE.equals(op) && (operation.getId() == null || operation.getId().isBlank())) {
+            return "id is required for " + op;
+        }
+        // Every id becomes a path segment of the one write, so it must not be able to reach another node
+        if (operation.getId() != null && operation.getId().chars().anyMatch(c -> "/.#$[]".indexOf(c) >= 0)) {
+            return "id must not contain / . # $ [ or ]";
+        }
+        if (!BatchOperation.DELETE.equals(op) && operation.getDocument() == null) {
+            return "document is required for " + op;
+        }
+        return null;
+    }
+
+    private static String status(String op) {
+        return switch (op) {
+            case BatchOperation.CREATE -> BatchResult.CREATED;
+            case BatchOperation.UPDATE -> BatchResult.UPDATED;
+            default -> BatchResult.DELETED;
+        };
+    }
+}
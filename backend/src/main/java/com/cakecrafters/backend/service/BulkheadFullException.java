@@ -0,0 +1,9 @@
+package com.cakecrafters.backend.service;
+
+// Raised without touching the database when a collection already has its maximum number of calls in flight
+public class BulkheadFullException extends RuntimeException {
+
+    public BulkheadFullException(String collection) {
+        super("Too many concurrent requests for " + collection);
+    }
+}
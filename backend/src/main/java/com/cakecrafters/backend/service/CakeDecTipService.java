@@ -1,250 +1,145 @@
 package com.cakecrafters.backend.service;
 
+import com.cakecrafters.backend.model.BatchOperation;
+import com.cakecrafters.backend.model.BatchResult;
 import com.cakecrafters.backend.model.CakeDecTip;
-import com.google.firebase.database.*;
+import com.cakecrafters.backend.model.CakeDecTipSummary;
+import com.cakecrafters.backend.model.CursorPage;
+import com.cakecrafters.backend.repository.CakeDecTipRepository;
 import org.springframework.stereotype.Service;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 
 @Service
 public class CakeDecTipService {
 
-    private final DatabaseReference databaseReference;
+    private final CakeDecTipRepository repository;
+    private final MediaService mediaService;
+    private final DatabaseGuard guard;
+    private final SearchService searchService;
+    private final FacetService facetService;
+    private final LeaderboardService leaderboardService;
+    private final DocumentVersions versions = new DocumentVersions();
+
+    public CakeDecTipService(CakeDecTipRepository repository, MediaService mediaService, DatabaseGuards databaseGuards, SearchService searchService, FacetService facetService, LeaderboardService leaderboardService) {
+        this.repository = repository;
+        this.mediaService = mediaService;
+        this.guard = databaseGuards.forCollection("decorationTips");
+        this.searchService = searchService;
+        this.facetService = facetService;
+        this.leaderboardService = leaderboardService;
+        repository.watchChanges(versions::reported);
+    }
 
-    public CakeDecTipService() {
-        this.databaseReference = FirebaseDatabase.getInstance().getReference("decorationTips");
+    // Validators for conditional reads; every write below moves them once it has finished, failed or not
+    public DocumentVersions versions() {
+        return versions;
     }
 
     public CompletableFuture<CakeDecTip> createTip(CakeDecTip tip) {
-        CompletableFuture<CakeDecTip> future = new CompletableFuture<>();
-        String key = databaseReference.push().getKey();
-        tip.setId(key);
-        databaseReference.child(key).setValue(tip, (error, ref) -> {
-            if (error == null) {
-                future.complete(tip);
-            } else {
-                future.completeExceptionally(new RuntimeException(error.getMessage()));
-            }
-        });
-        return future;
+        tip.setMedia(mediaService.ingest(tip.getMedia()));
+        return guard.call("create", () -> repository.create(tip))
+                .thenApply(created -> {
+                    searchService.indexTip(created);
+                    facetService.indexTip(created);
+                    leaderboardService.indexTip(created);
+                    return created;
+                })
+                .whenComplete((created, throwable) -> versions.changed(tip.getId()));
     }
 
     public CompletableFuture<CakeDecTip> getTip(String id) {
-        CompletableFuture<CakeDecTip> future = new CompletableFuture<>();
-        databaseReference.child(id).addListenerForSingleValueEvent(new ValueEventListener() {
-            @Override
-            public void onDataChange(DataSnapshot snapshot) {
-                CakeDecTip tip = snapshot.getValue(CakeDecTip.class);
-                if (tip != null) {
-                    tip.setId(id);
-                    future.complete(tip);
-                } else {
-                    future.completeExceptionally(new RuntimeException("Tip not found"));
-                }
-            }
-
-            @Override
-            public void onCancelled(DatabaseError error) {
-                future.completeExceptionally(new RuntimeException(error.getMessage()));
-            }
-        });
-        return future;
+        return guard.call("get", () -> repository.findById(id));
     }
 
     public CompletableFuture<List<CakeDecTip>> getAllTips() {
-        CompletableFuture<List<CakeDecTip>> future = new CompletableFuture<>();
-        databaseReference.addListenerForSingleValueEvent(new ValueEventListener() {
-            @Override
-            public void onDataChange(DataSnapshot snapshot) {
-                List<CakeDecTip> tips = new ArrayList<>();
-                for (DataSnapshot data : snapshot.getChildren()) {
-                    CakeDecTip tip = data.getValue(CakeDecTip.class);
-                    if (tip != null) {
-                        tip.setId(data.getKey());
-                        tips.add(tip);
-                    }
-                }
-                future.complete(tips);
-            }
-
-            @Override
-            public void onCancelled(DatabaseError error) {
-                future.completeExceptionally(new RuntimeException(error.getMessage()));
-            }
-        });
-        return future;
+        return guard.call("get-all", () -> repository.findAll());
+    }
+
+    public CompletableFuture<CursorPage<CakeDecTip>> getTipsPage(int limit, String after) {
+        return guard.call("page", () -> repository.findPage(limit, after));
+    }
+
+    public CompletableFuture<List<CakeDecTipSummary>> getTipSummaries() {
+        return guard.call("get-all", () -> repository.findSummaries());
+    }
+
+    public CompletableFuture<CursorPage<CakeDecTipSummary>> getTipSummariesPage(int limit, String after) {
+        return guard.call("page", () -> repository.findSummariesPage(limit, after));
     }
 
     public CompletableFuture<CakeDecTip> updateTip(String id, CakeDecTip tip) {
-        CompletableFuture<CakeDecTip> future = new CompletableFuture<>();
-        tip.setId(id);
-        databaseReference.child(id).setValue(tip, (error, ref) -> {
-            if (error == null) {
-                future.complete(tip);
-            } else {
-                future.completeExceptionally(new RuntimeException(error.getMessage()));
-            }
-        });
-        return future;
+        tip.setMedia(mediaService.ingest(tip.getMedia()));
+        return guard.call("update", () -> repository.update(id, tip))
+                .thenApply(updated -> {
+                    searchService.indexTip(updated);
+                    facetService.tipUpdated(updated);
+                    leaderboardService.tipUpdated(updated);
+                    return updated;
+                })
+                .whenComplete((updated, throwable) -> versions.changed(id));
     }
 
     public CompletableFuture<Void> deleteTip(String id) {
-        CompletableFuture<Void> future = new CompletableFuture<>();
-        databaseReference.child(id).removeValue((error, ref) -> {
-            if (error == null) {
-                future.complete(null);
-            } else {
-                future.completeExceptionally(new RuntimeException(error.getMessage()));
-            }
-        });
-        return future;
+        return guard.call("delete", () -> repository.delete(id))
+                .thenRun(() -> {
+                    searchService.removeTip(id);
+                    facetService.removeTip(id);
+                    leaderboardService.removeTip(id);
+                })
+                .whenComplete((deleted, throwable) -> versions.changed(id));
     }
 
-    public CompletableFuture<CakeDecTip> likeTip(String id) {
-        CompletableFuture<CakeDecTip> future = new CompletableFuture<>();
-        databaseReference.child(id).addListenerForSingleValueEvent(new ValueEventListener() {
-            @Override
-            public void onDataChange(DataSnapshot snapshot) {
-                CakeDecTip tip = snapshot.getValue(CakeDecTip.class);
-                if (tip != null) {
-                    tip.setId(id);
-                    tip.setLikes(tip.getLikes() + 1);
-                    databaseReference.child(id).setValue(tip, (error, ref) -> {
-                        if (error == null) {
-                            future.complete(tip);
+    // Creates, updates and deletes go to the repository as one write; each operation gets its own result
+    public CompletableFuture<List<BatchResult>> applyBatch(List<BatchOperation<CakeDecTip>> operations) {
+        return BatchWrites.apply(operations,
+                tip -> tip.setMedia(mediaService.ingest(tip.getMedia())),
+                valid -> guard.call("batch", () -> repository.applyBatch(valid)),
+                CakeDecTip::getId,
+                operation -> {
+                    if (BatchOperation.DELETE.equals(operation.getOp())) {
+                        searchService.removeTip(operation.getId());
+                        facetService.removeTip(operation.getId());
+                        leaderboardService.removeTip(operation.getId());
+                    } else {
+                        searchService.indexTip(operation.getDocument());
+                        if (BatchOperation.UPDATE.equals(operation.getOp())) {
+                            facetService.tipUpdated(operation.getDocument());
+                            leaderboardService.tipUpdated(operation.getDocument());
                         } else {
-                            future.completeExceptionally(new RuntimeException(error.getMessage()));
+                            facetService.indexTip(operation.getDocument());
+                            leaderboardService.indexTip(operation.getDocument());
                         }
-                    });
-                } else {
-                    future.completeExceptionally(new RuntimeException("Tip not found"));
-                }
-            }
-
-            @Override
-            public void onCancelled(DatabaseError error) {
-                future.completeExceptionally(new RuntimeException(error.getMessage()));
-            }
-        });
-        return future;
+                    }
+                })
+                .whenComplete((results, throwable) -> operations.forEach(operation -> versions.changed(operation.getId())));
+    }
+
+    public CompletableFuture<CakeDecTip> likeTip(String id) {
+        // Only the likes counter is written; the tip is read back afterwards for the response
+        return guard.call("like", () -> repository.like(id)).thenCompose(likes -> getTip(id))
+                .thenApply(liked -> {
+                    // Keeps the like count in filtered listings and leaderboards current
+                    facetService.indexTip(liked);
+                    leaderboardService.tipLiked(liked);
+                    return liked;
+                })
+                .whenComplete((liked, throwable) -> versions.changed(id));
     }
 
     public CompletableFuture<CakeDecTip> addComment(String id, CakeDecTip.Comment comment) {
-        CompletableFuture<CakeDecTip> future = new CompletableFuture<>();
-        databaseReference.child(id).addListenerForSingleValueEvent(new ValueEventListener() {
-            @Override
-            public void onDataChange(DataSnapshot snapshot) {
-                CakeDecTip tip = snapshot.getValue(CakeDecTip.class);
-                if (tip != null) {
-                    tip.setId(id);
-                    List<CakeDecTip.Comment> comments = tip.getComments();
-                    if (comments == null) {
-                        comments = new ArrayList<>();
-                    }
-                    comment.setId(String.valueOf(System.currentTimeMillis()));
-                    comments.add(comment);
-                    tip.setComments(comments);
-                    databaseReference.child(id).setValue(tip, (error, ref) -> {
-                        if (error == null) {
-                            future.complete(tip);
-                        } else {
-                            future.completeExceptionally(new RuntimeException(error.getMessage()));
-                        }
-                    });
-                } else {
-                    future.completeExceptionally(new RuntimeException("Tip not found"));
-                }
-            }
-
-            @Override
-            public void onCancelled(DatabaseError error) {
-                future.completeExceptionally(new RuntimeException(error.getMessage()));
-            }
-        });
-        return future;
+        return guard.call("comment", () -> repository.addComment(id, comment)).thenCompose(written -> getTip(id))
+                .whenComplete((commented, throwable) -> versions.changed(id));
     }
 
     public CompletableFuture<CakeDecTip> editComment(String tipId, String commentId, CakeDecTip.Comment updatedComment) {
-        CompletableFuture<CakeDecTip> future = new CompletableFuture<>();
-        databaseReference.child(tipId).addListenerForSingleValueEvent(new ValueEventListener() {
-            @Override
-            public void onDataChange(DataSnapshot snapshot) {
-                CakeDecTip tip = snapshot.getValue(CakeDecTip.class);
-                if (tip != null) {
-                    tip.setId(tipId);
-                    List<CakeDecTip.Comment> comments = tip.getComments();
-                    if (comments != null) {
-                        boolean commentFound = false;
-                        for (int i = 0; i < comments.size(); i++) {
-                            if (comments.get(i).getId().equals(commentId)) {
-                                comments.set(i, updatedComment);
-                                updatedComment.setId(commentId);
-                                commentFound = true;
-                                break;
-                            }
-                        }
-                        if (commentFound) {
-                            tip.setComments(comments);
-                            databaseReference.child(tipId).setValue(tip, (error, ref) -> {
-                                if (error == null) {
-                                    future.complete(tip);
-                                } else {
-                                    future.completeExceptionally(new RuntimeException(error.getMessage()));
-                                }
-                            });
-                        } else {
-                            future.completeExceptionally(new RuntimeException("Comment not found"));
-                        }
-                    } else {
-                        future.completeExceptionally(new RuntimeException("No comments found"));
-                    }
-                } else {
-                    future.completeExceptionally(new RuntimeException("Tip not found"));
-                }
-            }
-
-            @Override
-            public void onCancelled(DatabaseError error) {
-                future.completeExceptionally(new RuntimeException(error.getMessage()));
-            }
-        });
-        return future;
+        return guard.call("comment", () -> repository.updateComment(tipId, commentId, updatedComment)).thenCompose(written -> getTip(tipId))
+                .whenComplete((edited, throwable) -> versions.changed(tipId));
     }
 
     public CompletableFuture<CakeDecTip> deleteComment(String tipId, String commentId) {
-        CompletableFuture<CakeDecTip> future = new CompletableFuture<>();
-        databaseReference.child(tipId).addListenerForSingleValueEvent(new ValueEventListener() {
-            @Override
-            public void onDataChange(DataSnapshot snapshot) {
-                CakeDecTip tip = snapshot.getValue(CakeDecTip.class);
-                if (tip != null) {
-                    tip.setId(tipId);
-                    List<CakeDecTip.Comment> comments = tip.getComments();
-                    if (comments != null) {
-                        comments.removeIf(comment -> comment.getId().equals(commentId));
-                        tip.setComments(comments);
-                        databaseReference.child(tipId).setValue(tip, (error, ref) -> {
-                            if (error == null) {
-                                future.complete(tip);
-                            } else {
-                                future.completeExceptionally(new RuntimeException(error.getMessage()));
-                            }
-                        });
-                    } else {
-                        future.complete(tip);
-                    }
-                } else {
-                    future.completeExceptionally(new RuntimeException("Tip not found"));
-                }
-            }
-
-            @Override
-            public void onCancelled(DatabaseError error) {
-                future.completeExceptionally(new RuntimeException(error.getMessage()));
-            }
-        });
-        return future;
+        return guard.call("comment", () -> repository.deleteComment(tipId, commentId)).thenCompose(written -> getTip(tipId))
+                .whenComplete((edited, throwable) -> versions.changed(tipId));
     }
-}
\ No newline at end of file
+}
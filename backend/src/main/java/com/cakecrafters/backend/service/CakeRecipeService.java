@@ -1,174 +1,144 @@
 package com.cakecrafters.backend.service;
 
+import com.cakecrafters.backend.model.BatchOperation;
+import com.cakecrafters.backend.model.BatchResult;
 import com.cakecrafters.backend.model.CakeRecipe;
-import com.google.firebase.database.*;
+import com.cakecrafters.backend.model.CakeRecipeSummary;
+import com.cakecrafters.backend.model.CursorPage;
+import com.cakecrafters.backend.repository.CakeRecipeRepository;
 import org.springframework.stereotype.Service;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 
 @Service
 public class CakeRecipeService {
 
-    private final DatabaseReference databaseReference;
+    private final CakeRecipeRepository repository;
+    private final MediaService mediaService;
+    private final DatabaseGuard guard;
+    private final SearchService searchService;
+    private final FacetService facetService;
+    private final LeaderboardService leaderboardService;
+    private final DocumentVersions versions = new DocumentVersions();
+
+    public CakeRecipeService(CakeRecipeRepository repository, MediaService mediaService, DatabaseGuards databaseGuards, SearchService searchService, FacetService facetService, LeaderboardService leaderboardService) {
+        this.repository = repository;
+        this.mediaService = mediaService;
+        this.guard = databaseGuards.forCollection("cakeRecipes");
+        this.searchService = searchService;
+        this.facetService = facetService;
+        this.leaderboardService = leaderboardService;
+        repository.watchChanges(versions::reported);
+    }
 
-    public CakeRecipeService() {
-        this.databaseReference = FirebaseDatabase.getInstance().getReference("cakeRecipes");
+    // Validators for conditional reads; every write below moves them once it has finished, failed or not
+    public DocumentVersions versions() {
+        return versions;
     }
 
     // Create a new cake recipe
     public CompletableFuture<CakeRecipe> createCakeRecipe(CakeRecipe cakeRecipe) {
-        CompletableFuture<CakeRecipe> future = new CompletableFuture<>();
-        String key = databaseReference.push().getKey();
-        cakeRecipe.setId(key);
-        databaseReference.child(key).setValue(cakeRecipe, (error, ref) -> {
-            if (error == null) {
-                future.complete(cakeRecipe);
-            } else {
-                future.completeExceptionally(new RuntimeException(error.getMessage()));
-            }
-        });
-        return future;
+        cakeRecipe.setImages(mediaService.ingest(cakeRecipe.getImages()));
+        return guard.call("create", () -> repository.create(cakeRecipe))
+                .thenApply(created -> {
+                    searchService.indexRecipe(created);
+                    facetService.indexRecipe(created);
+                    leaderboardService.indexRecipe(created);
+                    return created;
+                })
+                .whenComplete((created, throwable) -> versions.changed(cakeRecipe.getId()));
     }
 
     // Get a cake recipe by ID
     public CompletableFuture<CakeRecipe> getCakeRecipe(String id) {
-        CompletableFuture<CakeRecipe> future = new CompletableFuture<>();
-        databaseReference.child(id).addListenerForSingleValueEvent(new ValueEventListener() {
-            @Override
-            public void onDataChange(DataSnapshot snapshot) {
-                CakeRecipe recipe = snapshot.getValue(CakeRecipe.class);
-                if (recipe != null) {
-                    recipe.setId(id);
-                    future.complete(recipe);
-                } else {
-                    future.completeExceptionally(new RuntimeException("Recipe not found"));
-                }
-            }
-
-            @Override
-            public void onCancelled(DatabaseError error) {
-                future.completeExceptionally(new RuntimeException(error.getMessage()));
-            }
-        });
-        return future;
+        return guard.call("get", () -> repository.findById(id));
     }
 
     // Get all cake recipes
     public CompletableFuture<List<CakeRecipe>> getAllCakeRecipes() {
-        CompletableFuture<List<CakeRecipe>> future = new CompletableFuture<>();
-        databaseReference.addListenerForSingleValueEvent(new ValueEventListener() {
-            @Override
-            public void onDataChange(DataSnapshot snapshot) {
-                List<CakeRecipe> recipes = new ArrayList<>();
-                for (DataSnapshot data : snapshot.getChildren()) {
-                    CakeRecipe recipe = data.getValue(CakeRecipe.class);
-                    if (recipe != null) {
-                        recipe.setId(data.getKey());
-                        recipes.add(recipe);
-                    }
-                }
-                future.complete(recipes);
-            }
-
-            @Override
-            public void onCancelled(DatabaseError error) {
-                future.completeExceptionally(new RuntimeException(error.getMessage()));
-            }
-        });
-        return future;
+        return guard.call("get-all", () -> repository.findAll());
+    }
+
+    // Get one page of cake recipes, ordered by key and starting after the given cursor
+    public CompletableFuture<CursorPage<CakeRecipe>> getCakeRecipesPage(int limit, String after) {
+        return guard.call("page", () -> repository.findPage(limit, after));
+    }
+
+    // Get the listing summaries of all cake recipes
+    public CompletableFuture<List<CakeRecipeSummary>> getCakeRecipeSummaries() {
+        return guard.call("get-all", () -> repository.findSummaries());
+    }
+
+    public CompletableFuture<CursorPage<CakeRecipeSummary>> getCakeRecipeSummariesPage(int limit, String after) {
+        return guard.call("page", () -> repository.findSummariesPage(limit, after));
     }
 
     // Update a cake recipe
     public CompletableFuture<CakeRecipe> updateCakeRecipe(String id, CakeRecipe cakeRecipe) {
-        CompletableFuture<CakeRecipe> future = new CompletableFuture<>();
-        cakeRecipe.setId(id);
-        databaseReference.child(id).setValue(cakeRecipe, (error, ref) -> {
-            if (error == null) {
-                future.complete(cakeRecipe);
-            } else {
-                future.completeExceptionally(new RuntimeException(error.getMessage()));
-            }
-        });
-        return future;
+        cakeRecipe.setImages(mediaService.ingest(cakeRecipe.getImages()));
+        return guard.call("update", () -> repository.update(id, cakeRecipe))
+                .thenApply(updated -> {
+                    searchService.indexRecipe(updated);
+                    facetService.recipeUpdated(updated);
+                    leaderboardService.recipeUpdated(updated);
+                    return updated;
+                })
+                .whenComplete((updated, throwable) -> versions.changed(id));
     }
 
     // Delete a cake recipe
     public CompletableFuture<Void> deleteCakeRecipe(String id) {
-        CompletableFuture<Void> future = new CompletableFuture<>();
-        databaseReference.child(id).removeValue((error, ref) -> {
-            if (error == null) {
-                future.complete(null);
-            } else {
-                future.completeExceptionally(new RuntimeException(error.getMessage()));
-            }
-        });
-        return future;
+        return guard.call("delete", () -> repository.delete(id))
+                .thenRun(() -> {
+                    searchService.removeRecipe(id);
+                    facetService.removeRecipe(id);
+                    leaderboardService.removeRecipe(id);
+                })
+                .whenComplete((deleted, throwable) -> versions.changed(id));
     }
 
-    // Like a cake recipe
-    public CompletableFuture<CakeRecipe> likeCakeRecipe(String id) {
-        CompletableFuture<CakeRecipe> future = new CompletableFuture<>();
-        databaseReference.child(id).addListenerForSingleValueEvent(new ValueEventListener() {
-            @Override
-            public void onDataChange(DataSnapshot snapshot) {
-                CakeRecipe recipe = snapshot.getValue(CakeRecipe.class);
-                if (recipe != null) {
-                    recipe.setId(id);
-                    recipe.setLikes(recipe.getLikes() + 1);
-                    databaseReference.child(id).setValue(recipe, (error, ref) -> {
-                        if (error == null) {
-                            future.complete(recipe);
+    // Apply creates, updates and deletes as one write, with a result for each operation
+    public CompletableFuture<List<BatchResult>> applyBatch(List<BatchOperation<CakeRecipe>> operations) {
+        return BatchWrites.apply(operations,
+                cakeRecipe -> cakeRecipe.setImages(mediaService.ingest(cakeRecipe.getImages())),
+                valid -> guard.call("batch", () -> repository.applyBatch(valid)),
+                CakeRecipe::getId,
+                operation -> {
+                    if (BatchOperation.DELETE.equals(operation.getOp())) {
+                        searchService.removeRecipe(operation.getId());
+                        facetService.removeRecipe(operation.getId());
+                        leaderboardService.removeRecipe(operation.getId());
+                    } else {
+                        searchService.indexRecipe(operation.getDocument());
+                        if (BatchOperation.UPDATE.equals(operation.getOp())) {
+                            facetService.recipeUpdated(operation.getDocument());
+                            leaderboardService.recipeUpdated(operation.getDocument());
                         } else {
-                            future.completeExceptionally(new RuntimeException(error.getMessage()));
+                            facetService.indexRecipe(operation.getDocument());
+                            leaderboardService.indexRecipe(operation.getDocument());
                         }
-                    });
-                } else {
-                    future.completeExceptionally(new RuntimeException("Recipe not found"));
-                }
-            }
-
-            @Override
-            public void onCancelled(DatabaseError error) {
-                future.completeExceptionally(new RuntimeException(error.getMessage()));
-            }
-        });
-        return future;
+                    }
+                })
+                .whenComplete((results, throwable) -> operations.forEach(operation -> versions.changed(operation.getId())));
+    }
+
+    // Like a cake recipe
+    public CompletableFuture<CakeRecipe> likeCakeRecipe(String id) {
+        // Only the likes counter is written; the recipe is read back afterwards for the response
+        return guard.call("like", () -> repository.like(id)).thenCompose(likes -> getCakeRecipe(id))
+                .thenApply(liked -> {
+                    // Keeps the like count in filtered listings and leaderboards current
+                    facetService.indexRecipe(liked);
+                    leaderboardService.recipeLiked(liked);
+                    return liked;
+                })
+                .whenComplete((liked, throwable) -> versions.changed(id));
     }
 
     // Add a comment to a cake recipe
     public CompletableFuture<CakeRecipe> addComment(String id, String comment) {
-        CompletableFuture<CakeRecipe> future = new CompletableFuture<>();
-        databaseReference.child(id).addListenerForSingleValueEvent(new ValueEventListener() {
-            @Override
-            public void onDataChange(DataSnapshot snapshot) {
-                CakeRecipe recipe = snapshot.getValue(CakeRecipe.class);
-                if (recipe != null) {
-                    recipe.setId(id);
-                    List<String> comments = recipe.getComments();
-                    if (comments == null) {
-                        comments = new ArrayList<>();
-                    }
-                    comments.add(comment);
-                    recipe.setComments(comments);
-                    databaseReference.child(id).setValue(recipe, (error, ref) -> {
-                        if (error == null) {
-                            future.complete(recipe);
-                        } else {
-                            future.completeExceptionally(new RuntimeException(error.getMessage()));
-                        }
-                    });
-                } else {
-                    future.completeExceptionally(new RuntimeException("Recipe not found"));
-                }
-            }
-
-            @Override
-            public void onCancelled(DatabaseError error) {
-                future.completeExceptionally(new RuntimeException(error.getMessage()));
-            }
-        });
-        return future;
+        return guard.call("comment", () -> repository.addComment(id, comment)).thenCompose(written -> getCakeRecipe(id))
+                .whenComplete((commented, throwable) -> versions.changed(id));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,119 @@
+package com.cakecrafters.backend.service;
+
+import com.cakecrafters.backend.model.CursorPage;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+// Bounds the database calls of one collection: at most maxInFlight run at once (further calls are rejected
+// immediately) and each one fails with a TimeoutException once its operation's deadline passes. Every call is
+// timed per operation, rejected ones included, with its outcome and exception as tags; successful reads also
+// record how many documents they returned. Each call is also a span, current while the repository starts the call,
+// so work the repository traces on a callback thread can be attached to it.
+public class DatabaseGuard {
+
+    static final String CALLS = "cakecrafters.database.calls";
+    static final String DOCUMENTS = "cakecrafters.database.documents";
+    static final String IN_FLIGHT = "cakecrafters.database.in-flight";
+
+    private final String collection;
+    private final Semaphore permits;
+    private final ToLongFunction<String> deadlines;
+    private final MeterRegistry registry;
+    private final Tracer tracer;
+    private final Map<String, Long> deadlineByOperation = new ConcurrentHashMap<>();
+
+    DatabaseGuard(String collection, int maxInFlight, ToLongFunction<String> deadlines, MeterRegistry registry, Tracer tracer) {
+        this.collection = collection;
+        this.permits = new Semaphore(maxInFlight);
+        this.deadlines = deadlines;
+        this.registry = registry;
+        this.tracer = tracer;
+        Gauge.builder(IN_FLIGHT, permits, semaphore -> maxInFlight - semaphore.availablePermits())
+                .tag("collection", collection)
+                .register(registry);
+    }
+
+    // The supplier is not invoked when the bulkhead is full
+    public <T> CompletableFuture<T> call(String operation, Supplier<CompletableFuture<T>> call) {
+        Timer.Sample sample = Timer.start(registry);
+        Span span = tracer.nextSpan()
+                .name(collection + " " + operation)
+                .tag("db.collection", collection)
+                .tag("db.operation", operation)
+                .start();
+        if (!permits.tryAcquire()) {
+            BulkheadFullException rejected = new BulkheadFullException(collection);
+            record(sample, span, operation, null, rejected);
+            return CompletableFuture.failedFuture(rejected);
+        }
+        CompletableFuture<T> future;
+        try (Tracer.SpanInScope scope = tracer.withSpan(span)) {
+            future = call.get();
+        } catch (RuntimeException e) {
+            permits.release();
+            record(sample, span, operation, null, e);
+            return CompletableFuture.failedFuture(e);
+        }
+        // The repository's future can be shared, such as a cached load other callers are waiting on, so the
+        // deadline fails a copy rather than the future itself
+        return future.copy().orTimeout(deadline(operation), TimeUnit.MILLISECONDS)
+                .whenComplete((result, throwable) -> {
+                    permits.release();
+                    record(sample, span, operation, result, throwable);
+                });
+    }
+
+    private void record(Timer.Sample sample, Span span, String operation, Object result, Throwable throwable) {
+        if (throwable instanceof CompletionException && throwable.getCause() != null) {
+            throwable = throwable.getCause();
+        }
+        if (throwable != null) {
+            span.error(throwable);
+        }
+        span.end();
+        sample.stop(Timer.builder(CALLS)
+                .tag("collection", collection)
+                .tag("operation", operation)
+                .tag("outcome", throwable == null ? "SUCCESS" : "ERROR")
+                .tag("exception", throwable == null ? "none" : throwable.getClass().getSimpleName())
+                .publishPercentileHistogram()
+                .register(registry));
+        int documents = documents(result);
+        if (throwable == null && documents >= 0) {
+            DistributionSummary.builder(DOCUMENTS)
+                    .tag("collection", collection)
+                    .tag("operation", operation)
+                    .register(registry)
+                    .record(documents);
+        }
+    }
+
+    // -1 for results that are not documents, such as a write's acknowledgement or a like count
+    private static int documents(Object result) {
+        if (result instanceof Collection<?> documents) {
+            return documents.size();
+        }
+        if (result instanceof CursorPage<?> page) {
+            return page.getItems().size();
+        }
+        return result == null || result instanceof Number || result instanceof String ? -1 : 1;
+    }
+
+    private long deadline(String operation) {
+        return deadlineByOperation.computeIfAbsent(operation, deadlines::applyAsLong);
+    }
+}
@@ -0,0 +1,51 @@
+package com.cakecrafters.backend.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.tracing.Tracer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Creates one guard per collection. Deadlines are looked up as cakecrafters.database.deadline-ms.<collection>.<operation>,
+// then cakecrafters.database.deadline-ms.<operation>, then the default; the in-flight limit likewise per collection.
+@Component
+public class DatabaseGuards {
+
+    private static final String PREFIX = "cakecrafters.database.";
+
+    private final Environment environment;
+    private final MeterRegistry registry;
+    private final Tracer tracer;
+    private final long defaultDeadlineMs;
+    private final int defaultMaxInFlight;
+    private final Map<String, DatabaseGuard> guards = new ConcurrentHashMap<>();
+
+    public DatabaseGuards(Environment environment,
+                          MeterRegistry registry,
+                          Tracer tracer,
+                          @Value("${cakecrafters.database.default-deadline-ms:5000}") long defaultDeadlineMs,
+                          @Value("${cakecrafters.database.default-max-in-flight:64}") int defaultMaxInFlight) {
+        this.environment = environment;
+        this.registry = registry;
+        this.tracer = tracer;
+        this.defaultDeadlineMs = defaultDeadlineMs;
+        this.defaultMaxInFlight = defaultMaxInFlight;
+    }
+
+    public DatabaseGuard forCollection(String collection) {
+        return guards.computeIfAbsent(collection, name -> new DatabaseGuard(name,
+                environment.getProperty(PREFIX + "max-in-flight." + name, Integer.class, defaultMaxInFlight),
+                operation -> deadlineMs(name, operation), registry, tracer));
+    }
+
+    private long deadlineMs(String collection, String operation) {
+        Long deadline = environment.getProperty(PREFIX + "deadline-ms." + collection + "." + operation, Long.class);
+        if (deadline == null) {
+            deadline = environment.getProperty(PREFIX + "deadline-ms." + operation, Long.class, defaultDeadlineMs);
+        }
+        return deadline;
+    }
+}
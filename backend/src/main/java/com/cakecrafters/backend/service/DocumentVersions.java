@@ -0,0 +1,106 @@
+package com.cakecrafters.backend.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Cache validators for one collection. A document's ETag is a hash of its JSON, taken the first time it is
+// read after a change and kept until the next one. Every write through the services, and every change the database
+// reports, drops it and moves the collection version that validates the listings. A matching If-None-Match can
+// then be answered from here without reading or deserializing anything. The ETags are weak: the same version is
+// served as JSON, CBOR or Smile, compressed or not, and Tomcat only compresses responses with weak validators.
+public class DocumentVersions {
+
+    public record Version(String etag, long lastModified) {}
+
+    private static final ObjectMapper HASHING = JsonMapper.builder().build();
+
+    // Collection versions are counters, so they carry the start time to never match one from before a restart
+    private final String instance = Long.toString(System.currentTimeMillis(), 36);
+    private final long started = System.currentTimeMillis();
+    private final Map<String, Version> documents = new ConcurrentHashMap<>();
+    private final Map<String, Long> modified = new ConcurrentHashMap<>();
+    private final AtomicLong changes = new AtomicLong();
+    private volatile long collectionModified = started;
+    private volatile boolean trusted = true;
+
+    // Taken before a read and handed to record, which then knows whether a change raced with the read
+    public long stamp() {
+        return changes.get();
+    }
+
+    // Null when the document has not been read since it last changed
+    public Version get(String id) {
+        return trusted ? documents.get(id) : null;
+    }
+
+    // The version of a document as read; it is only kept when nothing changed since stamp was taken
+    public Version record(String id, Object document, long stamp) {
+        if (trusted && changes.get() == stamp) {
+            Version known = documents.get(id);
+            if (known != null) {
+                return known;
+            }
+        }
+        Version version = new Version(etag(document), modified.getOrDefault(id, started));
+        if (trusted && changes.get() == stamp) {
+            documents.put(id, version);
+            // A change that counted after the check above may have missed this entry
+            if (changes.get() != stamp) {
+                documents.remove(id, version);
+            }
+        }
+        return version;
+    }
+
+    // Null when the collection can no longer be validated
+    public Version collection() {
+        return trusted ? new Version("W/\"" + instance + "-" + changes.get() + "\"", collectionModified) : null;
+    }
+
+    // A null id is a change to some unknown document, which only moves the collection version
+    public void changed(String id) {
+        long now = System.currentTimeMillis();
+        if (id != null) {
+            modified.put(id, now);
+        }
+        collectionModified = now;
+        changes.incrementAndGet();
+        if (id != null) {
+            documents.remove(id);
+        }
+    }
+
+    // Listener for a repository's change reports, where null means they have stopped
+    public void reported(String id) {
+        if (id != null) {
+            changed(id);
+        } else {
+            lost();
+        }
+    }
+
+    // Called when change reports stop arriving; without them no version can be trusted again
+    public void lost() {
+        trusted = false;
+        changes.incrementAndGet();
+        documents.clear();
+    }
+
+    private static String etag(Object document) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(HASHING.writeValueAsBytes(document));
+            return "W/\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(hash, 16)) + "\"";
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Cannot hash document", e);
+        }
+    }
+}
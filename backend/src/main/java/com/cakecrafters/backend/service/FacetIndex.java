@@ -0,0 +1,212 @@
+package com.cakecrafters.backend.service;
+
+import com.cakecrafters.backend.model.CursorPage;
+import com.cakecrafters.backend.model.FacetedPage;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+
+// In-memory bitmap index over a few low-cardinality fields. Every document gets a dense ordinal and each facet
+// value a bitset of the ordinals that have it, so a filter is a handful of bitset intersections and counting a
+// facet value is a cardinality, without looking at any document. Results come back in ordinal order, which is
+// insertion order; an updated document keeps its ordinal.
+public class FacetIndex<T> {
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final List<String> facets;
+    // facet -> value -> ordinals with that value
+    private final Map<String, Map<String, BitSet>> bitmaps = new LinkedHashMap<>();
+    // Removed keys keep their ordinal until the next compaction so that a cursor pointing at them still resolves
+    private final Map<String, Integer> ordinals = new HashMap<>();
+    private final List<String> keys = new ArrayList<>();
+    private final List<T> values = new ArrayList<>();
+    private final List<Map<String, String>> documentFacets = new ArrayList<>();
+    private final BitSet live = new BitSet();
+
+    public FacetIndex(String... facets) {
+        this.facets = List.of(facets);
+        for (String facet : facets) {
+            bitmaps.put(facet, new TreeMap<>());
+        }
+    }
+
+    // Adds or replaces the document; facet values that are null or blank are left out of that facet
+    public void put(String key, T value, Map<String, String> facetValues) {
+        update(key, value, facetValues, (previous, next) -> {});
+    }
+
+    // Like put, but when the document is already indexed carry(previous, value) first copies over what the new
+    // value lacks, under the same lock as the replacement
+    public void update(String key, T value, Map<String, String> facetValues, BiConsumer<T, T> carry) {
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinals.get(key);
+            if (ordinal == null || !live.get(ordinal)) {
+                if (ordinal != null) {
+                    ordinals.remove(key);
+                }
+                ordinal = keys.size();
+                ordinals.put(key, ordinal);
+                keys.add(key);
+                values.add(value);
+                documentFacets.add(Map.of());
+            } else {
+                carry.accept(values.get(ordinal), value);
+                clearFacets(ordinal);
+                values.set(ordinal, value);
+            }
+            Map<String, String> indexed = new HashMap<>();
+            for (String facet : facets) {
+                String facetValue = facetValues.get(facet);
+                if (facetValue != null && !facetValue.isBlank()) {
+                    bitmaps.get(facet).computeIfAbsent(facetValue, v -> new BitSet()).set(ordinal);
+                    indexed.put(facet, facetValue);
+                }
+            }
+            documentFacets.set(ordinal, indexed);
+            live.set(ordinal);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String key) {
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinals.get(key);
+            if (ordinal == null || !live.get(ordinal)) {
+                return;
+            }
+            clearFacets(ordinal);
+            live.clear(ordinal);
+            values.set(ordinal, null);
+            documentFacets.set(ordinal, Map.of());
+            // Renumber once dead ordinals outnumber live ones, so the bitsets stay dense
+            if (keys.size() - live.cardinality() > Math.max(live.cardinality(), 64)) {
+                compact();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return live.cardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // filters maps facet to the required value; facets not in the map are unrestricted. Counts for each facet are
+    // taken with every filter except that facet's own, so they show how many results picking another value gives.
+    public FacetedPage<T> query(Map<String, String> filters, int limit, String after) {
+        int pageSize = CursorPage.clampLimit(limit);
+        lock.readLock().lock();
+        try {
+            int start = 0;
+            if (after != null) {
+                Integer cursor = ordinals.get(after);
+                if (cursor == null) {
+                    throw new IllegalArgumentException("Unknown cursor: " + after);
+                }
+                start = cursor + 1;
+            }
+            BitSet matches = filter(filters, null);
+
+            List<T> items = new ArrayList<>();
+            String lastKey = null;
+            String nextCursor = null;
+            for (int ordinal = matches.nextSetBit(start); ordinal >= 0; ordinal = matches.nextSetBit(ordinal + 1)) {
+                if (items.size() == pageSize) {
+                    nextCursor = lastKey;
+                    break;
+                }
+                items.add(values.get(ordinal));
+                lastKey = keys.get(ordinal);
+            }
+
+            Map<String, Map<String, Integer>> counts = new LinkedHashMap<>();
+            for (String facet : facets) {
+                BitSet others = filters.containsKey(facet) ? filter(filters, facet) : matches;
+                Map<String, Integer> valueCounts = new LinkedHashMap<>();
+                for (Map.Entry<String, BitSet> value : bitmaps.get(facet).entrySet()) {
+                    BitSet both = (BitSet) value.getValue().clone();
+                    both.and(others);
+                    int count = both.cardinality();
+                    if (count > 0) {
+                        valueCounts.put(value.getKey(), count);
+                    }
+                }
+                counts.put(facet, valueCounts);
+            }
+            return new FacetedPage<>(items, nextCursor, matches.cardinality(), counts);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Live ordinals matching every filter except the skipped facet; an unknown facet or value matches nothing
+    private BitSet filter(Map<String, String> filters, String skip) {
+        BitSet result = (BitSet) live.clone();
+        for (Map.Entry<String, String> filter : filters.entrySet()) {
+            if (filter.getKey().equals(skip)) {
+                continue;
+            }
+            Map<String, BitSet> facet = bitmaps.get(filter.getKey());
+            BitSet bitmap = facet != null ? facet.get(filter.getValue()) : null;
+            if (bitmap == null) {
+                return new BitSet();
+            }
+            result.and(bitmap);
+        }
+        return result;
+    }
+
+    private void clearFacets(int ordinal) {
+        for (Map.Entry<String, String> indexed : documentFacets.get(ordinal).entrySet()) {
+            Map<String, BitSet> facet = bitmaps.get(indexed.getKey());
+            BitSet bitmap = facet.get(indexed.getValue());
+            bitmap.clear(ordinal);
+            if (bitmap.isEmpty()) {
+                facet.remove(indexed.getValue());
+            }
+        }
+    }
+
+    private void compact() {
+        List<String> liveKeys = new ArrayList<>();
+        List<T> liveValues = new ArrayList<>();
+        List<Map<String, String>> liveFacets = new ArrayList<>();
+        for (int ordinal = live.nextSetBit(0); ordinal >= 0; ordinal = live.nextSetBit(ordinal + 1)) {
+            liveKeys.add(keys.get(ordinal));
+            liveValues.add(values.get(ordinal));
+            liveFacets.add(documentFacets.get(ordinal));
+        }
+        ordinals.clear();
+        keys.clear();
+        values.clear();
+        documentFacets.clear();
+        live.clear();
+        bitmaps.values().forEach(Map::clear);
+        for (int ordinal = 0; ordinal < liveKeys.size(); ordinal++) {
+            ordinals.put(liveKeys.get(ordinal), ordinal);
+            keys.add(liveKeys.get(ordinal));
+            values.add(liveValues.get(ordinal));
+            documentFacets.add(liveFacets.get(ordinal));
+            for (Map.Entry<String, String> indexed : liveFacets.get(ordinal).entrySet()) {
+                bitmaps.get(indexed.getKey()).computeIfAbsent(indexed.getValue(), v -> new BitSet()).set(ordinal);
+            }
+            live.set(ordinal);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.cakecrafters.backend.service;
+
+import com.cakecrafters.backend.model.CakeDecTip;
+import com.cakecrafters.backend.model.CakeDecTipSummary;
+import com.cakecrafters.backend.model.CakeRecipe;
+import com.cakecrafters.backend.model.CakeRecipeSummary;
+import com.cakecrafters.backend.model.FacetedPage;
+import com.cakecrafters.backend.repository.CakeDecTipRepository;
+import com.cakecrafters.backend.repository.CakeRecipeRepository;
+import com.cakecrafters.backend.repository.SnapshotCaches;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// Faceted filtering of the recipe and tip listings, answered from bitmap indexes over their summaries. Like the
+// search index it is loaded once the application is ready and then kept current by the recipe and tip services.
+@Service
+public class FacetService {
+
+    private static final Logger logger = LoggerFactory.getLogger(FacetService.class);
+
+    private final FacetIndex<CakeRecipeSummary> recipeFacets = new FacetIndex<>("cakeType", "skillLevel");
+    private final FacetIndex<CakeDecTipSummary> tipFacets = new FacetIndex<>("category", "difficulty");
+    private final CakeRecipeRepository recipes;
+    private final CakeDecTipRepository tips;
+    private final SnapshotCaches snapshotCaches;
+
+    public FacetService(CakeRecipeRepository recipes, CakeDecTipRepository tips, SnapshotCaches snapshotCaches) {
+        this.recipes = recipes;
+        this.tips = tips;
+        this.snapshotCaches = snapshotCaches;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildIndexes() {
+        snapshotCaches.reconciled().thenCompose(ready -> recipes.findSummaries())
+                .thenAccept(all -> all.forEach(this::indexRecipe))
+                .thenCompose(done -> tips.findSummaries())
+                .thenAccept(all -> all.forEach(this::indexTip))
+                .whenComplete((done, throwable) -> {
+                    if (throwable != null) {
+                        logger.error("Failed to build facet indexes", throwable);
+                    } else {
+                        logger.info("Facet indexes built with {} recipes and {} tips", recipeFacets.size(), tipFacets.size());
+                    }
+                });
+    }
+
+    public void indexRecipe(CakeRecipe recipe) {
+        indexRecipe(CakeRecipeSummary.from(recipe));
+    }
+
+    public void indexTip(CakeDecTip tip) {
+        indexTip(CakeDecTipSummary.from(tip));
+    }
+
+    // Update bodies carry no like count, so an edited document keeps the one already indexed
+    public void recipeUpdated(CakeRecipe recipe) {
+        CakeRecipeSummary summary = CakeRecipeSummary.from(recipe);
+        recipeFacets.update(summary.getId(), summary, recipeFacetValues(summary), (indexed, next) -> next.setLikes(indexed.getLikes()));
+    }
+
+    public void tipUpdated(CakeDecTip tip) {
+        CakeDecTipSummary summary = CakeDecTipSummary.from(tip);
+        tipFacets.update(summary.getId(), summary, tipFacetValues(summary), (indexed, next) -> next.setLikes(indexed.getLikes()));
+    }
+
+    public void removeRecipe(String id) {
+        recipeFacets.remove(id);
+    }
+
+    public void removeTip(String id) {
+        tipFacets.remove(id);
+    }
+
+    // Throws IllegalArgumentException for a cursor that is not in the index
+    public FacetedPage<CakeRecipeSummary> filterRecipes(String cakeType, String skillLevel, int limit, String after) {
+        Map<String, String> filters = new HashMap<>();
+        putIfPresent(filters, "cakeType", cakeType);
+        putIfPresent(filters, "skillLevel", skillLevel);
+        return recipeFacets.query(filters, limit, after);
+    }
+
+    public FacetedPage<CakeDecTipSummary> filterTips(String category, String difficulty, int limit, String after) {
+        Map<String, String> filters = new HashMap<>();
+        putIfPresent(filters, "category", category);
+        putIfPresent(filters, "difficulty", difficulty);
+        return tipFacets.query(filters, limit, after);
+    }
+
+    private void indexRecipe(CakeRecipeSummary summary) {
+        recipeFacets.put(summary.getId(), summary, recipeFacetValues(summary));
+    }
+
+    private void indexTip(CakeDecTipSummary summary) {
+        tipFacets.put(summary.getId(), summary, tipFacetValues(summary));
+    }
+
+    private static Map<String, String> recipeFacetValues(CakeRecipeSummary summary) {
+        Map<String, String> facets = new HashMap<>();
+        putIfPresent(facets, "cakeType", summary.getCakeType());
+        putIfPresent(facets, "skillLevel", summary.getSkillLevel());
+        return facets;
+    }
+
+    private static Map<String, String> tipFacetValues(CakeDecTipSummary summary) {
+        Map<String, String> facets = new HashMap<>();
+        putIfPresent(facets, "category", summary.getCategory());
+        putIfPresent(facets, "difficulty", summary.getDifficulty());
+        return facets;
+    }
+
+    private static void putIfPresent(Map<String, String> map, String key, String value) {
+        if (value != null && !value.isBlank()) {
+            map.put(key, value);
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.cakecrafters.backend.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+// Stores each blob at {root}/{hash[0..2]}/{hash[2..4]}/{hash} with its content type in a .type sidecar file, and
+// its variants beside it as {hash}-{variant}, each with its own sidecar
+@Component
+public class FileSystemMediaStore implements MediaStore {
+
+    private static final Pattern HASH = Pattern.compile("[0-9a-f]{64}");
+    private static final Pattern VARIANT = Pattern.compile("[a-z0-9]{1,16}");
+
+    private final Path root;
+    private final Path uploads;
+
+    public FileSystemMediaStore(@Value("${cakecrafters.media.root:media}") String root) throws IOException {
+        this.root = Paths.get(root).toAbsolutePath();
+        this.uploads = this.root.resolve("tmp");
+        Files.createDirectories(uploads);
+    }
+
+    @Override
+    public String put(InputStream data, String contentType) throws IOException {
+        MessageDigest digest = sha256();
+        // Hash while streaming to a temp file, then move it into place, so the blob is never held in memory
+        Path temp = Files.createTempFile(uploads, "upload-", ".part");
+        try {
+            try (InputStream in = new DigestInputStream(data, digest)) {
+                Files.copy(in, temp, StandardCopyOption.REPLACE_EXISTING);
+            }
+            String hash = HexFormat.of().formatHex(digest.digest());
+            Path target = blobPath(hash);
+            if (!Files.exists(target)) {
+                Files.createDirectories(target.getParent());
+                writeType(typePath(hash), contentType != null ? contentType : "application/octet-stream");
+                try {
+                    Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+                } catch (FileAlreadyExistsException e) {
+                    // A concurrent upload of the same bytes got there first; being content-addressed, its blob is this one
+                }
+            }
+            return hash;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    @Override
+    public Optional<StoredMedia> find(String hash) throws IOException {
+        if (hash == null || !HASH.matcher(hash).matches()) {
+            return Optional.empty();
+        }
+        Path blob = blobPath(hash);
+        if (!Files.isRegularFile(blob)) {
+            return Optional.empty();
+        }
+        Path type = typePath(hash);
+        String contentType = Files.exists(type) ? Files.readString(type, StandardCharsets.UTF_8).trim() : "application/octet-stream";
+        return Optional.of(new StoredMedia(hash, blob, contentType, Files.size(blob)));
+    }
+
+    @Override
+    public void putVariant(String hash, String variant, InputStream data, String contentType) throws IOException {
+        if (!HASH.matcher(hash).matches() || !VARIANT.matcher(variant).matches()) {
+            throw new IllegalArgumentException("Invalid media variant " + hash + "-" + variant);
+        }
+        Path target = blobPath(hash).resolveSibling(hash + "-" + variant);
+        Path temp = Files.createTempFile(uploads, "variant-", ".part");
+        try {
+            Files.copy(data, temp, StandardCopyOption.REPLACE_EXISTING);
+            Files.createDirectories(target.getParent());
+            // The type goes first, so a visible variant always has one
+            writeType(typePath(hash + "-" + variant, target), contentType);
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    @Override
+    public Optional<StoredMedia> findVariant(String hash, String variant) throws IOException {
+        if (hash == null || !HASH.matcher(hash).matches() || variant == null || !VARIANT.matcher(variant).matches()) {
+            return Optional.empty();
+        }
+        Path file = blobPath(hash).resolveSibling(hash + "-" + variant);
+        if (!Files.isRegularFile(file)) {
+            return Optional.empty();
+        }
+        Path type = typePath(hash + "-" + variant, file);
+        String contentType = Files.exists(type) ? Files.readString(type, StandardCharsets.UTF_8).trim() : "application/octet-stream";
+        return Optional.of(new StoredMedia(hash, file, contentType, Files.size(file)));
+    }
+
+    // Through a temp file too, so concurrent writers of the same blob never leave a partly written type behind
+    private void writeType(Path target, String contentType) throws IOException {
+        Path temp = Files.createTempFile(uploads, "type-", ".part");
+        try {
+            Files.writeString(temp, contentType, StandardCharsets.UTF_8);
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private Path blobPath(String hash) {
+        return root.resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)).resolve(hash);
+    }
+
+    private Path typePath(String hash) {
+        return typePath(hash, blobPath(hash));
+    }
+
+    private static Path typePath(String name, Path file) {
+        return file.resolveSibling(name + ".type");
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
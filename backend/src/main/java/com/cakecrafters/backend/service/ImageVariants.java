@@ -0,0 +1,226 @@
+package com.cakecrafters.backend.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Produces the smaller renditions of uploaded images that list and detail views ask for with ?size=. Work runs on
+// a small bounded pool off the request thread; when the pool is busy the job is dropped, and the variant is
+// requested again the first time a client asks for it, which also covers images uploaded before variants existed.
+// Until a variant exists the original is served in its place.
+@Component
+public class ImageVariants {
+
+    public enum Size {
+        THUMB, MEDIUM, FULL;
+
+        // Throws IllegalArgumentException for an unknown size
+        public static Size of(String value) {
+            return valueOf(value.toUpperCase(Locale.ROOT));
+        }
+
+        public String variant() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private static final Logger logger = LoggerFactory.getLogger(ImageVariants.class);
+    // Decoding needs four bytes per pixel; larger images are served as they are
+    private static final long MAX_PIXELS = 40_000_000;
+    private static final float JPEG_QUALITY = 0.82f;
+    // Hashes whose variants could not be made, oldest dropped first; a restart tries them once more
+    private static final int MAX_FAILED = 10_000;
+
+    private final MediaStore mediaStore;
+    private final int thumbMaxPx;
+    private final int mediumMaxPx;
+    private final ThreadPoolExecutor workers;
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+    private final Set<String> failed = Collections.newSetFromMap(Collections.synchronizedMap(new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+            return size() > MAX_FAILED;
+        }
+    }));
+
+    public ImageVariants(MediaStore mediaStore,
+                         @Value("${cakecrafters.media.variants.workers:2}") int workers,
+                         @Value("${cakecrafters.media.variants.queue-size:64}") int queueSize,
+                         @Value("${cakecrafters.media.variants.thumb-max-px:320}") int thumbMaxPx,
+                         @Value("${cakecrafters.media.variants.medium-max-px:1024}") int mediumMaxPx) {
+        this.mediaStore = mediaStore;
+        this.thumbMaxPx = thumbMaxPx;
+        this.mediumMaxPx = mediumMaxPx;
+        AtomicInteger threads = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueSize), runnable -> {
+            Thread thread = new Thread(runnable, "image-variants-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public static boolean isImage(String contentType) {
+        return contentType != null && contentType.toLowerCase(Locale.ROOT).startsWith("image/");
+    }
+
+    // True once an image turned out to be unreadable or too large, so asking again would only repeat the attempt
+    public boolean hasFailed(String hash) {
+        return failed.contains(hash);
+    }
+
+    // Queues generation of the variants of an image blob, once per hash at a time
+    public void request(String hash) {
+        if (hasFailed(hash) || !pending.add(hash)) {
+            return;
+        }
+        try {
+            workers.execute(() -> {
+                try {
+                    generate(hash);
+                } catch (IOException | RuntimeException e) {
+                    failed.add(hash);
+                    logger.warn("Failed to generate the variants of {}", hash, e);
+                } finally {
+                    pending.remove(hash);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            pending.remove(hash);
+            logger.debug("Variant workers busy; {} is left for later", hash);
+        }
+    }
+
+    void generate(String hash) throws IOException {
+        // The same bytes uploaded again already have theirs
+        if (mediaStore.findVariant(hash, Size.MEDIUM.variant()).isPresent()) {
+            return;
+        }
+        Optional<StoredMedia> found = mediaStore.find(hash);
+        if (found.isEmpty() || !isImage(found.get().getContentType())) {
+            return;
+        }
+        StoredMedia original = found.get();
+        BufferedImage image = decode(original);
+        if (image == null) {
+            failed.add(hash);
+            return;
+        }
+        for (Size size : new Size[] {Size.THUMB, Size.MEDIUM}) {
+            int maxPx = size == Size.THUMB ? thumbMaxPx : mediumMaxPx;
+            if (image.getWidth() <= maxPx && image.getHeight() <= maxPx) {
+                // Already small enough: the variant is the original, so every size resolves to a stored file
+                try (InputStream in = Files.newInputStream(original.getPath())) {
+                    mediaStore.putVariant(hash, size.variant(), in, original.getContentType());
+                }
+                continue;
+            }
+            boolean alpha = image.getColorModel().hasAlpha();
+            byte[] encoded = encode(scale(image, maxPx), alpha);
+            mediaStore.putVariant(hash, size.variant(), new ByteArrayInputStream(encoded), alpha ? "image/png" : "image/jpeg");
+        }
+    }
+
+    // Null for formats ImageIO cannot read (such as WebP) and for images over the pixel limit
+    private static BufferedImage decode(StoredMedia original) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(original.getPath().toFile())) {
+            Iterator<ImageReader> readers = in != null ? ImageIO.getImageReaders(in) : null;
+            if (readers == null || !readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                if ((long) reader.getWidth(0) * reader.getHeight(0) > MAX_PIXELS) {
+                    logger.info("Not generating variants of {}: {}x{} is too large", original.getHash(), reader.getWidth(0), reader.getHeight(0));
+                    return null;
+                }
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    // Halves with bilinear filtering until within twice the target, then scales the rest of the way, which keeps
+    // detail that a single bilinear step down would skip over
+    static BufferedImage scale(BufferedImage image, int maxPx) {
+        double ratio = Math.min((double) maxPx / image.getWidth(), (double) maxPx / image.getHeight());
+        int width = Math.max(1, (int) Math.round(image.getWidth() * ratio));
+        int height = Math.max(1, (int) Math.round(image.getHeight() * ratio));
+        int type = image.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        BufferedImage current = image;
+        int currentWidth = image.getWidth();
+        int currentHeight = image.getHeight();
+        do {
+            currentWidth = Math.max(width, currentWidth / 2);
+            currentHeight = Math.max(height, currentHeight / 2);
+            BufferedImage next = new BufferedImage(currentWidth, currentHeight, type);
+            Graphics2D graphics = next.createGraphics();
+            try {
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                graphics.drawImage(current, 0, 0, currentWidth, currentHeight, null);
+            } finally {
+                graphics.dispose();
+            }
+            current = next;
+        } while (currentWidth != width || currentHeight != height);
+        return current;
+    }
+
+    // PNG keeps transparency; everything else becomes a JPEG
+    private static byte[] encode(BufferedImage image, boolean alpha) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        if (alpha) {
+            ImageIO.write(image, "png", out);
+            return out.toByteArray();
+        }
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream stream = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(stream);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(JPEG_QUALITY);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+
+    @PreDestroy
+    public void close() {
+        workers.shutdownNow();
+    }
+}
@@ -0,0 +1,129 @@
+package com.cakecrafters.backend.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.LongSupplier;
+import java.util.function.ObjIntConsumer;
+import java.util.function.ToIntFunction;
+
+// Documents kept ordered two ways: by like count, and by a trending score where every like adds a weight that
+// halves each half-life. Both orders are skip lists maintained on write, so reading the top of either is a walk
+// over the first few entries. Writers are serialized; readers never block.
+public class Leaderboard<T> {
+
+    // Trending scores are stored as weight * 2^((time - epoch) / halfLife). Scaling every score by the same factor
+    // keeps their order, so nothing has to decay in the background; once the exponent grows large the scores are
+    // rescaled to a new epoch before they can overflow.
+    private static final double MAX_EXPONENT = 256;
+
+    private record Entry<T>(String key, T value, int likes, double trend) {}
+
+    private static final Comparator<Entry<?>> BY_LIKES = Comparator.<Entry<?>>comparingInt(Entry::likes).reversed()
+            .thenComparing(Entry::key, Comparator.reverseOrder());
+    private static final Comparator<Entry<?>> BY_TREND = Comparator.<Entry<?>>comparingDouble(Entry::trend).reversed()
+            .thenComparing(Entry::key, Comparator.reverseOrder());
+
+    private final ToIntFunction<T> likesOf;
+    private final double halfLifeMillis;
+    private final LongSupplier clock;
+    private final Map<String, Entry<T>> entries = new HashMap<>();
+    private final NavigableSet<Entry<T>> byLikes = new ConcurrentSkipListSet<>(BY_LIKES);
+    // Only entries with a positive score; a document nobody has liked lately is not trending
+    private final NavigableSet<Entry<T>> byTrend = new ConcurrentSkipListSet<>(BY_TREND);
+    private long epoch;
+
+    public Leaderboard(ToIntFunction<T> likesOf, long halfLifeMillis, LongSupplier clock) {
+        this.likesOf = likesOf;
+        this.halfLifeMillis = halfLifeMillis;
+        this.clock = clock;
+        this.epoch = clock.getAsLong();
+    }
+
+    // Adds or replaces the document, taking its like count from the value; the trending score is kept
+    public synchronized void put(String key, T value) {
+        Entry<T> previous = entries.get(key);
+        replace(previous, new Entry<>(key, value, likesOf.applyAsInt(value), previous != null ? previous.trend() : 0));
+    }
+
+    // For an edited document, whose body does not carry the like count: a document already ranked keeps its likes,
+    // which are set on the new value, and its trending score; otherwise the same as put
+    public synchronized void update(String key, T value, ObjIntConsumer<T> setLikes) {
+        Entry<T> previous = entries.get(key);
+        if (previous != null) {
+            setLikes.accept(value, previous.likes());
+        }
+        put(key, value);
+    }
+
+    // Adds weight to the trending score as of now; negative weights count against it
+    public synchronized void record(String key, double weight) {
+        Entry<T> previous = entries.get(key);
+        if (previous == null) {
+            return;
+        }
+        double exponent = (clock.getAsLong() - epoch) / halfLifeMillis;
+        if (exponent > MAX_EXPONENT) {
+            rebase();
+            exponent = (clock.getAsLong() - epoch) / halfLifeMillis;
+        }
+        replace(previous, new Entry<>(key, previous.value(), previous.likes(), previous.trend() + weight * Math.pow(2, exponent)));
+    }
+
+    public synchronized void remove(String key) {
+        replace(entries.get(key), null);
+    }
+
+    public List<T> top(int limit) {
+        return first(byLikes, limit);
+    }
+
+    public List<T> trending(int limit) {
+        return first(byTrend, limit);
+    }
+
+    private List<T> first(NavigableSet<Entry<T>> ordered, int limit) {
+        // A concurrent write removes and re-inserts an entry, so a reader can meet the same key twice
+        Set<String> seen = new HashSet<>();
+        List<T> values = new ArrayList<>();
+        for (Entry<T> entry : ordered) {
+            if (values.size() == limit) {
+                break;
+            }
+            if (seen.add(entry.key())) {
+                values.add(entry.value());
+            }
+        }
+        return values;
+    }
+
+    private void replace(Entry<T> previous, Entry<T> next) {
+        if (previous != null) {
+            byLikes.remove(previous);
+            byTrend.remove(previous);
+            entries.remove(previous.key());
+        }
+        if (next != null) {
+            entries.put(next.key(), next);
+            byLikes.add(next);
+            if (next.trend() > 0) {
+                byTrend.add(next);
+            }
+        }
+    }
+
+    private void rebase() {
+        long now = clock.getAsLong();
+        double scale = Math.pow(2, -(now - epoch) / halfLifeMillis);
+        epoch = now;
+        for (Entry<T> entry : List.copyOf(entries.values())) {
+            replace(entry, new Entry<>(entry.key(), entry.value(), entry.likes(), entry.trend() * scale));
+        }
+    }
+}
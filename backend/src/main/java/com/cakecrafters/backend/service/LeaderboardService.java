@@ -0,0 +1,151 @@
+package com.cakecrafters.backend.service;
+
+import com.cakecrafters.backend.model.CakeDecTip;
+import com.cakecrafters.backend.model.CakeDecTipSummary;
+import com.cakecrafters.backend.model.CakeRecipe;
+import com.cakecrafters.backend.model.CakeRecipeSummary;
+import com.cakecrafters.backend.model.CursorPage;
+import com.cakecrafters.backend.model.Post;
+import com.cakecrafters.backend.repository.CakeDecTipRepository;
+import com.cakecrafters.backend.repository.CakeRecipeRepository;
+import com.cakecrafters.backend.repository.PostRepository;
+import com.cakecrafters.backend.repository.SnapshotCaches;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+// Top-liked and trending lists for recipes, tips and posts. Loaded once the application is ready and any snapshot
+// files are reconciled, then moved by the services' like, dislike and write paths. Existing likes carry no
+// timestamps, so they count as made at startup.
+@Service
+public class LeaderboardService {
+
+    private static final Logger logger = LoggerFactory.getLogger(LeaderboardService.class);
+
+    private final Leaderboard<CakeRecipeSummary> recipes;
+    private final Leaderboard<CakeDecTipSummary> tips;
+    private final Leaderboard<Post> posts;
+    private final CakeRecipeRepository recipeRepository;
+    private final CakeDecTipRepository tipRepository;
+    private final PostRepository postRepository;
+    private final SnapshotCaches snapshotCaches;
+
+    public LeaderboardService(CakeRecipeRepository recipeRepository,
+                              CakeDecTipRepository tipRepository,
+                              PostRepository postRepository,
+                              SnapshotCaches snapshotCaches,
+                              @Value("${cakecrafters.leaderboards.trending-half-life-hours:24}") long halfLifeHours) {
+        long halfLifeMillis = halfLifeHours * 3_600_000;
+        this.recipes = new Leaderboard<>(CakeRecipeSummary::getLikes, halfLifeMillis, System::currentTimeMillis);
+        this.tips = new Leaderboard<>(CakeDecTipSummary::getLikes, halfLifeMillis, System::currentTimeMillis);
+        this.posts = new Leaderboard<>(Post::getLikesCount, halfLifeMillis, System::currentTimeMillis);
+        this.recipeRepository = recipeRepository;
+        this.tipRepository = tipRepository;
+        this.postRepository = postRepository;
+        this.snapshotCaches = snapshotCaches;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        snapshotCaches.reconciled().thenCompose(ready -> CompletableFuture.allOf(
+                recipeRepository.findSummaries().thenAccept(all -> all.forEach(summary -> seed(recipes, summary.getId(), summary, summary.getLikes()))),
+                tipRepository.findSummaries().thenAccept(all -> all.forEach(summary -> seed(tips, summary.getId(), summary, summary.getLikes()))),
+                postRepository.findAll().thenAccept(all -> all.forEach(post -> seed(posts, post.getPostId(), post, post.getLikesCount())))))
+                .whenComplete((done, throwable) -> {
+                    if (throwable != null) {
+                        logger.error("Failed to load leaderboards", throwable);
+                    } else {
+                        logger.info("Leaderboards loaded");
+                    }
+                });
+    }
+
+    public void indexRecipe(CakeRecipe recipe) {
+        recipes.put(recipe.getId(), CakeRecipeSummary.from(recipe));
+    }
+
+    public void recipeUpdated(CakeRecipe recipe) {
+        recipes.update(recipe.getId(), CakeRecipeSummary.from(recipe), CakeRecipeSummary::setLikes);
+    }
+
+    public void recipeLiked(CakeRecipe recipe) {
+        indexRecipe(recipe);
+        recipes.record(recipe.getId(), 1);
+    }
+
+    public void removeRecipe(String id) {
+        recipes.remove(id);
+    }
+
+    public void indexTip(CakeDecTip tip) {
+        tips.put(tip.getId(), CakeDecTipSummary.from(tip));
+    }
+
+    public void tipUpdated(CakeDecTip tip) {
+        tips.update(tip.getId(), CakeDecTipSummary.from(tip), CakeDecTipSummary::setLikes);
+    }
+
+    public void tipLiked(CakeDecTip tip) {
+        indexTip(tip);
+        tips.record(tip.getId(), 1);
+    }
+
+    public void removeTip(String id) {
+        tips.remove(id);
+    }
+
+    public void indexPost(Post post) {
+        posts.put(post.getPostId(), post);
+    }
+
+    public void postUpdated(Post post) {
+        posts.update(post.getPostId(), post, Post::setLikesCount);
+    }
+
+    // A dislike is recorded with weight -1, so it pulls a post down the trending list
+    public void postRated(Post post, int weight) {
+        indexPost(post);
+        posts.record(post.getPostId(), weight);
+    }
+
+    public void removePost(String postId) {
+        posts.remove(postId);
+    }
+
+    public List<CakeRecipeSummary> topRecipes(int limit) {
+        return recipes.top(CursorPage.clampLimit(limit));
+    }
+
+    public List<CakeRecipeSummary> trendingRecipes(int limit) {
+        return recipes.trending(CursorPage.clampLimit(limit));
+    }
+
+    public List<CakeDecTipSummary> topTips(int limit) {
+        return tips.top(CursorPage.clampLimit(limit));
+    }
+
+    public List<CakeDecTipSummary> trendingTips(int limit) {
+        return tips.trending(CursorPage.clampLimit(limit));
+    }
+
+    public List<Post> topPosts(int limit) {
+        return posts.top(CursorPage.clampLimit(limit));
+    }
+
+    public List<Post> trendingPosts(int limit) {
+        return posts.trending(CursorPage.clampLimit(limit));
+    }
+
+    private static <T> void seed(Leaderboard<T> leaderboard, String key, T value, int likes) {
+        leaderboard.put(key, value);
+        if (likes > 0) {
+            leaderboard.record(key, likes);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.cakecrafters.backend.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+@Service
+public class MediaService {
+
+    public static final String MEDIA_PATH = "/api/media/";
+
+    private static final Logger logger = LoggerFactory.getLogger(MediaService.class);
+    private static final String BASE64_MARKER = ";base64";
+    // The only types media is served as inline. Anything else an uploader declares (HTML, SVG, scripts) is stored
+    // as application/octet-stream, so an upload can never become active content on the API's origin.
+    private static final Set<String> INLINE_TYPES = Set.of(
+            "image/jpeg", "image/png", "image/gif", "image/webp", "image/avif", "image/bmp",
+            "video/mp4", "video/webm", "video/ogg", "video/quicktime");
+
+    private final MediaStore mediaStore;
+    private final ImageVariants imageVariants;
+    private final String baseUrl;
+
+    public MediaService(MediaStore mediaStore, ImageVariants imageVariants,
+                        @Value("${cakecrafters.media.base-url:http://localhost:8080}") String baseUrl) {
+        this.mediaStore = mediaStore;
+        this.imageVariants = imageVariants;
+        this.baseUrl = baseUrl;
+    }
+
+    public List<String> ingest(List<String> values) {
+        if (values == null) {
+            return null;
+        }
+        List<String> references = new ArrayList<>(values.size());
+        for (String value : values) {
+            references.add(ingest(value));
+        }
+        return references;
+    }
+
+    // Moves an inline Base64 data URL into the media store and returns its URL; other values pass through unchanged
+    public String ingest(String value) {
+        if (value == null || !value.startsWith("data:")) {
+            return value;
+        }
+        int comma = value.indexOf(',');
+        if (comma < 0 || !value.substring(0, comma).endsWith(BASE64_MARKER)) {
+            return value;
+        }
+        String contentType = value.substring("data:".length(), comma - BASE64_MARKER.length());
+        if (contentType.isEmpty()) {
+            contentType = "application/octet-stream";
+        }
+        byte[] encoded = value.getBytes(StandardCharsets.ISO_8859_1);
+        InputStream decoded = Base64.getMimeDecoder().wrap(new ByteArrayInputStream(encoded, comma + 1, encoded.length - comma - 1));
+        try {
+            return store(decoded, contentType);
+        } catch (IOException | IllegalArgumentException e) {
+            // Keep the inline value rather than failing the write
+            logger.warn("Could not move inline media to the media store", e);
+            return value;
+        }
+    }
+
+    // The declared type without parameters when it is on the allowlist, otherwise application/octet-stream
+    public static String safeContentType(String contentType) {
+        if (contentType == null) {
+            return "application/octet-stream";
+        }
+        int parameters = contentType.indexOf(';');
+        String type = (parameters >= 0 ? contentType.substring(0, parameters) : contentType).trim().toLowerCase(Locale.ROOT);
+        return INLINE_TYPES.contains(type) ? type : "application/octet-stream";
+    }
+
+    public static boolean isInlineType(String contentType) {
+        return !safeContentType(contentType).equals("application/octet-stream");
+    }
+
+    // Stores the data and returns its URL; images get their smaller variants generated in the background
+    public String store(InputStream data, String contentType) throws IOException {
+        contentType = safeContentType(contentType);
+        String hash = mediaStore.put(data, contentType);
+        if (ImageVariants.isImage(contentType)) {
+            imageVariants.request(hash);
+        }
+        return reference(hash);
+    }
+
+    public String reference(String hash) {
+        return baseUrl + MEDIA_PATH + hash;
+    }
+}
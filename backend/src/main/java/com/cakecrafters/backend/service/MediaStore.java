@@ -0,0 +1,20 @@
+package com.cakecrafters.backend.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Optional;
+
+// Content-addressed blob storage for images and videos, so documents only carry short references
+public interface MediaStore {
+
+    // Streams the data into the store and returns its SHA-256 hash; storing the same bytes twice is a no-op
+    String put(InputStream data, String contentType) throws IOException;
+
+    Optional<StoredMedia> find(String hash) throws IOException;
+
+    // Derived renditions of a blob (such as resized images) live next to it under the same hash; writing a variant
+    // again replaces it
+    void putVariant(String hash, String variant, InputStream data, String contentType) throws IOException;
+
+    Optional<StoredMedia> findVariant(String hash, String variant) throws IOException;
+}
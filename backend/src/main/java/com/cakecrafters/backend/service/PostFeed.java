@@ -0,0 +1,218 @@
+package com.cakecrafters.backend.service;
+
+import com.cakecrafters.backend.model.PostEvent;
+import com.cakecrafters.backend.repository.PostRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Live feed of post changes over Server-Sent Events. One repository watch feeds every subscriber: each event is
+// serialized once and offered to a bounded queue per subscriber, and a virtual thread per busy subscriber writes
+// its queue out, so a slow connection only ever blocks its own writer. A subscriber whose queue overflows is
+// disconnected; browsers reconnect with Last-Event-ID and the missed events are replayed from a short history,
+// or a "reset" event tells the client to reload when they are no longer there.
+@Service
+public class PostFeed {
+
+    private static final Logger logger = LoggerFactory.getLogger(PostFeed.class);
+
+    private static final String RESET = "reset";
+
+    private record Frame(long sequence, String type, String json) {}
+
+    private static final Frame HEARTBEAT = new Frame(-1, null, null);
+
+    private final ObjectMapper objectMapper;
+    private final int bufferSize;
+    private final int maxSubscribers;
+    private final long timeoutMs;
+    // Ids carry the start time so a client resuming across a restart is not matched against new sequence numbers
+    private final String instance = Long.toString(System.currentTimeMillis(), 36);
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final Deque<Frame> history = new ArrayDeque<>();
+    private final ExecutorService writers = Executors.newVirtualThreadPerTaskExecutor();
+    private final ScheduledExecutorService heartbeat = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "post-feed-heartbeat");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private long sequence;
+
+    public PostFeed(PostRepository repository,
+                    ObjectMapper objectMapper,
+                    @Value("${cakecrafters.feed.buffer-size:256}") int bufferSize,
+                    @Value("${cakecrafters.feed.max-subscribers:10000}") int maxSubscribers,
+                    @Value("${cakecrafters.feed.timeout-ms:1800000}") long timeoutMs,
+                    @Value("${cakecrafters.feed.heartbeat-ms:15000}") long heartbeatMs) {
+        this.objectMapper = objectMapper;
+        this.bufferSize = bufferSize;
+        this.maxSubscribers = maxSubscribers;
+        this.timeoutMs = timeoutMs;
+        // Comment lines keep idle connections open through proxies and reveal clients that have gone away
+        heartbeat.scheduleAtFixedRate(() -> subscribers.forEach(subscriber -> subscriber.offer(HEARTBEAT)), heartbeatMs, heartbeatMs, TimeUnit.MILLISECONDS);
+        repository.watch(this::publish);
+    }
+
+    // lastEventId is the Last-Event-ID header of a reconnecting browser, or null
+    public SseEmitter subscribe(String lastEventId) {
+        if (subscribers.size() >= maxSubscribers) {
+            throw new BulkheadFullException("the post feed");
+        }
+        Subscriber subscriber = new Subscriber(new SseEmitter(timeoutMs));
+        SseEmitter emitter = subscriber.emitter;
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscriber.close());
+        emitter.onError(error -> subscriber.close());
+        synchronized (history) {
+            subscribers.add(subscriber);
+            if (lastEventId != null) {
+                replay(subscriber, lastEventId);
+            }
+        }
+        return emitter;
+    }
+
+    void publish(PostEvent event) {
+        if (event == null) {
+            // The repository has logged it; subscribers simply stop getting events
+            return;
+        }
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            logger.error("Failed to serialize {} event for post {}", event.getType(), event.getPostId(), e);
+            return;
+        }
+        synchronized (history) {
+            Frame frame = new Frame(++sequence, event.getType(), json);
+            history.addLast(frame);
+            if (history.size() > bufferSize) {
+                history.removeFirst();
+            }
+            for (Subscriber subscriber : subscribers) {
+                subscriber.offer(frame);
+            }
+        }
+    }
+
+    // Called with the history lock held, so no event can slip in between the replay and live delivery
+    private void replay(Subscriber subscriber, String lastEventId) {
+        long last = parseSequence(lastEventId);
+        if (last == sequence) {
+            return;
+        }
+        if (last < 0 || last > sequence || history.isEmpty() || last < history.peekFirst().sequence() - 1) {
+            subscriber.offer(new Frame(sequence, RESET, "{}"));
+            return;
+        }
+        for (Frame frame : history) {
+            if (frame.sequence() > last) {
+                subscriber.offer(frame);
+            }
+        }
+    }
+
+    private long parseSequence(String eventId) {
+        int separator = eventId.indexOf('-');
+        if (separator < 0 || !eventId.substring(0, separator).equals(instance)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(eventId.substring(separator + 1));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        heartbeat.shutdownNow();
+        subscribers.forEach(Subscriber::close);
+        writers.shutdown();
+    }
+
+    private class Subscriber {
+        private final SseEmitter emitter;
+        private final BlockingQueue<Frame> queue = new ArrayBlockingQueue<>(bufferSize);
+        private final AtomicBoolean writing = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        void offer(Frame frame) {
+            if (closed.get()) {
+                return;
+            }
+            if (!queue.offer(frame)) {
+                logger.info("Dropping post feed subscriber that fell {} events behind", bufferSize);
+                close();
+                return;
+            }
+            if (writing.compareAndSet(false, true)) {
+                writers.execute(this::drain);
+            }
+        }
+
+        // Completing may wait for a write in progress, so it never runs on the publishing thread
+        void close() {
+            if (!closed.compareAndSet(false, true)) {
+                return;
+            }
+            subscribers.remove(this);
+            queue.clear();
+            try {
+                writers.execute(emitter::complete);
+            } catch (RejectedExecutionException e) {
+                // Shutting down; the container closes the connection
+            }
+        }
+
+        private void drain() {
+            do {
+                Frame frame;
+                while (!closed.get() && (frame = queue.poll()) != null) {
+                    try {
+                        send(frame);
+                    } catch (IOException | IllegalStateException e) {
+                        close();
+                    }
+                }
+                writing.set(false);
+            } while (!closed.get() && !queue.isEmpty() && writing.compareAndSet(false, true));
+        }
+
+        private void send(Frame frame) throws IOException {
+            if (frame == HEARTBEAT) {
+                emitter.send(SseEmitter.event().comment(""));
+            } else {
+                emitter.send(SseEmitter.event()
+                        .id(instance + "-" + frame.sequence())
+                        .name(frame.type())
+                        .data(frame.json(), MediaType.APPLICATION_JSON));
+            }
+        }
+    }
+}
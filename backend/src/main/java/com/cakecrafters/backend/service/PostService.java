@@ -1,176 +1,152 @@
 package com.cakecrafters.backend.service;
 
-import com.google.firebase.database.*;
+import com.cakecrafters.backend.model.BatchOperation;
+import com.cakecrafters.backend.model.BatchResult;
 import com.cakecrafters.backend.model.Comment;
+import com.cakecrafters.backend.model.CursorPage;
 import com.cakecrafters.backend.model.Post;
+import com.cakecrafters.backend.repository.PostRepository;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 
 @Service
 public class PostService {
 
-    private final DatabaseReference database;
+    // Also the most files one media upload may carry
+    public static final int MAX_MEDIA = 3;
+
+    private final PostRepository repository;
+    private final MediaService mediaService;
+    private final DatabaseGuard guard;
+    private final LeaderboardService leaderboardService;
+    private final DocumentVersions versions = new DocumentVersions();
+
+    public PostService(PostRepository repository, MediaService mediaService, DatabaseGuards databaseGuards, LeaderboardService leaderboardService) {
+        this.repository = repository;
+        this.mediaService = mediaService;
+        this.guard = databaseGuards.forCollection("posts");
+        this.leaderboardService = leaderboardService;
+        repository.watch(event -> versions.reported(event != null ? event.getPostId() : null));
+    }
 
-    public PostService() {
-        database = FirebaseDatabase.getInstance().getReference();
+    // Validators for conditional reads; every write below moves them once it has finished, failed or not
+    public DocumentVersions versions() {
+        return versions;
     }
 
     public CompletableFuture<String> createPost(Post post) {
-        CompletableFuture<String> future = new CompletableFuture<>();
-        String postId = database.child("posts").push().getKey();
-        post.setPostId(postId);
-        database.child("posts").child(postId).setValue(post, (error, ref) -> {
-            if (error == null) {
-                future.complete(postId);
-            } else {
-                future.completeExceptionally(new RuntimeException(error.getMessage()));
-            }
-        });
-        return future;
+        post.setMediaUrls(mediaService.ingest(post.getMediaUrls()));
+        return guard.call("create", () -> repository.create(post))
+                .thenApply(postId -> {
+                    leaderboardService.indexPost(post);
+                    return postId;
+                })
+                .whenComplete((postId, throwable) -> versions.changed(post.getPostId()));
+    }
+
+    public CompletableFuture<Post> getPost(String postId) {
+        return guard.call("get", () -> repository.findById(postId));
     }
 
     public CompletableFuture<List<Post>> getAllPosts() {
-        CompletableFuture<List<Post>> future = new CompletableFuture<>();
-        database.child("posts").addListenerForSingleValueEvent(new ValueEventListener() {
-            @Override
-            public void onDataChange(DataSnapshot snapshot) {
-                List<Post> posts = new ArrayList<>();
-                for (DataSnapshot postSnapshot : snapshot.getChildren()) {
-                    Post post = postSnapshot.getValue(Post.class);
-                    if (post != null) {
-                        post.setPostId(postSnapshot.getKey());
-                        posts.add(post);
-                    }
-                }
-                future.complete(posts);
-            }
+        return guard.call("get-all", () -> repository.findAll());
+    }
 
-            @Override
-            public void onCancelled(DatabaseError error) {
-                future.completeExceptionally(new RuntimeException(error.getMessage()));
-            }
-        });
-        return future;
+    public CompletableFuture<CursorPage<Post>> getPostsPage(int limit, String after) {
+        return guard.call("page", () -> repository.findPage(limit, after));
     }
 
     public CompletableFuture<Void> updatePost(String postId, Post post) {
-        CompletableFuture<Void> future = new CompletableFuture<>();
-        database.child("posts").child(postId).setValue(post, (error, ref) -> {
-            if (error == null) {
-                future.complete(null);
-            } else {
-                future.completeExceptionally(new RuntimeException(error.getMessage()));
-            }
-        });
-        return future;
+        post.setMediaUrls(mediaService.ingest(post.getMediaUrls()));
+        return guard.call("update", () -> repository.update(postId, post))
+                .thenRun(() -> {
+                    post.setPostId(postId);
+                    leaderboardService.postUpdated(post);
+                })
+                .whenComplete((updated, throwable) -> versions.changed(postId));
     }
 
     public CompletableFuture<Void> deletePost(String postId) {
-        CompletableFuture<Void> future = new CompletableFuture<>();
-        database.child("posts").child(postId).removeValue((error, ref) -> {
-            if (error == null) {
-                future.complete(null);
-            } else {
-                future.completeExceptionally(new RuntimeException(error.getMessage()));
-            }
-        });
-        return future;
+        return guard.call("delete", () -> repository.delete(postId))
+                .thenRun(() -> leaderboardService.removePost(postId))
+                .whenComplete((deleted, throwable) -> versions.changed(postId));
     }
 
-    public CompletableFuture<Void> likePost(String postId) {
-        CompletableFuture<Void> future = new CompletableFuture<>();
-        database.child("posts").child(postId).child("likesCount").runTransaction(new Transaction.Handler() {
-            @Override
-            public Transaction.Result doTransaction(MutableData currentData) {
-                Integer count = currentData.getValue(Integer.class);
-                if (count == null) {
-                    count = 0;
-                }
-                currentData.setValue(count + 1);
-                return Transaction.success(currentData);
-            }
+    // Creates, updates and deletes go to the repository as one write; each operation gets its own result
+    public CompletableFuture<List<BatchResult>> applyBatch(List<BatchOperation<Post>> operations) {
+        return BatchWrites.apply(operations,
+                post -> {
+                    if (post.getMediaUrls() != null && post.getMediaUrls().size() > MAX_MEDIA) {
+                        throw new IllegalArgumentException("Max " + MAX_MEDIA + " media files allowed");
+                    }
+                    post.setMediaUrls(mediaService.ingest(post.getMediaUrls()));
+                },
+                valid -> guard.call("batch", () -> repository.applyBatch(valid)),
+                Post::getPostId,
+                operation -> {
+                    if (BatchOperation.DELETE.equals(operation.getOp())) {
+                        leaderboardService.removePost(operation.getId());
+                    } else if (BatchOperation.UPDATE.equals(operation.getOp())) {
+                        leaderboardService.postUpdated(operation.getDocument());
+                    } else {
+                        leaderboardService.indexPost(operation.getDocument());
+                    }
+                })
+                .whenComplete((results, throwable) -> operations.forEach(operation -> versions.changed(operation.getId())));
+    }
 
-            @Override
-            public void onComplete(DatabaseError error, boolean committed, DataSnapshot currentData) {
-                if (error == null && committed) {
-                    future.complete(null);
-                } else {
-                    future.completeExceptionally(new RuntimeException(error != null ? error.getMessage() : "Transaction failed"));
-                }
-            }
-        });
-        return future;
+    public CompletableFuture<Void> likePost(String postId) {
+        return guard.call("like", () -> repository.like(postId))
+                .thenRun(() -> refresh(postId, 1))
+                .whenComplete((liked, throwable) -> versions.changed(postId));
     }
 
     public CompletableFuture<Void> dislikePost(String postId) {
-        CompletableFuture<Void> future = new CompletableFuture<>();
-        database.child("posts").child(postId).child("dislikesCount").runTransaction(new Transaction.Handler() {
-            @Override
-            public Transaction.Result doTransaction(MutableData currentData) {
-                Integer count = currentData.getValue(Integer.class);
-                if (count == null) {
-                    count = 0;
-                }
-                currentData.setValue(count + 1);
-                return Transaction.success(currentData);
-            }
-
-            @Override
-            public void onComplete(DatabaseError error, boolean committed, DataSnapshot currentData) {
-                if (error == null && committed) {
-                    future.complete(null);
-                } else {
-                    future.completeExceptionally(new RuntimeException(error != null ? error.getMessage() : "Transaction failed"));
-                }
-            }
-        });
-        return future;
+        return guard.call("dislike", () -> repository.dislike(postId))
+                .thenRun(() -> refresh(postId, -1))
+                .whenComplete((disliked, throwable) -> versions.changed(postId));
     }
 
     public CompletableFuture<String> addComment(String postId, Comment comment) {
-        CompletableFuture<String> future = new CompletableFuture<>();
-        String commentId = database.child("posts").child(postId).child("comments").push().getKey();
-        comment.setCommentId(commentId);
         comment.setCreatedAt(LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
-        database.child("posts").child(postId).child("comments").child(commentId).setValue(comment, (error, ref) -> {
-            if (error == null) {
-                future.complete(commentId);
-            } else {
-                future.completeExceptionally(new RuntimeException(error.getMessage()));
-            }
-        });
-        return future;
+        return guard.call("comment", () -> repository.addComment(postId, comment))
+                .thenApply(commentId -> {
+                    refresh(postId, 0);
+                    return commentId;
+                })
+                .whenComplete((commentId, throwable) -> versions.changed(postId));
     }
 
     public CompletableFuture<Void> updateComment(String postId, String commentId, Comment comment) {
-        CompletableFuture<Void> future = new CompletableFuture<>();
         comment.setCommentId(commentId);
         comment.setPostId(postId);
         comment.setCreatedAt(LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
-        database.child("posts").child(postId).child("comments").child(commentId).setValue(comment, (error, ref) -> {
-            if (error == null) {
-                future.complete(null);
-            } else {
-                future.completeExceptionally(new RuntimeException(error.getMessage()));
-            }
-        });
-        return future;
+        return guard.call("comment", () -> repository.updateComment(postId, commentId, comment))
+                .thenRun(() -> refresh(postId, 0))
+                .whenComplete((updated, throwable) -> versions.changed(postId));
     }
 
     public CompletableFuture<Void> deleteComment(String postId, String commentId) {
-        CompletableFuture<Void> future = new CompletableFuture<>();
-        database.child("posts").child(postId).child("comments").child(commentId).removeValue((error, ref) -> {
-            if (error == null) {
-                future.complete(null);
+        return guard.call("comment", () -> repository.deleteComment(postId, commentId))
+                .thenRun(() -> refresh(postId, 0))
+                .whenComplete((deleted, throwable) -> versions.changed(postId));
+    }
+
+    // Counters and comments are written on their own, so the post is read back to keep the leaderboard copy
+    // current; weight is the like (1) or dislike (-1) to record, or 0. The response does not wait for this.
+    private void refresh(String postId, int weight) {
+        getPost(postId).thenAccept(post -> {
+            if (weight != 0) {
+                leaderboardService.postRated(post, weight);
             } else {
-                future.completeExceptionally(new RuntimeException(error.getMessage()));
+                leaderboardService.indexPost(post);
             }
+            // Listings served from the leaderboard changed again
+            versions.changed(postId);
         });
-        return future;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,174 @@
+package com.cakecrafters.backend.service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+// In-memory inverted index with BM25 ranking. Each document is a set of weighted text fields; a term's frequency
+// is the sum of its field weights, so a match in a title counts more than one in the body. The last query term
+// also matches as a prefix, so results appear while the user is still typing.
+public class SearchIndex {
+
+    public record Field(String text, float weight) {}
+
+    public record Hit(String key, double score) {}
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final int MAX_PREFIX_EXPANSIONS = 64;
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Set<String> STOP_WORDS = Set.of("a", "an", "and", "the", "of", "with", "to", "in", "for", "on", "or", "is");
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // term -> document key -> weighted term frequency; sorted so prefixes are a range scan
+    private final NavigableMap<String, Map<String, Float>> postings = new TreeMap<>();
+    private final Map<String, Map<String, Float>> documentTerms = new HashMap<>();
+    private final Map<String, Float> documentLengths = new HashMap<>();
+    private double totalLength;
+
+    // Adds the document, replacing any previous version with the same key
+    public void put(String key, List<Field> fields) {
+        Map<String, Float> terms = new HashMap<>();
+        float length = 0;
+        for (Field field : fields) {
+            for (String token : tokenize(field.text())) {
+                terms.merge(token, field.weight(), Float::sum);
+                length += field.weight();
+            }
+        }
+        lock.writeLock().lock();
+        try {
+            removeLocked(key);
+            for (Map.Entry<String, Float> term : terms.entrySet()) {
+                postings.computeIfAbsent(term.getKey(), t -> new HashMap<>()).put(key, term.getValue());
+            }
+            documentTerms.put(key, terms);
+            documentLengths.put(key, length);
+            totalLength += length;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String key) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(key);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documentLengths.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Best matches first; every query term adds to the score, so documents matching more terms rank higher
+    public List<Hit> search(String query, int limit, Predicate<String> keyFilter) {
+        List<String> terms = tokenize(query);
+        if (terms.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        boolean prefixLast = Character.isLetterOrDigit(query.charAt(query.length() - 1));
+        Map<String, Double> scores = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            int documents = documentLengths.size();
+            if (documents == 0) {
+                return List.of();
+            }
+            double averageLength = Math.max(totalLength / documents, 1);
+            for (int i = 0; i < terms.size(); i++) {
+                String term = terms.get(i);
+                Map<String, Map<String, Float>> matches = prefixLast && i == terms.size() - 1
+                        ? postings.subMap(term, true, term + Character.MAX_VALUE, false)
+                        : postings.containsKey(term) ? Map.of(term, postings.get(term)) : Map.of();
+                // A prefix can expand to several terms in one document; only the best expansion counts
+                Map<String, Double> termScores = new HashMap<>();
+                int expansions = 0;
+                for (Map<String, Float> documentsWithTerm : matches.values()) {
+                    if (expansions++ == MAX_PREFIX_EXPANSIONS) {
+                        break;
+                    }
+                    double idf = Math.log(1 + (documents - documentsWithTerm.size() + 0.5) / (documentsWithTerm.size() + 0.5));
+                    for (Map.Entry<String, Float> posting : documentsWithTerm.entrySet()) {
+                        if (!keyFilter.test(posting.getKey())) {
+                            continue;
+                        }
+                        double frequency = posting.getValue();
+                        double length = documentLengths.get(posting.getKey());
+                        double score = idf * frequency * (K1 + 1) / (frequency + K1 * (1 - B + B * length / averageLength));
+                        termScores.merge(posting.getKey(), score, Math::max);
+                    }
+                }
+                termScores.forEach((key, score) -> scores.merge(key, score, Double::sum));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return top(scores, limit);
+    }
+
+    // Lower-cased, accent-folded words and numbers, without a few stop words
+    public static List<String> tokenize(String text) {
+        if (text == null || text.isEmpty()) {
+            return List.of();
+        }
+        String folded = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("").toLowerCase(Locale.ROOT);
+        List<String> tokens = new ArrayList<>();
+        for (String token : SEPARATORS.split(folded)) {
+            if (!token.isEmpty() && !STOP_WORDS.contains(token)) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    private void removeLocked(String key) {
+        Map<String, Float> terms = documentTerms.remove(key);
+        if (terms == null) {
+            return;
+        }
+        for (String term : terms.keySet()) {
+            Map<String, Float> documentsWithTerm = postings.get(term);
+            documentsWithTerm.remove(key);
+            if (documentsWithTerm.isEmpty()) {
+                postings.remove(term);
+            }
+        }
+        totalLength -= documentLengths.remove(key);
+    }
+
+    private static List<Hit> top(Map<String, Double> scores, int limit) {
+        Comparator<Hit> ranking = Comparator.comparingDouble(Hit::score).thenComparing(Hit::key, Comparator.reverseOrder());
+        PriorityQueue<Hit> best = new PriorityQueue<>(ranking);
+        for (Map.Entry<String, Double> score : scores.entrySet()) {
+            best.add(new Hit(score.getKey(), score.getValue()));
+            if (best.size() > limit) {
+                best.poll();
+            }
+        }
+        List<Hit> hits = new ArrayList<>(best);
+        hits.sort(Collections.reverseOrder(ranking));
+        return hits;
+    }
+}
@@ -0,0 +1,109 @@
+package com.cakecrafters.backend.service;
+
+import com.cakecrafters.backend.model.CakeDecTip;
+import com.cakecrafters.backend.model.CakeRecipe;
+import com.cakecrafters.backend.model.SearchResult;
+import com.cakecrafters.backend.repository.CakeDecTipRepository;
+import com.cakecrafters.backend.repository.CakeRecipeRepository;
+import com.cakecrafters.backend.repository.SnapshotCaches;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+// Full-text search over recipes and decoration tips. The index is built from the database once the application
+// is ready and then maintained by CakeRecipeService and CakeDecTipService as they write, so writes made by other
+// instances are only picked up at the next startup.
+@Service
+public class SearchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SearchService.class);
+
+    // Keys are "<type>/<id>" so recipes and tips share one index and one set of term statistics
+    private final SearchIndex index = new SearchIndex();
+    private final Map<String, SearchResult> documents = new ConcurrentHashMap<>();
+    private final CakeRecipeRepository recipes;
+    private final CakeDecTipRepository tips;
+    private final SnapshotCaches snapshotCaches;
+
+    public SearchService(CakeRecipeRepository recipes, CakeDecTipRepository tips, SnapshotCaches snapshotCaches) {
+        this.recipes = recipes;
+        this.tips = tips;
+        this.snapshotCaches = snapshotCaches;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildIndex() {
+        snapshotCaches.reconciled().thenCompose(ready -> recipes.findAll())
+                .thenAccept(all -> all.forEach(this::indexRecipe))
+                .thenCompose(done -> tips.findAll())
+                .thenAccept(all -> all.forEach(this::indexTip))
+                .whenComplete((done, throwable) -> {
+                    if (throwable != null) {
+                        logger.error("Failed to build search index", throwable);
+                    } else {
+                        logger.info("Search index built with {} documents", index.size());
+                    }
+                });
+    }
+
+    public void indexRecipe(CakeRecipe recipe) {
+        String key = key(SearchResult.RECIPE, recipe.getId());
+        documents.put(key, SearchResult.from(recipe));
+        index.put(key, List.of(
+                new SearchIndex.Field(recipe.getCakeName(), 3),
+                new SearchIndex.Field(recipe.getSubTitle(), 2),
+                new SearchIndex.Field(recipe.getCakeType(), 1),
+                new SearchIndex.Field(recipe.getIngredients(), 1),
+                new SearchIndex.Field(recipe.getInstructions(), 1),
+                new SearchIndex.Field(recipe.getAuthorName(), 1)));
+    }
+
+    public void indexTip(CakeDecTip tip) {
+        String key = key(SearchResult.TIP, tip.getId());
+        documents.put(key, SearchResult.from(tip));
+        index.put(key, List.of(
+                new SearchIndex.Field(tip.getTitle(), 3),
+                new SearchIndex.Field(tip.getDescription(), 1),
+                new SearchIndex.Field(tip.getTip(), 1),
+                new SearchIndex.Field(tip.getCategory(), 1),
+                new SearchIndex.Field(tip.getAuthor(), 1)));
+    }
+
+    public void removeRecipe(String id) {
+        remove(key(SearchResult.RECIPE, id));
+    }
+
+    public void removeTip(String id) {
+        remove(key(SearchResult.TIP, id));
+    }
+
+    // type is "recipe", "tip" or null for both
+    public List<SearchResult> search(String query, String type, int limit) {
+        Predicate<String> filter = type == null ? key -> true : key -> key.startsWith(type + "/");
+        List<SearchResult> results = new ArrayList<>();
+        for (SearchIndex.Hit hit : index.search(query, limit, filter)) {
+            SearchResult document = documents.get(hit.key());
+            if (document != null) {
+                results.add(document.withScore(hit.score()));
+            }
+        }
+        return results;
+    }
+
+    private void remove(String key) {
+        index.remove(key);
+        documents.remove(key);
+    }
+
+    private static String key(String type, String id) {
+        return type + "/" + id;
+    }
+}
@@ -0,0 +1,22 @@
+package com.cakecrafters.backend.service;
+
+import java.nio.file.Path;
+
+public class StoredMedia {
+    private final String hash;
+    private final Path path;
+    private final String contentType;
+    private final long size;
+
+    public StoredMedia(String hash, Path path, String contentType, long size) {
+        this.hash = hash;
+        this.path = path;
+        this.contentType = contentType;
+        this.size = size;
+    }
+
+    public String getHash() { return hash; }
+    public Path getPath() { return path; }
+    public String getContentType() { return contentType; }
+    public long getSize() { return size; }
+}
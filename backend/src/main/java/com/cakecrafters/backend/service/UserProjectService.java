@@ -1,139 +1,78 @@
 package com.cakecrafters.backend.service;
 
+import com.cakecrafters.backend.model.BatchOperation;
+import com.cakecrafters.backend.model.BatchResult;
+import com.cakecrafters.backend.model.CursorPage;
 import com.cakecrafters.backend.model.UserProject;
-import com.google.firebase.database.*;
+import com.cakecrafters.backend.repository.UserProjectRepository;
 import org.springframework.stereotype.Service;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 
 @Service
 public class UserProjectService {
 
-    private final DatabaseReference databaseReference;
+    private final UserProjectRepository repository;
+    private final MediaService mediaService;
+    private final DatabaseGuard guard;
+    private final DocumentVersions versions = new DocumentVersions();
 
-    public UserProjectService() {
-        this.databaseReference = FirebaseDatabase.getInstance().getReference("userProjects");
+    public UserProjectService(UserProjectRepository repository, MediaService mediaService, DatabaseGuards databaseGuards) {
+        this.repository = repository;
+        this.mediaService = mediaService;
+        this.guard = databaseGuards.forCollection("userProjects");
+        repository.watchChanges(versions::reported);
+    }
+
+    // Validators for conditional reads; every write below moves them once it has finished, failed or not
+    public DocumentVersions versions() {
+        return versions;
     }
 
     public CompletableFuture<UserProject> createUserProject(UserProject userProject) {
-        CompletableFuture<UserProject> future = new CompletableFuture<>();
-        String key = databaseReference.push().getKey();
-        userProject.setId(key);
-        databaseReference.child(key).setValue(userProject, (error, ref) -> {
-            if (error == null) {
-                future.complete(userProject);
-            } else {
-                future.completeExceptionally(new RuntimeException(error.getMessage()));
-            }
-        });
-        return future;
+        userProject.setProgressUpdates(mediaService.ingest(userProject.getProgressUpdates()));
+        return guard.call("create", () -> repository.create(userProject))
+                .whenComplete((created, throwable) -> versions.changed(userProject.getId()));
     }
 
     public CompletableFuture<UserProject> getUserProject(String id) {
-        CompletableFuture<UserProject> future = new CompletableFuture<>();
-        databaseReference.child(id).addListenerForSingleValueEvent(new ValueEventListener() {
-            @Override
-            public void onDataChange(DataSnapshot snapshot) {
-                UserProject project = snapshot.getValue(UserProject.class);
-                if (project != null) {
-                    project.setId(id);
-                    future.complete(project);
-                } else {
-                    future.completeExceptionally(new RuntimeException("Project not found"));
-                }
-            }
-
-            @Override
-            public void onCancelled(DatabaseError error) {
-                future.completeExceptionally(new RuntimeException(error.getMessage()));
-            }
-        });
-        return future;
+        return guard.call("get", () -> repository.findById(id));
     }
 
     public CompletableFuture<List<UserProject>> getAllUserProjects() {
-        CompletableFuture<List<UserProject>> future = new CompletableFuture<>();
-        databaseReference.addListenerForSingleValueEvent(new ValueEventListener() {
-            @Override
-            public void onDataChange(DataSnapshot snapshot) {
-                List<UserProject> projects = new ArrayList<>();
-                for (DataSnapshot data : snapshot.getChildren()) {
-                    UserProject project = data.getValue(UserProject.class);
-                    if (project != null) {
-                        project.setId(data.getKey());
-                        projects.add(project);
-                    }
-                }
-                future.complete(projects);
-            }
+        return guard.call("get-all", () -> repository.findAll());
+    }
 
-            @Override
-            public void onCancelled(DatabaseError error) {
-                future.completeExceptionally(new RuntimeException(error.getMessage()));
-            }
-        });
-        return future;
+    public CompletableFuture<CursorPage<UserProject>> getUserProjectsPage(int limit, String after) {
+        return guard.call("page", () -> repository.findPage(limit, after));
     }
 
     public CompletableFuture<UserProject> updateUserProject(String id, UserProject userProject) {
-        CompletableFuture<UserProject> future = new CompletableFuture<>();
-        userProject.setId(id);
-        databaseReference.child(id).setValue(userProject, (error, ref) -> {
-            if (error == null) {
-                future.complete(userProject);
-            } else {
-                future.completeExceptionally(new RuntimeException(error.getMessage()));
-            }
-        });
-        return future;
+        userProject.setProgressUpdates(mediaService.ingest(userProject.getProgressUpdates()));
+        return guard.call("update", () -> repository.update(id, userProject))
+                .whenComplete((updated, throwable) -> versions.changed(id));
     }
 
     public CompletableFuture<Void> deleteUserProject(String id) {
-        CompletableFuture<Void> future = new CompletableFuture<>();
-        databaseReference.child(id).removeValue((error, ref) -> {
-            if (error == null) {
-                future.complete(null);
-            } else {
-                future.completeExceptionally(new RuntimeException(error.getMessage()));
-            }
-        });
-        return future;
+        return guard.call("delete", () -> repository.delete(id))
+                .whenComplete((deleted, throwable) -> versions.changed(id));
     }
 
-    public CompletableFuture<UserProject> addProgressUpdate(String id, String progressUpdate) {
-        CompletableFuture<UserProject> future = new CompletableFuture<>();
-        databaseReference.child(id).addListenerForSingleValueEvent(new ValueEventListener() {
-            @Override
-            public void onDataChange(DataSnapshot snapshot) {
-                UserProject project = snapshot.getValue(UserProject.class);
-                if (project != null) {
-                    project.setId(id);
-                    List<String> updates = project.getProgressUpdates();
-                    if (updates == null) {
-                        updates = new ArrayList<>();
-                    }
-                    // Ensure the progressUpdate is stored as a plain string
-                    updates.add(progressUpdate);
-                    project.setProgressUpdates(updates);
-                    databaseReference.child(id).setValue(project, (error, ref) -> {
-                        if (error == null) {
-                            future.complete(project);
-                        } else {
-                            future.completeExceptionally(new RuntimeException(error.getMessage()));
-                        }
-                    });
-                } else {
-                    future.completeExceptionally(new RuntimeException("Project not found"));
-                }
-            }
+    // Creates, updates and deletes go to the repository as one write; each operation gets its own result
+    public CompletableFuture<List<BatchResult>> applyBatch(List<BatchOperation<UserProject>> operations) {
+        return BatchWrites.apply(operations,
+                userProject -> userProject.setProgressUpdates(mediaService.ingest(userProject.getProgressUpdates())),
+                valid -> guard.call("batch", () -> repository.applyBatch(valid)),
+                UserProject::getId,
+                operation -> {})
+                .whenComplete((results, throwable) -> operations.forEach(operation -> versions.changed(operation.getId())));
+    }
 
-            @Override
-            public void onCancelled(DatabaseError error) {
-                future.completeExceptionally(new RuntimeException(error.getMessage()));
-            }
-        });
-        return future;
+    public CompletableFuture<UserProject> addProgressUpdate(String id, String progressUpdate) {
+        // The project is read back afterwards for the response
+        String update = mediaService.ingest(progressUpdate);
+        return guard.call("progress", () -> repository.addProgressUpdate(id, update)).thenCompose(written -> getUserProject(id))
+                .whenComplete((updated, throwable) -> versions.changed(id));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,47 @@
+package com.cakecrafters.backend.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class VaryAcceptFilterTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void everyEncodingVariesByAccept() throws Exception {
+        for (String accept : new String[] {"application/json", "application/cbor", "application/x-jackson-smile"}) {
+            MvcResult ok = perform(get("/api/cake-recipes/summary").accept(accept));
+            assertEquals(200, ok.getResponse().getStatus());
+            assertTrue(ok.getResponse().getContentType().startsWith(accept), accept);
+            assertTrue(ok.getResponse().getHeaders(HttpHeaders.VARY).contains(HttpHeaders.ACCEPT), accept);
+
+            MvcResult notModified = perform(get("/api/cake-recipes/summary").accept(accept)
+                    .header(HttpHeaders.IF_NONE_MATCH, ok.getResponse().getHeader(HttpHeaders.ETAG)));
+            assertEquals(304, notModified.getResponse().getStatus());
+            assertTrue(notModified.getResponse().getHeaders(HttpHeaders.VARY).contains(HttpHeaders.ACCEPT), accept);
+
+            MvcResult top = perform(get("/api/cake-recipes/top").accept(accept));
+            assertEquals(200, top.getResponse().getStatus());
+            assertTrue(top.getResponse().getHeaders(HttpHeaders.VARY).contains(HttpHeaders.ACCEPT), accept);
+        }
+    }
+
+    // Controllers answer with futures, so most responses are written on an async dispatch
+    private MvcResult perform(RequestBuilder request) throws Exception {
+        MvcResult result = mockMvc.perform(request).andReturn();
+        return result.getRequest().isAsyncStarted() ? mockMvc.perform(asyncDispatch(result)).andReturn() : result;
+    }
+}
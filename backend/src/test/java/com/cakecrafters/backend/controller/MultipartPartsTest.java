@@ -0,0 +1,83 @@
+package com.cakecrafters.backend.controller;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MultipartPartsTest {
+
+    private static final String BOUNDARY = "----formdata7MA4YWxk";
+
+    @Test
+    void readsPartsThroughSmallReads() throws Exception {
+        // Body bytes that look like the start of a delimiter must come through as data
+        byte[] file = ("ab\r\n--" + BOUNDARY.substring(0, 8) + "cd\r\n-").getBytes(StandardCharsets.ISO_8859_1);
+        byte[] large = new byte[200_000];
+        for (int i = 0; i < large.length; i++) {
+            large[i] = (byte) (i * 31);
+        }
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        body.writeBytes(("preamble\r\n--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"caption\"\r\n\r\n"
+                + "not a file\r\n--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"file\"; filename=\"a.bin\"\r\n"
+                + "Content-Type: image/png\r\n\r\n").getBytes(StandardCharsets.ISO_8859_1));
+        body.writeBytes(file);
+        body.writeBytes(("\r\n--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"file\"; filename=\"b.bin\"\r\n\r\n").getBytes(StandardCharsets.ISO_8859_1));
+        body.writeBytes(large);
+        body.writeBytes(("\r\n--" + BOUNDARY + "--\r\n").getBytes(StandardCharsets.ISO_8859_1));
+
+        MultipartParts parts = new MultipartParts(trickle(body.toByteArray()), BOUNDARY, 1 << 20, 1 << 20);
+        MultipartParts.Part caption = parts.next();
+        assertEquals("caption", caption.name());
+        assertNull(caption.filename());
+        // Left unread, so next() skips it
+
+        MultipartParts.Part first = parts.next();
+        assertEquals("a.bin", first.filename());
+        assertEquals("image/png", first.contentType());
+        assertArrayEquals(file, first.body().readAllBytes());
+
+        MultipartParts.Part second = parts.next();
+        assertEquals("b.bin", second.filename());
+        assertEquals("application/octet-stream", second.contentType());
+        assertArrayEquals(large, second.body().readAllBytes());
+        assertNull(parts.next());
+        assertNull(parts.next());
+    }
+
+    @Test
+    void enforcesLimitsAndRejectsMalformedBodies() throws Exception {
+        byte[] body = ("--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"file\"; filename=\"a.bin\"\r\n\r\n"
+                + "0123456789\r\n--" + BOUNDARY + "--\r\n").getBytes(StandardCharsets.ISO_8859_1);
+        MultipartParts.Part part = new MultipartParts(new ByteArrayInputStream(body), BOUNDARY, 5, 1 << 20).next();
+        assertThrows(MultipartParts.TooLargeException.class, () -> part.body().readAllBytes());
+        assertThrows(MultipartParts.TooLargeException.class,
+                () -> new MultipartParts(new ByteArrayInputStream(body), BOUNDARY, 1 << 20, 16).next());
+
+        byte[] truncated = ("--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"file\"; filename=\"a.bin\"\r\n\r\n0123").getBytes(StandardCharsets.ISO_8859_1);
+        MultipartParts.Part cut = new MultipartParts(new ByteArrayInputStream(truncated), BOUNDARY, 1 << 20, 1 << 20).next();
+        assertThrows(IOException.class, () -> cut.body().readAllBytes());
+        assertThrows(IOException.class,
+                () -> new MultipartParts(new ByteArrayInputStream("no parts".getBytes(StandardCharsets.ISO_8859_1)), BOUNDARY, 1 << 20, 1 << 20).next());
+    }
+
+    // Hands out at most 7 bytes per read, so delimiters and headers straddle reads
+    private static InputStream trickle(byte[] bytes) {
+        return new ByteArrayInputStream(bytes) {
+            @Override
+            public synchronized int read(byte[] target, int offset, int length) {
+                return super.read(target, offset, Math.min(length, 7));
+            }
+        };
+    }
+}
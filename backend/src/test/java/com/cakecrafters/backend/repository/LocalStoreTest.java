@@ -0,0 +1,100 @@
+package com.cakecrafters.backend.repository;
+
+import com.cakecrafters.backend.model.CakeRecipe;
+import com.cakecrafters.backend.model.CursorPage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocalStoreTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void replaysLogAfterRestart() throws IOException {
+        String log = dir.resolve("store.log").toString();
+        LocalStore store = new LocalStore(log);
+        String kept = store.newKey();
+        String deleted = store.newKey();
+        store.put("cakeRecipes", kept, recipe("Sponge"));
+        store.put("cakeRecipes", deleted, recipe("Fruit"));
+        store.update("cakeRecipes", kept, CakeRecipe.class, stored -> {
+            stored.setLikes(stored.getLikes() + 1);
+            return stored;
+        });
+        store.delete("cakeRecipes", deleted);
+        store.close();
+
+        LocalStore reopened = new LocalStore(log);
+        assertNull(reopened.get("cakeRecipes", deleted, CakeRecipe.class));
+        CakeRecipe recipe = reopened.get("cakeRecipes", kept, CakeRecipe.class);
+        assertEquals("Sponge", recipe.getCakeName());
+        assertEquals(1, recipe.getLikes());
+        // Compaction leaves one entry per live document
+        assertEquals(1, Files.readAllLines(Path.of(log)).size());
+        reopened.close();
+    }
+
+    @Test
+    void skipsTornLastEntry() throws IOException {
+        String log = dir.resolve("store.log").toString();
+        LocalStore store = new LocalStore(log);
+        String key = store.newKey();
+        store.put("cakeRecipes", key, recipe("Sponge"));
+        store.close();
+        Files.writeString(Path.of(log), "{\"collection\":\"cakeRecipes\",\"key\":", StandardOpenOption.APPEND);
+
+        LocalStore reopened = new LocalStore(log);
+        assertEquals(1, reopened.list("cakeRecipes", CakeRecipe.class).size());
+        reopened.close();
+    }
+
+    @Test
+    void replaysBatchAsOneEntry() throws IOException {
+        String log = dir.resolve("store.log").toString();
+        LocalStore store = new LocalStore(log);
+        String deleted = store.newKey();
+        store.put("cakeRecipes", deleted, recipe("Fruit"));
+        String created = store.newKey();
+        store.writeAll(List.of(
+                new LocalStore.Write("cakeRecipes", created, recipe("Sponge")),
+                new LocalStore.Write("cakeRecipes", deleted, null)));
+        assertEquals(2, Files.readAllLines(Path.of(log)).size());
+        store.close();
+
+        LocalStore reopened = new LocalStore(log);
+        assertNull(reopened.get("cakeRecipes", deleted, CakeRecipe.class));
+        assertEquals("Sponge", reopened.get("cakeRecipes", created, CakeRecipe.class).getCakeName());
+        reopened.close();
+    }
+
+    @Test
+    void pagesInKeyOrder() throws IOException {
+        LocalStore store = new LocalStore(dir.resolve("store.log").toString());
+        for (String name : List.of("A", "B", "C")) {
+            store.put("cakeRecipes", store.newKey(), recipe(name));
+        }
+        CursorPage<CakeRecipe> first = store.page("cakeRecipes", 2, null, CakeRecipe.class);
+        assertEquals(List.of("A", "B"), first.getItems().stream().map(CakeRecipe::getCakeName).toList());
+        assertNotNull(first.getNextCursor());
+
+        CursorPage<CakeRecipe> second = store.page("cakeRecipes", 2, first.getNextCursor(), CakeRecipe.class);
+        assertEquals(List.of("C"), second.getItems().stream().map(CakeRecipe::getCakeName).toList());
+        assertNull(second.getNextCursor());
+        store.close();
+    }
+
+    private static CakeRecipe recipe(String name) {
+        CakeRecipe recipe = new CakeRecipe();
+        recipe.setCakeName(name);
+        return recipe;
+    }
+}
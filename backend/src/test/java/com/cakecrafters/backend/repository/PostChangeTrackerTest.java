@@ -0,0 +1,78 @@
+package com.cakecrafters.backend.repository;
+
+import com.cakecrafters.backend.model.Comment;
+import com.cakecrafters.backend.model.Post;
+import com.cakecrafters.backend.model.PostEvent;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PostChangeTrackerTest {
+
+    private final PostChangeTracker tracker = new PostChangeTracker();
+    private final List<PostEvent> events = new ArrayList<>();
+
+    PostChangeTrackerTest() {
+        tracker.addListener(events::add);
+    }
+
+    @Test
+    void reportsOnlyWhatChanged() {
+        Post post = post("p1", "Sponge", 0);
+        tracker.seed(post);
+        tracker.changed(post("p1", "Sponge", 0));
+        assertTrue(events.isEmpty());
+
+        Post liked = post("p1", "Sponge", 1);
+        liked.getComments().put("c1", comment("Lovely"));
+        tracker.changed(liked);
+        assertEquals(List.of(PostEvent.LIKES_CHANGED, PostEvent.COMMENT_ADDED), types());
+        assertEquals(1, events.get(0).getLikesCount());
+        assertEquals("c1", events.get(1).getCommentId());
+
+        events.clear();
+        Post edited = post("p1", "Victoria sponge", 1);
+        edited.getComments().put("c1", comment("Lovely!"));
+        tracker.changed(edited);
+        tracker.changed(post("p1", "Victoria sponge", 1));
+        assertEquals(List.of(PostEvent.POST_UPDATED, PostEvent.COMMENT_UPDATED, PostEvent.COMMENT_DELETED), types());
+        assertNull(events.get(0).getPost().getComments());
+    }
+
+    @Test
+    void reportsLossAsANullEvent() {
+        tracker.changed(post("p3", "Lemon", 0));
+        tracker.lost();
+        assertEquals(2, events.size());
+        assertNull(events.get(1));
+    }
+
+    @Test
+    void reportsCreatesAndDeletes() {
+        tracker.changed(post("p2", "Fruit", 0));
+        tracker.removed("p2");
+        tracker.removed("p2");
+
+        assertEquals(List.of(PostEvent.POST_CREATED, PostEvent.POST_DELETED), types());
+    }
+
+    private List<String> types() {
+        return events.stream().map(PostEvent::getType).toList();
+    }
+
+    private static Post post(String id, String description, int likes) {
+        Post post = new Post(description, null, "default-user");
+        post.setPostId(id);
+        post.setLikesCount(likes);
+        post.setComments(new LinkedHashMap<>());
+        return post;
+    }
+
+    private static Comment comment(String content) {
+        return new Comment(content, "default-user", null);
+    }
+}
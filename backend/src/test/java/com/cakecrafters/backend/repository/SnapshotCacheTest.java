@@ -0,0 +1,123 @@
+package com.cakecrafters.backend.repository;
+
+import com.cakecrafters.backend.model.CakeRecipe;
+import com.cakecrafters.backend.model.CakeRecipeSummary;
+import com.cakecrafters.backend.model.CursorPage;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.firebase.database.ChildEventListener;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.InternalHelpers;
+import com.google.firebase.database.ValueEventListener;
+import com.google.firebase.database.core.Path;
+import com.google.firebase.database.snapshot.IndexedNode;
+import com.google.firebase.database.snapshot.NodeUtilities;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SnapshotCacheTest {
+
+    private static final long DAY = 86_400_000;
+
+    @TempDir
+    java.nio.file.Path dir;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private ChildEventListener children;
+    private ValueEventListener reconcile;
+
+    private SnapshotCache<CakeRecipe> open(long maxAgeMs) {
+        DatabaseReference collection = mock(DatabaseReference.class);
+        when(collection.getKey()).thenReturn("cakeRecipes");
+        when(collection.child(anyString())).thenAnswer(invocation ->
+                InternalHelpers.createReference(null, new Path("cakeRecipes/" + invocation.getArgument(0))));
+        doAnswer(invocation -> children = invocation.getArgument(0)).when(collection).addChildEventListener(any());
+        doAnswer(invocation -> {
+            reconcile = invocation.getArgument(0);
+            return null;
+        }).when(collection).addListenerForSingleValueEvent(any());
+        return new SnapshotCache<>(collection, SnapshotMappers::recipe, dir.resolve("cakeRecipes.snapshot"), maxAgeMs, objectMapper);
+    }
+
+    @Test
+    void servesTheLastStateUntilReconciled() throws Exception {
+        SnapshotCache<CakeRecipe> first = open(DAY);
+        assertFalse(first.isServing());
+        children.onChildAdded(snapshot("cakeRecipes/r1", recipe("Sponge", 3)), null);
+        children.onChildAdded(snapshot("cakeRecipes/r2", recipe("Carrot", 5)), null);
+        reconcile.onDataChange(collection("r1", "r2"));
+        assertTrue(first.reconciled().isDone());
+        first.write();
+
+        SnapshotCache<CakeRecipe> restarted = open(DAY);
+        assertTrue(restarted.isServing());
+        List<CakeRecipe> recipes = restarted.list();
+        assertEquals(List.of("r1", "r2"), recipes.stream().map(CakeRecipe::getId).toList());
+        assertEquals("Carrot", recipes.get(1).getCakeName());
+        assertEquals(List.of(), recipes.get(1).getComments());
+        CursorPage<CakeRecipeSummary> page = restarted.page(1, null, CakeRecipeSummary::from);
+        assertEquals(3, page.getItems().get(0).getLikes());
+        assertEquals("r1", page.getNextCursor());
+        assertEquals("r2", restarted.page(1, "r1").getItems().get(0).getId());
+
+        // r2 was deleted and r3 created while the instance was down
+        children.onChildAdded(snapshot("cakeRecipes/r1", recipe("Sponge", 4)), null);
+        children.onChildAdded(snapshot("cakeRecipes/r3", recipe("Lemon", 0)), null);
+        reconcile.onDataChange(collection("r1", "r3"));
+        assertFalse(restarted.isServing());
+        restarted.write();
+
+        SnapshotCache<CakeRecipe> again = open(DAY);
+        assertEquals(List.of("r1", "r3"), again.list().stream().map(CakeRecipe::getId).toList());
+        assertEquals(4, again.list().get(0).getLikes());
+    }
+
+    @Test
+    void ignoresStaleAndDamagedFiles() throws Exception {
+        SnapshotCache<CakeRecipe> first = open(DAY);
+        children.onChildAdded(snapshot("cakeRecipes/r1", recipe("Sponge", 3)), null);
+        reconcile.onDataChange(collection("r1"));
+        first.write();
+
+        assertTrue(open(DAY).isServing());
+        Thread.sleep(5);
+        assertFalse(open(1).isServing());
+
+        Files.write(dir.resolve("cakeRecipes.snapshot"), new byte[] {1, 2, 3});
+        SnapshotCache<CakeRecipe> damaged = open(DAY);
+        assertFalse(damaged.isServing());
+        assertEquals(List.of(), damaged.list());
+    }
+
+    private static Map<String, Object> recipe(String name, int likes) {
+        Map<String, Object> recipe = new LinkedHashMap<>();
+        recipe.put("cakeName", name);
+        recipe.put("likes", likes);
+        return recipe;
+    }
+
+    private static DataSnapshot collection(String... keys) {
+        Map<String, Object> children = new LinkedHashMap<>();
+        for (String key : keys) {
+            children.put(key, recipe(key, 0));
+        }
+        return snapshot("cakeRecipes", children);
+    }
+
+    private static DataSnapshot snapshot(String path, Map<String, Object> node) {
+        return InternalHelpers.createDataSnapshot(InternalHelpers.createReference(null, new Path(path)),
+                IndexedNode.from(NodeUtilities.NodeFromJSON(node)));
+    }
+}
@@ -0,0 +1,91 @@
+package com.cakecrafters.backend.repository;
+
+import com.cakecrafters.backend.model.CakeDecTip;
+import com.cakecrafters.backend.model.CakeRecipe;
+import com.cakecrafters.backend.model.Comment;
+import com.cakecrafters.backend.model.Post;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.InternalHelpers;
+import com.google.firebase.database.core.Path;
+import com.google.firebase.database.snapshot.IndexedNode;
+import com.google.firebase.database.snapshot.NodeUtilities;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnapshotMappersTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void mapsLikeTheFirebaseMapper() throws Exception {
+        CakeRecipe recipe = new CakeRecipe();
+        recipe.setCakeName("Sponge");
+        recipe.setCakeType("Birthday");
+        recipe.setServings(8);
+        recipe.setLikes(3);
+        recipe.setImages(List.of("/media/a.png", "/media/b.png"));
+        Map<String, Object> recipeNode = KeyedChildren.fields(recipe);
+        recipeNode.put("comments", Map.of("-Na", "Lovely", "-Nb", "Moist"));
+        DataSnapshot recipeSnapshot = snapshot("cakeRecipes/r1", recipeNode);
+
+        CakeRecipe expectedRecipe = recipeSnapshot.getValue(CakeRecipe.class);
+        expectedRecipe.setId("r1");
+        expectedRecipe.setComments(List.of("Lovely", "Moist"));
+        assertEquals(json(expectedRecipe), json(SnapshotMappers.recipe(recipeSnapshot)));
+
+        CakeDecTip tip = new CakeDecTip();
+        tip.setTitle("Piping");
+        tip.setCategory("Icing");
+        tip.setMedia(List.of("/media/c.png"));
+        Map<String, Object> tipNode = KeyedChildren.fields(tip);
+        Map<String, Object> comment = new LinkedHashMap<>();
+        comment.put("text", "Thanks");
+        comment.put("author", "sam");
+        tipNode.put("comments", Map.of("-Nc", comment));
+        DataSnapshot tipSnapshot = snapshot("decorationTips/t1", tipNode);
+
+        CakeDecTip expectedTip = tipSnapshot.getValue(CakeDecTip.class);
+        expectedTip.setId("t1");
+        CakeDecTip.Comment expectedComment = tipSnapshot.child("comments/-Nc").getValue(CakeDecTip.Comment.class);
+        expectedComment.setId("-Nc");
+        expectedTip.setComments(new ArrayList<>(List.of(expectedComment)));
+        assertEquals(json(expectedTip), json(SnapshotMappers.tip(tipSnapshot)));
+
+        Post post = new Post("Wedding cake", List.of("/media/d.png"), "user-1");
+        post.setLikesCount(2);
+        Comment postComment = new Comment("Wow", "user-2", "p1");
+        post.setComments(Map.of("-Nd", postComment));
+        DataSnapshot postSnapshot = snapshot("posts/p1", KeyedChildren.fields(post));
+
+        Post expectedPost = postSnapshot.getValue(Post.class);
+        expectedPost.setPostId("p1");
+        assertEquals(json(expectedPost), json(SnapshotMappers.post(postSnapshot)));
+    }
+
+    @Test
+    void sharesFacetValuesAndSkipsMissingDocuments() {
+        CakeRecipe first = SnapshotMappers.recipe(snapshot("cakeRecipes/r1", Map.of("cakeType", new String("Wedding"))));
+        CakeRecipe second = SnapshotMappers.recipe(snapshot("cakeRecipes/r2", Map.of("cakeType", new String("Wedding"))));
+        assertSame(first.getCakeType(), second.getCakeType());
+        assertEquals(List.of(), first.getComments());
+
+        assertNull(SnapshotMappers.recipe(snapshot("cakeRecipes/r3", Map.of())));
+        assertNull(SnapshotMappers.post(snapshot("posts/p2", Map.of())));
+    }
+
+    private String json(Object value) throws Exception {
+        return objectMapper.writeValueAsString(value);
+    }
+
+    private static DataSnapshot snapshot(String path, Map<String, Object> node) {
+        return InternalHelpers.createDataSnapshot(InternalHelpers.createReference(null, new Path(path)),
+                IndexedNode.from(NodeUtilities.NodeFromJSON(node)));
+    }
+}
@@ -0,0 +1,94 @@
+package com.cakecrafters.backend.repository;
+
+import com.cakecrafters.backend.service.BulkheadFullException;
+import com.google.firebase.database.DatabaseReference;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+class WriteBehindQueueTest {
+
+    private final List<Map<String, Object>> commits = new CopyOnWriteArrayList<>();
+    private final List<DatabaseReference.CompletionListener> listeners = new CopyOnWriteArrayList<>();
+
+    @SuppressWarnings("unchecked")
+    private DatabaseReference root() {
+        DatabaseReference root = mock(DatabaseReference.class);
+        doAnswer(invocation -> {
+            commits.add(Map.copyOf((Map<String, Object>) invocation.getArgument(0)));
+            listeners.add(invocation.getArgument(1));
+            return null;
+        }).when(root).updateChildren(any(), any(DatabaseReference.CompletionListener.class));
+        return root;
+    }
+
+    @Test
+    void groupsWritesIntoOneUpdateAndCompletesEachCaller() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        WriteBehindQueue writes = new WriteBehindQueue(root(), true, 16, 8, 200, registry);
+
+        CompletableFuture<Void> first = writes.submit(new MultiPathUpdate().set("posts/a", "A"));
+        CompletableFuture<Void> second = writes.submit(new MultiPathUpdate().set("posts/b", "B").set("summaries/b", "b"));
+        // Inside posts/a, which updateChildren would reject in the same call
+        CompletableFuture<Void> third = writes.submit(new MultiPathUpdate().set("posts/a/title", "T"));
+        awaitCommits(2);
+
+        assertEquals(Map.of("posts/a", "A", "posts/b", "B", "summaries/b", "b"), commits.get(0));
+        assertEquals(Map.of("posts/a/title", "T"), commits.get(1));
+        assertFalse(first.isDone());
+
+        listeners.get(0).onComplete(null, null);
+        listeners.get(1).onComplete(null, null);
+        first.get(1, TimeUnit.SECONDS);
+        second.get(1, TimeUnit.SECONDS);
+        third.get(1, TimeUnit.SECONDS);
+        assertEquals(3, registry.get(WriteBehindQueue.BATCH_SIZE).summary().totalAmount());
+        assertEquals(2, registry.get(WriteBehindQueue.COMMITS).tag("outcome", "SUCCESS").timer().count());
+        writes.close();
+    }
+
+    @Test
+    void rejectsWritesWhenTheQueueIsFull() throws Exception {
+        CountDownLatch blocked = new CountDownLatch(1);
+        DatabaseReference root = mock(DatabaseReference.class);
+        doAnswer(invocation -> {
+            blocked.await();
+            return null;
+        }).when(root).updateChildren(any(), any(DatabaseReference.CompletionListener.class));
+        WriteBehindQueue writes = new WriteBehindQueue(root, true, 1, 1, 0, new SimpleMeterRegistry());
+
+        // The writer takes the first write and blocks on it; the second fills the queue
+        writes.submit(new MultiPathUpdate().set("posts/a", "A"));
+        CompletableFuture<Void> rejected = null;
+        for (int i = 0; i < 100 && rejected == null; i++) {
+            CompletableFuture<Void> write = writes.submit(new MultiPathUpdate().set("posts/" + i, "B"));
+            if (write.isCompletedExceptionally()) {
+                rejected = write;
+            }
+        }
+        assertNotNull(rejected);
+        ExecutionException e = assertThrows(ExecutionException.class, rejected::get);
+        assertInstanceOf(BulkheadFullException.class, e.getCause());
+        blocked.countDown();
+        writes.close();
+    }
+
+    private void awaitCommits(int count) throws InterruptedException {
+        for (int i = 0; i < 200 && commits.size() < count; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(count, commits.size());
+    }
+}
@@ -0,0 +1,41 @@
+package com.cakecrafters.backend.service;
+
+import com.cakecrafters.backend.model.BatchOperation;
+import com.cakecrafters.backend.model.BatchResult;
+import com.cakecrafters.backend.model.CakeRecipe;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchWritesTest {
+
+    @Test
+    void reportsMissingTargetsAndAppliesTheRest() {
+        List<BatchOperation<CakeRecipe>> operations = List.of(
+                new BatchOperation<>(BatchOperation.CREATE, null, new CakeRecipe()),
+                new BatchOperation<>(BatchOperation.UPDATE, "gone", new CakeRecipe()),
+                new BatchOperation<>(BatchOperation.DELETE, "kept", null),
+                new BatchOperation<>(BatchOperation.DELETE, "gone2", null));
+        List<BatchOperation<CakeRecipe>> applied = new ArrayList<>();
+
+        List<BatchResult> results = BatchWrites.apply(operations, recipe -> { },
+                valid -> {
+                    valid.get(0).getDocument().setId("new");
+                    return CompletableFuture.completedFuture(Set.of("gone", "gone2"));
+                },
+                CakeRecipe::getId, applied::add).join();
+
+        assertEquals(BatchResult.CREATED, results.get(0).getStatus());
+        assertEquals("new", results.get(0).getId());
+        assertEquals(BatchResult.NOT_FOUND, results.get(1).getStatus());
+        assertEquals("gone", results.get(1).getId());
+        assertEquals(BatchResult.DELETED, results.get(2).getStatus());
+        assertEquals(BatchResult.NOT_FOUND, results.get(3).getStatus());
+        assertEquals(List.of(operations.get(0), operations.get(2)), applied);
+    }
+}
@@ -0,0 +1,59 @@
+package com.cakecrafters.backend.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.tracing.Tracer;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DatabaseGuardTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final DatabaseGuard guard = new DatabaseGuard("cakeRecipes", 1, operation -> 5000, registry, Tracer.NOOP);
+
+    @Test
+    void timesCallsAndCountsDocuments() {
+        guard.call("get-all", () -> CompletableFuture.completedFuture(List.of("a", "b"))).join();
+        guard.call("get", () -> CompletableFuture.failedFuture(new RuntimeException("missing")))
+                .exceptionally(throwable -> null).join();
+
+        assertEquals(1, registry.get(DatabaseGuard.CALLS).tags("operation", "get-all", "outcome", "SUCCESS").timer().count());
+        assertEquals(1, registry.get(DatabaseGuard.CALLS).tags("operation", "get", "exception", "RuntimeException").timer().count());
+        assertEquals(2, registry.get(DatabaseGuard.DOCUMENTS).tag("operation", "get-all").summary().totalAmount());
+        assertNull(registry.find(DatabaseGuard.DOCUMENTS).tag("operation", "get").summary());
+    }
+
+    @Test
+    void countsRejectedCallsAndCallsInFlight() {
+        CompletableFuture<String> pending = new CompletableFuture<>();
+        guard.call("get", () -> pending);
+        assertEquals(1, registry.get(DatabaseGuard.IN_FLIGHT).gauge().value());
+
+        assertTrue(guard.call("get", () -> CompletableFuture.completedFuture("b")).isCompletedExceptionally());
+        assertEquals(1, registry.get(DatabaseGuard.CALLS).tag("exception", "BulkheadFullException").timer().count());
+
+        pending.complete("a");
+        assertEquals(0, registry.get(DatabaseGuard.IN_FLIGHT).gauge().value());
+    }
+
+    @Test
+    void deadlineFailsOnlyItsOwnCaller() {
+        DatabaseGuard shortLikes = new DatabaseGuard("cakeRecipes", 2, operation -> operation.equals("like") ? 20 : 5000, registry, Tracer.NOOP);
+        // Like a cached load that both callers are waiting on
+        CompletableFuture<String> shared = new CompletableFuture<>();
+        CompletableFuture<String> like = shortLikes.call("like", () -> shared);
+        CompletableFuture<String> get = shortLikes.call("get", () -> shared);
+
+        CompletionException timedOut = assertThrows(CompletionException.class, like::join);
+        assertInstanceOf(TimeoutException.class, timedOut.getCause());
+        assertFalse(shared.isDone());
+        assertFalse(get.isDone());
+        shared.complete("a");
+        assertEquals("a", get.join());
+    }
+}
@@ -0,0 +1,44 @@
+package com.cakecrafters.backend.service;
+
+import com.cakecrafters.backend.model.CakeRecipe;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DocumentVersionsTest {
+
+    private final DocumentVersions versions = new DocumentVersions();
+
+    @Test
+    void keepsVersionUntilChanged() {
+        DocumentVersions.Version first = versions.record("a", recipe("Sponge"), versions.stamp());
+        assertEquals(first, versions.get("a"));
+        assertEquals(first.etag(), versions.record("a", recipe("Sponge"), versions.stamp()).etag());
+
+        String collection = versions.collection().etag();
+        versions.changed("a");
+        assertNull(versions.get("a"));
+        assertNotEquals(collection, versions.collection().etag());
+        assertNotEquals(first.etag(), versions.record("a", recipe("Fruit"), versions.stamp()).etag());
+    }
+
+    @Test
+    void doesNotKeepVersionOfReadRacingWithChange() {
+        long stamp = versions.stamp();
+        versions.changed("b");
+        DocumentVersions.Version stale = versions.record("a", recipe("Sponge"), stamp);
+        assertNotNull(stale.etag());
+        assertNull(versions.get("a"));
+
+        versions.lost();
+        assertNull(versions.collection());
+        versions.record("a", recipe("Sponge"), versions.stamp());
+        assertNull(versions.get("a"));
+    }
+
+    private static CakeRecipe recipe(String name) {
+        CakeRecipe recipe = new CakeRecipe();
+        recipe.setCakeName(name);
+        return recipe;
+    }
+}
@@ -0,0 +1,99 @@
+package com.cakecrafters.backend.service;
+
+import com.cakecrafters.backend.model.CakeRecipeSummary;
+import com.cakecrafters.backend.model.FacetedPage;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FacetIndexTest {
+
+    @Test
+    void intersectsFiltersAndCountsOtherValues() {
+        FacetIndex<String> index = sample();
+
+        FacetedPage<String> page = index.query(Map.of("cakeType", "Chocolate", "skillLevel", "Easy"), 10, null);
+        assertEquals(List.of("a", "d"), page.getItems());
+        assertEquals(2, page.getTotal());
+        // Each facet is counted with only the other facet's filter applied
+        assertEquals(Map.of("Chocolate", 2, "Fruit", 1), page.getFacets().get("cakeType"));
+        assertEquals(Map.of("Easy", 2, "Hard", 1), page.getFacets().get("skillLevel"));
+
+        assertEquals(0, index.query(Map.of("cakeType", "Cheese"), 10, null).getTotal());
+    }
+
+    @Test
+    void pagesInInsertionOrder() {
+        FacetIndex<String> index = sample();
+
+        FacetedPage<String> first = index.query(Map.of(), 2, null);
+        assertEquals(List.of("a", "b"), first.getItems());
+        assertEquals("b", first.getNextCursor());
+        FacetedPage<String> second = index.query(Map.of(), 2, first.getNextCursor());
+        assertEquals(List.of("c", "d"), second.getItems());
+        assertNull(second.getNextCursor());
+    }
+
+    @Test
+    void updatesAndRemovesDocuments() {
+        FacetIndex<String> index = sample();
+        index.put("a", "a", Map.of("cakeType", "Fruit", "skillLevel", "Easy"));
+        index.remove("b");
+
+        FacetedPage<String> page = index.query(Map.of("cakeType", "Fruit"), 10, null);
+        assertEquals(List.of("a", "c"), page.getItems());
+        assertEquals(Map.of("Chocolate", 1, "Fruit", 2), page.getFacets().get("cakeType"));
+        // A removed key still works as a cursor
+        assertEquals(List.of("c", "d"), index.query(Map.of(), 10, "b").getItems());
+        assertThrows(IllegalArgumentException.class, () -> index.query(Map.of(), 10, "missing"));
+    }
+
+    @Test
+    void editsCarryOverTheIndexedLikes() {
+        FacetIndex<CakeRecipeSummary> index = new FacetIndex<>("cakeType");
+        index.put("a", summary("a", 4), Map.of("cakeType", "Chocolate"));
+
+        // An update body has no like count
+        index.update("a", summary("a", 0), Map.of("cakeType", "Fruit"), (indexed, next) -> next.setLikes(indexed.getLikes()));
+        FacetedPage<CakeRecipeSummary> page = index.query(Map.of("cakeType", "Fruit"), 10, null);
+        assertEquals(4, page.getItems().get(0).getLikes());
+        assertEquals(0, index.query(Map.of("cakeType", "Chocolate"), 10, null).getTotal());
+
+        index.update("b", summary("b", 2), Map.of(), (indexed, next) -> next.setLikes(indexed.getLikes()));
+        assertEquals(2, index.query(Map.of(), 10, "a").getItems().get(0).getLikes());
+    }
+
+    @Test
+    void compactsAfterManyRemovals() {
+        FacetIndex<String> index = new FacetIndex<>("cakeType");
+        for (int i = 0; i < 200; i++) {
+            index.put("k" + i, "v" + i, Map.of("cakeType", i % 2 == 0 ? "Even" : "Odd"));
+        }
+        for (int i = 0; i < 190; i++) {
+            index.remove("k" + i);
+        }
+
+        FacetedPage<String> page = index.query(Map.of("cakeType", "Even"), 10, null);
+        assertEquals(List.of("v190", "v192", "v194", "v196", "v198"), page.getItems());
+        assertEquals(10, index.size());
+    }
+
+    private static CakeRecipeSummary summary(String id, int likes) {
+        CakeRecipeSummary summary = new CakeRecipeSummary();
+        summary.setId(id);
+        summary.setLikes(likes);
+        return summary;
+    }
+
+    private static FacetIndex<String> sample() {
+        FacetIndex<String> index = new FacetIndex<>("cakeType", "skillLevel");
+        index.put("a", "a", Map.of("cakeType", "Chocolate", "skillLevel", "Easy"));
+        index.put("b", "b", Map.of("cakeType", "Chocolate", "skillLevel", "Hard"));
+        index.put("c", "c", Map.of("cakeType", "Fruit", "skillLevel", "Easy"));
+        index.put("d", "d", Map.of("cakeType", "Chocolate", "skillLevel", "Easy"));
+        return index;
+    }
+}
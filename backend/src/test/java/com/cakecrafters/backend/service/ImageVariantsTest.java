@@ -0,0 +1,73 @@
+package com.cakecrafters.backend.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImageVariantsTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void resizesLargeImagesAndReusesSmallOnes() throws Exception {
+        FileSystemMediaStore store = new FileSystemMediaStore(dir.toString());
+        ImageVariants variants = new ImageVariants(store, 1, 4, 320, 1024);
+
+        String large = store.put(new ByteArrayInputStream(png(2000, 1000, BufferedImage.TYPE_INT_RGB)), "image/png");
+        variants.generate(large);
+        StoredMedia thumb = store.findVariant(large, "thumb").orElseThrow();
+        assertEquals("image/jpeg", thumb.getContentType());
+        BufferedImage decoded = ImageIO.read(thumb.getPath().toFile());
+        assertEquals(320, decoded.getWidth());
+        assertEquals(160, decoded.getHeight());
+        assertEquals(1024, ImageIO.read(store.findVariant(large, "medium").orElseThrow().getPath().toFile()).getWidth());
+        assertTrue(thumb.getSize() < store.find(large).orElseThrow().getSize());
+
+        // Transparency survives as PNG
+        String transparent = store.put(new ByteArrayInputStream(png(800, 800, BufferedImage.TYPE_INT_ARGB)), "image/png");
+        variants.generate(transparent);
+        assertEquals("image/png", store.findVariant(transparent, "thumb").orElseThrow().getContentType());
+        assertArrayEquals(Files.readAllBytes(store.find(transparent).orElseThrow().getPath()),
+                Files.readAllBytes(store.findVariant(transparent, "medium").orElseThrow().getPath()));
+
+        String video = store.put(new ByteArrayInputStream(new byte[] {0, 0, 0, 24}), "video/mp4");
+        variants.generate(video);
+        assertTrue(store.findVariant(video, "thumb").isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> ImageVariants.Size.of("huge"));
+    }
+
+    @Test
+    void remembersImagesItCannotRead() throws Exception {
+        FileSystemMediaStore store = new FileSystemMediaStore(dir.toString());
+        ImageVariants variants = new ImageVariants(store, 1, 4, 320, 1024);
+
+        String broken = store.put(new ByteArrayInputStream("not an image".getBytes()), "image/png");
+        String fine = store.put(new ByteArrayInputStream(png(10, 10, BufferedImage.TYPE_INT_RGB)), "image/png");
+        variants.generate(broken);
+        variants.generate(fine);
+        assertTrue(variants.hasFailed(broken));
+        assertFalse(variants.hasFailed(fine));
+        assertTrue(store.findVariant(broken, "thumb").isEmpty());
+    }
+
+    private static byte[] png(int width, int height, int type) throws Exception {
+        BufferedImage image = new BufferedImage(width, height, type);
+        for (int x = 0; x < width; x += 7) {
+            for (int y = 0; y < height; y += 5) {
+                image.setRGB(x, y, 0x80000000 | (x * 31 + y * 17));
+            }
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+}
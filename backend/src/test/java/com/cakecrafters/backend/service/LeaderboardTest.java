@@ -0,0 +1,89 @@
+package com.cakecrafters.backend.service;
+
+import com.cakecrafters.backend.model.CakeRecipeSummary;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LeaderboardTest {
+
+    private static final long HOUR = 3_600_000;
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+    private final Leaderboard<String> leaderboard = new Leaderboard<>(LeaderboardTest::likes, HOUR, now::get);
+
+    @Test
+    void ordersTopByLikes() {
+        leaderboard.put("a", "a:3");
+        leaderboard.put("b", "b:7");
+        leaderboard.put("c", "c:5");
+
+        assertEquals(List.of("b:7", "c:5", "a:3"), leaderboard.top(10));
+        leaderboard.put("a", "a:9");
+        assertEquals(List.of("a:9", "b:7"), leaderboard.top(2));
+        leaderboard.remove("b");
+        assertEquals(List.of("a:9", "c:5"), leaderboard.top(10));
+    }
+
+    @Test
+    void recentLikesOutweighOlderOnes() {
+        leaderboard.put("old", "old:3");
+        leaderboard.put("new", "new:2");
+        leaderboard.put("quiet", "quiet:0");
+        leaderboard.record("old", 3);
+        now.addAndGet(2 * HOUR);
+        leaderboard.record("new", 1);
+
+        // Three likes two half-lives ago weigh 0.75 of one like now
+        assertEquals(List.of("new:2", "old:3"), leaderboard.trending(10));
+        leaderboard.record("new", -1);
+        assertEquals(List.of("old:3"), leaderboard.trending(10));
+    }
+
+    @Test
+    void keepsOrderAcrossRebase() {
+        leaderboard.put("a", "a:1");
+        leaderboard.put("b", "b:1");
+        leaderboard.record("a", 1);
+        now.addAndGet(300 * HOUR);
+        leaderboard.record("b", 1);
+        now.addAndGet(HOUR);
+        leaderboard.record("a", 1);
+
+        assertEquals(List.of("a:1", "b:1"), leaderboard.trending(10));
+    }
+
+    @Test
+    void editsKeepTheRankedLikes() {
+        Leaderboard<CakeRecipeSummary> recipes = new Leaderboard<>(CakeRecipeSummary::getLikes, HOUR, now::get);
+        recipes.put("a", summary("a", "Sponge", 5));
+        recipes.put("b", summary("b", "Carrot", 3));
+        recipes.record("a", 5);
+
+        // An update body has no like count
+        recipes.update("a", summary("a", "Lemon sponge", 0), CakeRecipeSummary::setLikes);
+        List<CakeRecipeSummary> top = recipes.top(10);
+        assertEquals(List.of("a", "b"), top.stream().map(CakeRecipeSummary::getId).toList());
+        assertEquals("Lemon sponge", top.get(0).getCakeName());
+        assertEquals(5, top.get(0).getLikes());
+        assertEquals("a", recipes.trending(10).get(0).getId());
+
+        recipes.update("c", summary("c", "Lime", 4), CakeRecipeSummary::setLikes);
+        assertEquals(List.of("a", "c", "b"), recipes.top(10).stream().map(CakeRecipeSummary::getId).toList());
+    }
+
+    private static CakeRecipeSummary summary(String id, String name, int likes) {
+        CakeRecipeSummary summary = new CakeRecipeSummary();
+        summary.setId(id);
+        summary.setCakeName(name);
+        summary.setLikes(likes);
+        return summary;
+    }
+
+    private static int likes(String value) {
+        return Integer.parseInt(value.substring(value.indexOf(':') + 1));
+    }
+}
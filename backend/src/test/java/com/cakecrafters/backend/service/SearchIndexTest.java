@@ -0,0 +1,53 @@
+package com.cakecrafters.backend.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchIndexTest {
+
+    @Test
+    void tokenizesFoldingCaseAndAccents() {
+        assertEquals(List.of("creme", "brulee", "cake", "2"), SearchIndex.tokenize("Crème-Brûlée  cake, with 2"));
+    }
+
+    @Test
+    void ranksTitleMatchesAboveBodyMatches() {
+        SearchIndex index = new SearchIndex();
+        index.put("recipe/a", List.of(new SearchIndex.Field("Vanilla sponge", 1), new SearchIndex.Field("Chocolate ganache on top", 1)));
+        index.put("recipe/b", List.of(new SearchIndex.Field("Chocolate fudge cake", 3), new SearchIndex.Field("Butter and sugar", 1)));
+        index.put("recipe/c", List.of(new SearchIndex.Field("Lemon drizzle", 3), new SearchIndex.Field("Lemon zest", 1)));
+
+        List<SearchIndex.Hit> hits = index.search("chocolate ", 10, key -> true);
+        assertEquals(List.of("recipe/b", "recipe/a"), hits.stream().map(SearchIndex.Hit::key).toList());
+    }
+
+    @Test
+    void matchesLastTermAsPrefix() {
+        SearchIndex index = new SearchIndex();
+        index.put("recipe/a", List.of(new SearchIndex.Field("Chocolate fudge cake", 1)));
+        index.put("tip/b", List.of(new SearchIndex.Field("Piping chocolate roses", 1)));
+
+        assertEquals(2, index.search("choc", 10, key -> true).size());
+        assertEquals("tip/b", index.search("chocolate ros", 10, key -> true).get(0).key());
+        assertEquals(List.of(), index.search("choc ", 10, key -> true));
+        assertEquals(1, index.search("choc", 10, key -> key.startsWith("tip/")).size());
+    }
+
+    @Test
+    void replacesAndRemovesDocuments() {
+        SearchIndex index = new SearchIndex();
+        index.put("recipe/a", List.of(new SearchIndex.Field("Carrot cake", 1)));
+        index.put("recipe/a", List.of(new SearchIndex.Field("Red velvet", 1)));
+
+        assertEquals(1, index.size());
+        assertTrue(index.search("carrot", 10, key -> true).isEmpty());
+        assertEquals(1, index.search("velvet", 10, key -> true).size());
+
+        index.remove("recipe/a");
+        assertEquals(0, index.size());
+        assertTrue(index.search("velvet", 10, key -> true).isEmpty());
+    }
+}
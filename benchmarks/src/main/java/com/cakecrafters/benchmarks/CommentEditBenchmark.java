@@ -0,0 +1,79 @@
+package com.cakecrafters.benchmarks;
+
+import com.cakecrafters.backend.model.CakeDecTip;
+import com.cakecrafters.backend.repository.LocalCakeDecTipRepository;
+import com.cakecrafters.backend.repository.LocalCakeRecipeRepository;
+import com.cakecrafters.backend.repository.LocalPostRepository;
+import com.cakecrafters.backend.repository.LocalStore;
+import com.cakecrafters.backend.repository.SnapshotCaches;
+import com.cakecrafters.backend.service.CakeDecTipService;
+import com.cakecrafters.backend.service.DatabaseGuards;
+import com.cakecrafters.backend.service.FacetService;
+import com.cakecrafters.backend.service.FileSystemMediaStore;
+import com.cakecrafters.backend.service.ImageVariants;
+import com.cakecrafters.backend.service.LeaderboardService;
+import com.cakecrafters.backend.service.MediaService;
+import com.cakecrafters.backend.service.SearchService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.tracing.Tracer;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.util.FileSystemUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+// CakeDecTipService.editComment on the embedded engine: the comment list is mutated in a stored copy of the tip,
+// the tip is appended to the log and then read back for the response, so the cost grows with the comment count.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CommentEditBenchmark {
+
+    @Param({"10", "100"})
+    public int comments;
+
+    private Path dir;
+    private LocalStore store;
+    private CakeDecTipService service;
+    private String tipId;
+    private String commentId;
+    private int edits;
+
+    @Setup
+    public void setUp() throws Exception {
+        dir = Files.createTempDirectory("comment-edit");
+        store = new LocalStore(dir.resolve("store.log").toString());
+        FileSystemMediaStore mediaStore = new FileSystemMediaStore(dir.resolve("media").toString());
+        MediaService mediaService = new MediaService(mediaStore, new ImageVariants(mediaStore, 1, 16, 320, 1024), "http://localhost:8080");
+        LocalCakeRecipeRepository recipes = new LocalCakeRecipeRepository(store);
+        LocalCakeDecTipRepository tips = new LocalCakeDecTipRepository(store);
+        SnapshotCaches snapshotCaches = new SnapshotCaches(false, dir.resolve("snapshots").toString(), 60000, 86400000);
+        service = new CakeDecTipService(tips, mediaService,
+                new DatabaseGuards(new StandardEnvironment(), new SimpleMeterRegistry(), Tracer.NOOP, 5000, 64),
+                new SearchService(recipes, tips, snapshotCaches),
+                new FacetService(recipes, tips, snapshotCaches),
+                new LeaderboardService(recipes, tips, new LocalPostRepository(store), snapshotCaches, 24));
+        CakeDecTip tip = service.createTip(Fixtures.tip(1, false, comments)).join();
+        tipId = tip.getId();
+        commentId = tip.getComments().get(comments / 2).getId();
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        store.close();
+        FileSystemUtils.deleteRecursively(dir);
+    }
+
+    @Benchmark
+    public CakeDecTip editComment() {
+        CakeDecTip.Comment comment = new CakeDecTip.Comment();
+        comment.setText("Edited " + edits++);
+        comment.setAuthor("Member");
+        return service.editComment(tipId, commentId, comment).join();
+    }
+}
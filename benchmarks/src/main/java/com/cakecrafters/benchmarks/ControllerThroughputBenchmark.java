@@ -0,0 +1,92 @@
+package com.cakecrafters.benchmarks;
+
+import com.cakecrafters.backend.CakeCraftersBackendApplication;
+import com.cakecrafters.backend.model.CakeRecipe;
+import com.cakecrafters.backend.service.CakeRecipeService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.FileSystemUtils;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Full HTTP round trips against the application running on the embedded storage engine, so the numbers cover
+// Tomcat, the controllers, the services and serialization but not Firebase latency.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 5)
+@Measurement(iterations = 5, time = 4)
+@Fork(1)
+@Threads(4)
+public class ControllerThroughputBenchmark {
+
+    private static final int RECIPES = 500;
+
+    private Path dir;
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private String baseUrl;
+    private final List<String> ids = new ArrayList<>();
+
+    @Setup
+    public void setUp() throws Exception {
+        dir = Files.createTempDirectory("controller-throughput");
+        context = SpringApplication.run(CakeCraftersBackendApplication.class,
+                "--server.port=0",
+                "--cakecrafters.storage.engine=local",
+                "--cakecrafters.storage.local.log=" + dir.resolve("store.log"),
+                "--cakecrafters.media.root=" + dir.resolve("media"),
+                "--logging.level.root=WARN");
+        CakeRecipeService recipes = context.getBean(CakeRecipeService.class);
+        for (int i = 0; i < RECIPES; i++) {
+            CakeRecipe recipe = Fixtures.recipe(i, false, 5);
+            recipe.setId(null);
+            ids.add(recipes.createCakeRecipe(recipe).join().getId());
+        }
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port") + "/api/cake-recipes";
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+        FileSystemUtils.deleteRecursively(dir.toFile());
+    }
+
+    @Benchmark
+    public int getRecipe() throws Exception {
+        return send(HttpRequest.newBuilder(URI.create(baseUrl + "/" + randomId())).GET());
+    }
+
+    @Benchmark
+    public int listRecipePage() throws Exception {
+        return send(HttpRequest.newBuilder(URI.create(baseUrl + "/summary?limit=20")).GET());
+    }
+
+    @Benchmark
+    public int likeRecipe() throws Exception {
+        return send(HttpRequest.newBuilder(URI.create(baseUrl + "/" + randomId() + "/like")).POST(HttpRequest.BodyPublishers.noBody()));
+    }
+
+    private String randomId() {
+        return ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+    }
+
+    private int send(HttpRequest.Builder request) throws Exception {
+        HttpResponse<byte[]> response = client.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Unexpected status " + response.statusCode());
+        }
+        return response.body().length;
+    }
+}
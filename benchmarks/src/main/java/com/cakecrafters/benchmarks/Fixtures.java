@@ -0,0 +1,98 @@
+package com.cakecrafters.benchmarks;
+
+import com.cakecrafters.backend.model.CakeDecTip;
+import com.cakecrafters.backend.model.CakeRecipe;
+import com.cakecrafters.backend.model.Comment;
+import com.cakecrafters.backend.model.Post;
+
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+// Deterministic sample documents shaped like the ones the frontend sends
+final class Fixtures {
+
+    // Roughly a compressed phone photo; the frontend used to inline images of this size as data URLs
+    static final int IMAGE_BYTES = 48 * 1024;
+
+    private Fixtures() {}
+
+    static String image(boolean inline, int seed) {
+        if (!inline) {
+            return "http://localhost:8080/api/media/" + String.format("%064x", seed);
+        }
+        byte[] bytes = new byte[IMAGE_BYTES];
+        new Random(seed).nextBytes(bytes);
+        return "data:image/jpeg;base64," + Base64.getEncoder().encodeToString(bytes);
+    }
+
+    static CakeRecipe recipe(int i, boolean inlineImages, int comments) {
+        CakeRecipe recipe = new CakeRecipe();
+        recipe.setId(String.format("recipe%06d", i));
+        recipe.setAuthorName("Baker " + i);
+        recipe.setCakeName("Chocolate layer cake " + i);
+        recipe.setSubTitle("Three layers of sponge with ganache");
+        recipe.setCakeType("Layer");
+        recipe.setSkillLevel("Intermediate");
+        recipe.setPrepTime("45 min");
+        recipe.setCookTime("30 min");
+        recipe.setServings(12);
+        recipe.setIngredients("flour, sugar, cocoa, eggs, butter, milk, baking powder, dark chocolate, cream");
+        recipe.setInstructions("Cream the butter and sugar. Beat in the eggs. Fold in the dry ingredients. Bake, cool and layer with ganache.");
+        recipe.setDate("2025-04-01");
+        recipe.setImages(List.of(image(inlineImages, i * 3), image(inlineImages, i * 3 + 1), image(inlineImages, i * 3 + 2)));
+        recipe.setLikes(i % 50);
+        List<String> texts = new ArrayList<>();
+        for (int c = 0; c < comments; c++) {
+            texts.add("Looks delicious, trying this weekend #" + c);
+        }
+        recipe.setComments(texts);
+        return recipe;
+    }
+
+    static CakeDecTip tip(int i, boolean inlineMedia, int comments) {
+        CakeDecTip tip = new CakeDecTip();
+        tip.setId(String.format("tip%06d", i));
+        tip.setTitle("Smooth buttercream edges " + i);
+        tip.setDescription("Use a bench scraper and a turntable for sharp edges.");
+        tip.setCategory("Frosting");
+        tip.setDifficulty("Beginner");
+        tip.setAuthor("Decorator " + i);
+        tip.setTip("Chill the crumb coat for twenty minutes before the final coat.");
+        tip.setMediaType("image");
+        tip.setCreatedAt("2025-04-01T10:00:00");
+        tip.setMedia(List.of(image(inlineMedia, i)));
+        tip.setLikes(i % 50);
+        tip.setComments(tipComments(comments));
+        return tip;
+    }
+
+    static List<CakeDecTip.Comment> tipComments(int count) {
+        List<CakeDecTip.Comment> comments = new ArrayList<>();
+        for (int c = 0; c < count; c++) {
+            CakeDecTip.Comment comment = new CakeDecTip.Comment();
+            comment.setText("Worked great for me #" + c);
+            comment.setAuthor("Member " + c);
+            comment.setCreatedAt("2025-04-02T09:00:00");
+            comments.add(comment);
+        }
+        return comments;
+    }
+
+    static Post post(int i, boolean inlineMedia, int comments) {
+        Post post = new Post("Birthday cake for my daughter " + i, List.of(image(inlineMedia, i), image(inlineMedia, i + 1)), "default-user");
+        post.setPostId(String.format("post%06d", i));
+        post.setLikesCount(i % 50);
+        Map<String, Comment> keyed = new LinkedHashMap<>();
+        for (int c = 0; c < comments; c++) {
+            Comment comment = new Comment("So pretty #" + c, "member" + c, post.getPostId());
+            comment.setCommentId(String.format("comment%04d", c));
+            keyed.put(comment.getCommentId(), comment);
+        }
+        post.setComments(keyed);
+        return post;
+    }
+}
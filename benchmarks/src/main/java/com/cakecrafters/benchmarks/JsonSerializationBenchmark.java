@@ -0,0 +1,61 @@
+package com.cakecrafters.benchmarks;
+
+import com.cakecrafters.backend.model.CakeDecTip;
+import com.cakecrafters.backend.model.CakeRecipe;
+import com.cakecrafters.backend.model.Post;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Response serialization of list endpoints. "inline" reproduces documents that still carry Base64 data URLs,
+// "reference" the media-store URLs they are rewritten to on write.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonSerializationBenchmark {
+
+    @Param({"20", "100"})
+    public int size;
+
+    @Param({"reference", "inline"})
+    public String media;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private List<CakeRecipe> recipes;
+    private List<CakeDecTip> tips;
+    private List<Post> posts;
+
+    @Setup
+    public void setUp() {
+        boolean inline = media.equals("inline");
+        recipes = new ArrayList<>();
+        tips = new ArrayList<>();
+        posts = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            recipes.add(Fixtures.recipe(i, inline, 5));
+            tips.add(Fixtures.tip(i, inline, 5));
+            posts.add(Fixtures.post(i, inline, 5));
+        }
+    }
+
+    @Benchmark
+    public byte[] recipes() throws Exception {
+        return objectMapper.writeValueAsBytes(recipes);
+    }
+
+    @Benchmark
+    public byte[] tips() throws Exception {
+        return objectMapper.writeValueAsBytes(tips);
+    }
+
+    @Benchmark
+    public byte[] posts() throws Exception {
+        return objectMapper.writeValueAsBytes(posts);
+    }
+}
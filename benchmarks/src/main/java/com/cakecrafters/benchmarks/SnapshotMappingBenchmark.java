@@ -0,0 +1,132 @@
+package com.cakecrafters.benchmarks;
+
+import com.cakecrafters.backend.model.CakeDecTip;
+import com.cakecrafters.backend.model.CakeRecipe;
+import com.cakecrafters.backend.repository.SnapshotMappers;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.InternalHelpers;
+import com.google.firebase.database.core.Path;
+import com.google.firebase.database.snapshot.IndexedNode;
+import com.google.firebase.database.snapshot.NodeUtilities;
+import com.google.firebase.database.utilities.encoding.CustomClassMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// DataSnapshot.getValue(type) delegates to CustomClassMapper, so this measures the per-document mapping cost
+// of the repositories without a live database. Documents are in wire form, with keyed child comment maps.
+// The snapshot* methods start from a real DataSnapshot, as the repositories do: getValue(type), which first
+// converts the node to a map tree, against the typed mappers in SnapshotMappers.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SnapshotMappingBenchmark {
+
+    @Param({"0", "50"})
+    public int comments;
+
+    private Map<String, Object> recipeNode;
+    private Map<String, Object> tipNode;
+    private CakeRecipe recipe;
+    private DataSnapshot recipeSnapshot;
+    private DataSnapshot tipSnapshot;
+
+    @Setup
+    public void setUp() {
+        recipe = Fixtures.recipe(1, false, comments);
+        recipeNode = wire(recipe, recipe.getComments());
+        CakeDecTip tip = Fixtures.tip(1, false, comments);
+        tipNode = wire(tip, tip.getComments());
+        recipeSnapshot = snapshot("cakeRecipes/recipe-1", recipeNode);
+        tipSnapshot = snapshot("decorationTips/tip-1", tipNode);
+    }
+
+    @Benchmark
+    public CakeRecipe mapRecipe() {
+        CakeRecipe mapped = CustomClassMapper.convertToCustomClass(recipeNode, CakeRecipe.class);
+        mapped.setComments(readChildren(recipeNode, String.class));
+        return mapped;
+    }
+
+    @Benchmark
+    public CakeDecTip mapTip() {
+        CakeDecTip mapped = CustomClassMapper.convertToCustomClass(tipNode, CakeDecTip.class);
+        mapped.setComments(readChildren(tipNode, CakeDecTip.Comment.class));
+        return mapped;
+    }
+
+    @Benchmark
+    public CakeRecipe snapshotRecipeReflective() {
+        CakeRecipe mapped = recipeSnapshot.getValue(CakeRecipe.class);
+        mapped.setId(recipeSnapshot.getKey());
+        List<String> comments = new ArrayList<>();
+        for (DataSnapshot child : recipeSnapshot.child("comments").getChildren()) {
+            comments.add(child.getValue(String.class));
+        }
+        mapped.setComments(comments);
+        return mapped;
+    }
+
+    @Benchmark
+    public CakeRecipe snapshotRecipeTyped() {
+        return SnapshotMappers.recipe(recipeSnapshot);
+    }
+
+    @Benchmark
+    public CakeDecTip snapshotTipReflective() {
+        CakeDecTip mapped = tipSnapshot.getValue(CakeDecTip.class);
+        mapped.setId(tipSnapshot.getKey());
+        List<CakeDecTip.Comment> comments = new ArrayList<>();
+        for (DataSnapshot child : tipSnapshot.child("comments").getChildren()) {
+            CakeDecTip.Comment comment = child.getValue(CakeDecTip.Comment.class);
+            comment.setId(child.getKey());
+            comments.add(comment);
+        }
+        mapped.setComments(comments);
+        return mapped;
+    }
+
+    @Benchmark
+    public CakeDecTip snapshotTipTyped() {
+        return SnapshotMappers.tip(tipSnapshot);
+    }
+
+    // The write direction, used for every create and update
+    @Benchmark
+    public Object recipeFields() {
+        return CustomClassMapper.convertToPlainJavaTypes(recipe);
+    }
+
+    // A snapshot of an in-memory node; the reference only supplies keys and paths, so it needs no database
+    private static DataSnapshot snapshot(String path, Map<String, Object> node) {
+        return InternalHelpers.createDataSnapshot(InternalHelpers.createReference(null, new Path(path)),
+                IndexedNode.from(NodeUtilities.NodeFromJSON(node)));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> wire(Object model, List<?> children) {
+        Map<String, Object> node = new LinkedHashMap<>((Map<String, Object>) CustomClassMapper.convertToPlainJavaTypes(model));
+        Map<String, Object> keyed = new LinkedHashMap<>();
+        for (int i = 0; i < children.size(); i++) {
+            keyed.put(String.format("-Nchild%012d", i), CustomClassMapper.convertToPlainJavaTypes(children.get(i)));
+        }
+        node.put("comments", keyed);
+        return node;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> List<T> readChildren(Map<String, Object> node, Class<T> type) {
+        List<T> values = new ArrayList<>();
+        for (Object child : ((Map<String, Object>) node.get("comments")).values()) {
+            values.add(CustomClassMapper.convertToCustomClass(child, type));
+        }
+        return values;
+    }
+}
@@ -0,0 +1,100 @@
+package com.cakecrafters.benchmarks;
+
+import com.cakecrafters.backend.model.CakeDecTip;
+import com.cakecrafters.backend.model.CakeRecipe;
+import com.cakecrafters.backend.model.Post;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+// Encoding a list response in each format the endpoints negotiate, with and without the gzip Tomcat applies.
+// The score is the CPU time per response; the "bytes" counter is its size on the wire.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WireFormatBenchmark {
+
+    @Param({"json", "smile", "cbor"})
+    public String format;
+
+    @Param({"identity", "gzip"})
+    public String encoding;
+
+    @Param({"reference", "inline"})
+    public String media;
+
+    @Param({"100"})
+    public int size;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Wire {
+        public long bytes;
+    }
+
+    private ObjectMapper mapper;
+    private boolean gzip;
+    private List<CakeRecipe> recipes;
+    private List<CakeDecTip> tips;
+    private List<Post> posts;
+
+    @Setup
+    public void setUp() {
+        mapper = switch (format) {
+            case "smile" -> new SmileMapper();
+            case "cbor" -> new CBORMapper();
+            default -> new ObjectMapper();
+        };
+        gzip = encoding.equals("gzip");
+        boolean inline = media.equals("inline");
+        recipes = new ArrayList<>();
+        tips = new ArrayList<>();
+        posts = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            recipes.add(Fixtures.recipe(i, inline, 5));
+            tips.add(Fixtures.tip(i, inline, 5));
+            posts.add(Fixtures.post(i, inline, 5));
+        }
+    }
+
+    @Benchmark
+    public byte[] recipes(Wire wire) throws IOException {
+        return encode(recipes, wire);
+    }
+
+    @Benchmark
+    public byte[] tips(Wire wire) throws IOException {
+        return encode(tips, wire);
+    }
+
+    @Benchmark
+    public byte[] posts(Wire wire) throws IOException {
+        return encode(posts, wire);
+    }
+
+    private byte[] encode(Object body, Wire wire) throws IOException {
+        byte[] bytes;
+        if (gzip) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            try (GZIPOutputStream compressed = new GZIPOutputStream(out)) {
+                mapper.writeValue(compressed, body);
+            }
+            bytes = out.toByteArray();
+        } else {
+            bytes = mapper.writeValueAsBytes(body);
+        }
+        wire.bytes = bytes.length;
+        return bytes;
+    }
+}
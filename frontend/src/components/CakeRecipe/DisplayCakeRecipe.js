@@ -3,6 +3,9 @@ import { Link, useNavigate } from 'react-router-dom';
 import 'bootstrap/dist/css/bootstrap.min.css';
 import 'bootstrap-icons/font/bootstrap-icons.css';
 
+// Media store URLs can be asked for a smaller rendition; other URLs are used as they are
+const thumbnail = (url) => (url && url.includes('/api/media/') && !url.includes('?') ? `${url}?size=thumb` : url);
+
 const CakeRecipe = () => {
   const [recipes, setRecipes] = useState([]);
   const [commentInputs, setCommentInputs] = useState({});
@@ -348,7 +351,7 @@ const CakeRecipe = () => {
                 <div className="recipe-image-container">
                   {recipe.images && recipe.images.length > 0 ? (
                     <img
-                      src={recipe.images[0]}
+                      src={thumbnail(recipe.images[0])}
                       alt={recipe.cakeName}
                       className="recipe-image"
                       onClick={() => navigate(`/recipe/${recipe.id}`)}
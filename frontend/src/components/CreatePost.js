@@ -3,13 +3,13 @@
 import { useState } from "react"
 import { Button, TextField, Typography, Box, Paper, CircularProgress } from "@mui/material"
 import { useNavigate } from "react-router-dom"
-import { createPost } from "../services/api"
+import { createPost, uploadMedia } from "../services/api"
 import { CloudUpload as UploadIcon, Cake as CakeIcon, Close as CloseIcon } from "@mui/icons-material"
 import { motion } from "framer-motion"
 
 function CreatePost() {
   const [description, setDescription] = useState("")
-  const [mediaBase64, setMediaBase64] = useState([])
+  const [mediaFiles, setMediaFiles] = useState([])
   const [previews, setPreviews] = useState([])
   const [error, setError] = useState("")
   const [isSubmitting, setIsSubmitting] = useState(false)
@@ -22,33 +22,18 @@ function CreatePost() {
       return
     }
     setError("")
-
-    const base64Promises = files.map((file) => {
-      return new Promise((resolve, reject) => {
-        const reader = new FileReader()
-        reader.onload = () => resolve(reader.result)
-        reader.onerror = (error) => reject(error)
-        reader.readAsDataURL(file)
-      })
-    })
-
-    Promise.all(base64Promises)
-      .then((base64Strings) => {
-        setMediaBase64(base64Strings)
-        setPreviews(base64Strings)
-      })
-      .catch((error) => {
-        setError("Failed to process images: " + error.message)
-      })
+    setMediaFiles(files)
+    setPreviews(files.map((file) => URL.createObjectURL(file)))
   }
 
   const handleSubmit = async (e) => {
     e.preventDefault()
     setError("")
     setIsSubmitting(true)
-    const post = { description, mediaUrls: mediaBase64 }
     try {
-      await createPost(post)
+      // Files go up as they are, and the post only carries their URLs
+      const mediaUrls = mediaFiles.length > 0 ? await uploadMedia(mediaFiles) : []
+      await createPost({ description, mediaUrls })
       navigate("/")
     } catch (error) {
       console.error("Error creating post:", error)
@@ -59,11 +44,12 @@ function CreatePost() {
 
   const removeImage = (index) => {
     const newPreviews = [...previews]
-    const newMediaBase64 = [...mediaBase64]
+    const newMediaFiles = [...mediaFiles]
+    URL.revokeObjectURL(newPreviews[index])
     newPreviews.splice(index, 1)
-    newMediaBase64.splice(index, 1)
+    newMediaFiles.splice(index, 1)
     setPreviews(newPreviews)
-    setMediaBase64(newMediaBase64)
+    setMediaFiles(newMediaFiles)
   }
 
   return (
@@ -241,14 +227,14 @@ function CreatePost() {
 
             <Typography
               variant="caption"
-              color={mediaBase64.length === 0 ? "error" : "text.secondary"}
+              color={mediaFiles.length === 0 ? "error" : "text.secondary"}
               sx={{ display: "block", mb: 2 }}
             >
-              {mediaBase64.length === 0 ? "At least one image is required" : `${mediaBase64.length} image(s) selected`}
+              {mediaFiles.length === 0 ? "At least one image is required" : `${mediaFiles.length} image(s) selected`}
             </Typography>
 
             <Box sx={{ display: "flex", flexWrap: "wrap", gap: 2, mb: 2 }}>
-              {previews.map((base64, index) => (
+              {previews.map((preview, index) => (
                 <div key={index} className="image-animation" style={{ animationDelay: `${index * 100}ms` }}>
                   <Box
                     sx={{
@@ -270,7 +256,7 @@ function CreatePost() {
                   >
                     <Box
                       component="img"
-                      src={base64}
+                      src={preview}
                       sx={{
                         width: "100%",
                         height: "100%",
@@ -310,7 +296,7 @@ function CreatePost() {
             <Button
               type="submit"
               variant="contained"
-              disabled={isSubmitting || description.trim() === '' || mediaBase64.length === 0}
+              disabled={isSubmitting || description.trim() === '' || mediaFiles.length === 0}
               sx={{
                 py: 1.5,
                 px: 4,
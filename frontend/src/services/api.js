@@ -16,6 +16,13 @@ export const createPost = (post) => {
   return api.post('', post);
 };
 
+// Uploads up to 3 files and resolves to their media URLs
+export const uploadMedia = (files) => {
+  const form = new FormData();
+  files.forEach((file) => form.append('file', file));
+  return axios.post('http://localhost:8080/api/media', form).then((response) => response.data);
+};
+
 export const updatePost = (postId, post) => {
   console.log('Updating post:', postId, 'with data:', post);
   return api.put(`/${postId}`, post);